@@ -0,0 +1,243 @@
+// AsyncMissionListener.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Copies mission events into a preallocated ring buffer and prints them
+ * from a background thread, so the simulation thread never formats or
+ * writes. Recording an event allocates nothing; when the ring is full
+ * the simulation waits for the printer to catch up.
+ *
+ * One simulation thread may feed a listener. Call close() to print the
+ * remaining events and stop the printer.
+ */
+public class AsyncMissionListener implements MissionListener, AutoCloseable {
+    private static final int LAUNCHED = 0;
+    private static final int MISSION_STARTED = 1;
+    private static final int LEG_STARTED = 2;
+    private static final int THRUST = 3;
+    private static final int ARRIVAL = 4;
+    private static final int OBSERVATION_STARTED = 5;
+    private static final int OBSERVATION_STEP = 6;
+    private static final int OBSERVATION_COMPLETE = 7;
+    private static final int EMERGENCY = 8;
+    private static final int REFUEL = 9;
+    private static final int MISSION_ENDED = 10;
+
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    /** One recorded event; reused as the ring wraps. */
+    private static final class Slot {
+        int type;
+        String name;
+        double a;
+        double b;
+        boolean flag;
+        boolean flag2;
+        ShuttleState state;
+    }
+
+    private final ConsoleMissionListener printer;
+    private final Slot[] ring;
+    private final int mask;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final Thread worker;
+    private long claimed;
+    private volatile boolean closed;
+
+    /** Prints to System.out through a ring of 8192 events. */
+    public AsyncMissionListener() {
+        this(System.out, 8192);
+    }
+
+    /**
+     * @param out      stream the log is printed to
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public AsyncMissionListener(PrintStream out, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.printer = new ConsoleMissionListener(out);
+        this.ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.worker = new Thread(this::drainLoop, "mission-log");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void launched() {
+        claim(LAUNCHED);
+        publish();
+    }
+
+    @Override
+    public void missionStarted(ShuttleState initial) {
+        claim(MISSION_STARTED).state = initial;
+        publish();
+    }
+
+    @Override
+    public void legStarted(Destination target) {
+        claim(LEG_STARTED).name = target.getName();
+        publish();
+    }
+
+    @Override
+    public void thrust(Destination target, int thrusts,
+                       double progress, double fuel) {
+        Slot s = claim(THRUST);
+        s.name = target.getName();
+        s.a = target.getProgress();
+        s.b = target.getDistanceFromEarth();
+        publish();
+    }
+
+    @Override
+    public void arrival(Destination target) {
+        claim(ARRIVAL).name = target.getName();
+        publish();
+    }
+
+    @Override
+    public void observationStarted(Destination target, boolean resumed) {
+        Slot s = claim(OBSERVATION_STARTED);
+        s.name = target.getName();
+        s.flag = resumed;
+        publish();
+    }
+
+    @Override
+    public void observationStep(Destination target, double fuel) {
+        claim(OBSERVATION_STEP).a = target.getObservationCompletion();
+        publish();
+    }
+
+    @Override
+    public void observationComplete(Destination target) {
+        claim(OBSERVATION_COMPLETE).name = target.getName();
+        publish();
+    }
+
+    @Override
+    public void emergency(Destination target, boolean duringObservation,
+                          double fuel) {
+        claim(EMERGENCY).flag = duringObservation;
+        publish();
+    }
+
+    @Override
+    public void refuel(boolean emergency, boolean succeeded, double fuel) {
+        Slot s = claim(REFUEL);
+        s.flag = emergency;
+        s.flag2 = succeeded;
+        publish();
+    }
+
+    @Override
+    public void missionEnded(boolean complete, ShuttleState state) {
+        Slot s = claim(MISSION_ENDED);
+        s.flag = complete;
+        s.state = state;
+        publish();
+    }
+
+    /**
+     * Prints every event recorded so far, then stops the printer thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        printer.flush();
+    }
+
+    /** Waits for a free slot and returns it tagged with the event type. */
+    private Slot claim(int type) {
+        while (claimed - consumed.get() >= ring.length) {
+            LockSupport.unpark(worker);
+            Thread.onSpinWait();
+        }
+        Slot s = ring[(int) (claimed & mask)];
+        s.type = type;
+        return s;
+    }
+
+    private void publish() {
+        published.lazySet(++claimed);
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            long available = published.get();
+            if (next == available) {
+                if (closed && next == published.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            while (next < available) {
+                print(ring[(int) (next & mask)]);
+                next++;
+                consumed.lazySet(next);
+            }
+        }
+    }
+
+    private void print(Slot s) {
+        switch (s.type) {
+            case LAUNCHED:
+                printer.launched();
+                break;
+            case MISSION_STARTED:
+                printer.missionStarted(s.state);
+                break;
+            case LEG_STARTED:
+                printer.printLegStarted(s.name);
+                break;
+            case THRUST:
+                printer.printThrust(s.name, s.a, s.b);
+                break;
+            case ARRIVAL:
+                printer.printArrival(s.name);
+                break;
+            case OBSERVATION_STARTED:
+                printer.printObservationStarted(s.name, s.flag);
+                break;
+            case OBSERVATION_STEP:
+                printer.printObservationStep(s.a);
+                break;
+            case OBSERVATION_COMPLETE:
+                printer.printObservationComplete(s.name);
+                break;
+            case EMERGENCY:
+                printer.printEmergency(s.flag);
+                break;
+            case REFUEL:
+                printer.printRefuel(s.flag, s.flag2);
+                break;
+            case MISSION_ENDED:
+                printer.printMissionEnded(s.flag, s.state);
+                break;
+            default:
+                break;
+        }
+    }
+}
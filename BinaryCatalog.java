@@ -0,0 +1,456 @@
+// BinaryCatalog.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only destination catalog in a compact binary file, read through
+ * a MappedByteBuffer without copying. Several processes opening the same
+ * file share its pages in the OS cache. The same layout can be built in
+ * memory with of(), e.g. to share one catalog across a fleet.
+ *
+ * Layout, version 1, little-endian:
+ * <pre>
+ *   header      96 bytes: magic "ORBC", version, counts and section offsets
+ *   records     32 bytes each, sorted by distance then file order:
+ *               double distance, double scientificValue,
+ *               double consumptionRate, int nameId, int order in text file
+ *   byValue     int record ids by descending scientific value
+ *   hull        16 bytes each: int record id, int unused, double end;
+ *               upper envelope of (distance - p) / rate for positive rates
+ *   nonPositive int record ids with a rate of zero or less, in file order
+ *   names       int[nameCount + 1] byte offsets, then interned UTF-8 names
+ * </pre>
+ * The orderings each navigation mode needs are computed once by the
+ * converter, so CatalogIndex can answer from the file without building
+ * anything at startup.
+ *
+ * Usage:
+ *   java BinaryCatalog destinations.txt destinations.orbc
+ *
+ * @author Nihat Masimli
+ */
+public final class BinaryCatalog {
+    private static final int MAGIC = 0x4342524F; // "ORBC" little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 96;
+    private static final int RECORD_BYTES = 32;
+    private static final int HULL_BYTES = 16;
+
+    private final ByteBuffer buf;
+    private final int recordCount;
+    private final int nameCount;
+    private final int byValueCount;
+    private final int hullCount;
+    private final int nonPositiveCount;
+    private final int recordsOffset;
+    private final int byValueOffset;
+    private final int hullOffset;
+    private final int nonPositiveOffset;
+    private final int namesOffset;
+    /** Content hash, computed on first use; 0 until then. */
+    private volatile long contentHash;
+
+    private BinaryCatalog(ByteBuffer buf) throws IOException {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.capacity() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a destination catalog");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IOException("Unsupported catalog version " + buf.getInt(4));
+        }
+        this.recordCount = buf.getInt(8);
+        this.nameCount = buf.getInt(12);
+        this.byValueCount = buf.getInt(16);
+        this.hullCount = buf.getInt(20);
+        this.nonPositiveCount = buf.getInt(24);
+        this.recordsOffset = (int) buf.getLong(32);
+        this.byValueOffset = (int) buf.getLong(40);
+        this.hullOffset = (int) buf.getLong(48);
+        this.nonPositiveOffset = (int) buf.getLong(56);
+        this.namesOffset = (int) buf.getLong(64);
+        if (buf.getLong(72) != buf.capacity()) {
+            throw new IOException("Truncated destination catalog");
+        }
+    }
+
+    /**
+     * Maps a catalog file. The mapping stays valid after this returns.
+     *
+     * @param filename path to the catalog
+     * @return the mapped catalog
+     * @throws IOException if the file is unreadable or not a catalog
+     */
+    public static BinaryCatalog open(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog larger than 2 GB: " + filename);
+            }
+            MappedByteBuffer mapped =
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinaryCatalog(mapped);
+        }
+    }
+
+    /**
+     * True if the file starts with the catalog magic number.
+     *
+     * @param filename path to check
+     * @throws IOException if file read fails
+     */
+    public static boolean isCatalog(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                                                    StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(head, 0) == 4 && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Converts a text destination file into a binary catalog.
+     *
+     * @param textFile    destination file; positions of 6-column lines
+     *                    are not kept
+     * @param catalogFile catalog to write (replaced if present)
+     * @throws IOException if reading or writing fails
+     */
+    public static void convert(String textFile, String catalogFile) throws IOException {
+        write(DestinationFileLoader.load(textFile), catalogFile);
+    }
+
+    /**
+     * Writes destinations as a binary catalog; their list order is kept
+     * as insertion order for tie breaking.
+     *
+     * @param destinations destinations to store
+     * @param catalogFile  catalog to write (replaced if present)
+     * @throws IOException if writing fails
+     */
+    public static void write(List<Destination> destinations, String catalogFile)
+            throws IOException {
+        Layout layout = new Layout(destinations);
+        try (FileChannel channel = FileChannel.open(Paths.get(catalogFile),
+                 StandardOpenOption.CREATE, StandardOpenOption.READ,
+                 StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out =
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.length);
+            layout.writeTo(out);
+            out.force();
+        }
+    }
+
+    /**
+     * Builds a catalog in memory, laid out as the file would be. Being
+     * read-only, one catalog can back the navigation of many shuttles
+     * at once.
+     *
+     * @param destinations destinations to store, in insertion order
+     * @return the catalog
+     * @throws IOException if the catalog would exceed 2 GB
+     */
+    public static BinaryCatalog of(List<Destination> destinations) throws IOException {
+        Layout layout = new Layout(destinations);
+        ByteBuffer buf = ByteBuffer.allocate((int) layout.length);
+        layout.writeTo(buf);
+        return new BinaryCatalog(buf);
+    }
+
+    /** Sections and offsets of a catalog for a list of destinations. */
+    private static final class Layout {
+        final int n;
+        final Destination[] byOrder;
+        final Integer[] sorted;
+        final int[] nameOf;
+        final List<byte[]> names = new ArrayList<>();
+        final int[] byValue;
+        final EfficiencyEnvelope hull;
+        final int[] hullRecords;
+        final List<Integer> nonPositive = new ArrayList<>();
+        final long recordsOffset;
+        final long byValueOffset;
+        final long hullOffset;
+        final long nonPositiveOffset;
+        final long namesOffset;
+        final long length;
+
+        Layout(List<Destination> destinations) throws IOException {
+            n = destinations.size();
+            byOrder = destinations.toArray(new Destination[0]);
+            sorted = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                sorted[i] = i;
+            }
+            Arrays.parallelSort(sorted, (a, b) -> {
+                int c = Double.compare(byOrder[a].getDistanceFromEarth(),
+                                       byOrder[b].getDistanceFromEarth());
+                return c != 0 ? c : Integer.compare(a, b);
+            });
+            int[] recordOf = new int[n];
+            for (int r = 0; r < n; r++) {
+                recordOf[sorted[r]] = r;
+            }
+
+            Map<String, Integer> nameIds = new HashMap<>();
+            nameOf = new int[n];
+            long nameBytes = 0;
+            for (int i = 0; i < n; i++) {
+                Integer id = nameIds.get(byOrder[i].getName());
+                if (id == null) {
+                    id = names.size();
+                    nameIds.put(byOrder[i].getName(), id);
+                    byte[] bytes = byOrder[i].getName().getBytes(StandardCharsets.UTF_8);
+                    names.add(bytes);
+                    nameBytes += bytes.length;
+                }
+                nameOf[i] = id;
+            }
+
+            byValue = rankByValue(byOrder, recordOf);
+            double[] distances = new double[n];
+            double[] rates = new double[n];
+            int positive = 0;
+            for (int i = 0; i < n; i++) {
+                distances[i] = byOrder[i].getDistanceFromEarth();
+                rates[i] = byOrder[i].getConsumptionRate();
+                if (rates[i] > 0) {
+                    positive++;
+                } else {
+                    nonPositive.add(recordOf[i]);
+                }
+            }
+            int[] lines = new int[positive];
+            for (int i = 0, j = 0; i < n; i++) {
+                if (rates[i] > 0) {
+                    lines[j++] = i;
+                }
+            }
+            hull = EfficiencyEnvelope.build(lines, distances, rates);
+            hullRecords = new int[hull.size()];
+            for (int i = 0; i < hull.size(); i++) {
+                hullRecords[i] = recordOf[hull.line(i)];
+            }
+
+            recordsOffset = HEADER_BYTES;
+            byValueOffset = recordsOffset + (long) RECORD_BYTES * n;
+            hullOffset = align8(byValueOffset + 4L * byValue.length);
+            nonPositiveOffset = hullOffset + (long) HULL_BYTES * hull.size();
+            namesOffset = nonPositiveOffset + 4L * nonPositive.size();
+            length = namesOffset + 4L * (names.size() + 1) + nameBytes;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Catalog would exceed 2 GB");
+            }
+        }
+
+        /** Fills a buffer of {@code length} bytes with the catalog. */
+        void writeTo(ByteBuffer buf) {
+            ByteBuffer out = buf.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, n)
+               .putInt(12, names.size()).putInt(16, byValue.length)
+               .putInt(20, hull.size()).putInt(24, nonPositive.size())
+               .putLong(32, recordsOffset).putLong(40, byValueOffset)
+               .putLong(48, hullOffset).putLong(56, nonPositiveOffset)
+               .putLong(64, namesOffset).putLong(72, length);
+            for (int r = 0; r < n; r++) {
+                Destination d = byOrder[sorted[r]];
+                int at = (int) recordsOffset + r * RECORD_BYTES;
+                out.putDouble(at, d.getDistanceFromEarth())
+                   .putDouble(at + 8, d.getScientificValue())
+                   .putDouble(at + 16, d.getConsumptionRate())
+                   .putInt(at + 24, nameOf[sorted[r]])
+                   .putInt(at + 28, sorted[r]);
+            }
+            for (int i = 0; i < byValue.length; i++) {
+                out.putInt((int) byValueOffset + 4 * i, byValue[i]);
+            }
+            for (int i = 0; i < hull.size(); i++) {
+                int at = (int) hullOffset + i * HULL_BYTES;
+                out.putInt(at, hullRecords[i]).putDouble(at + 8, hull.end(i));
+            }
+            for (int i = 0; i < nonPositive.size(); i++) {
+                out.putInt((int) nonPositiveOffset + 4 * i, nonPositive.get(i));
+            }
+            int table = (int) namesOffset;
+            int data = table + 4 * (names.size() + 1);
+            int offset = 0;
+            for (int i = 0; i < names.size(); i++) {
+                out.putInt(table + 4 * i, offset);
+                out.put(data + offset, names.get(i));
+                offset += names.get(i).length;
+            }
+            out.putInt(table + 4 * names.size(), offset);
+        }
+    }
+
+    /** Record ids by descending scientific value, then file order. */
+    private static int[] rankByValue(Destination[] byOrder, int[] recordOf) {
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < byOrder.length; i++) {
+            // NaN and -Infinity never win a "greater than" comparison
+            if (byOrder[i].getScientificValue() > Double.NEGATIVE_INFINITY) {
+                ranked.add(i);
+            }
+        }
+        ranked.sort((a, b) -> {
+            int c = Double.compare(byOrder[b].getScientificValue(),
+                                   byOrder[a].getScientificValue());
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        int[] ids = new int[ranked.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = recordOf[ranked.get(i)];
+        }
+        return ids;
+    }
+
+    private static long align8(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    /** Number of destinations. */
+    public int size() {
+        return recordCount;
+    }
+
+    /** Distance from Earth of a record; records are sorted by it. */
+    public double distance(int record) {
+        return buf.getDouble(recordsOffset + record * RECORD_BYTES);
+    }
+
+    /** Scientific value of a record. */
+    public double scientificValue(int record) {
+        return buf.getDouble(recordsOffset + record * RECORD_BYTES + 8);
+    }
+
+    /** Consumption rate of a record. */
+    public double consumptionRate(int record) {
+        return buf.getDouble(recordsOffset + record * RECORD_BYTES + 16);
+    }
+
+    /** Position of a record in the original text file. */
+    public int order(int record) {
+        return buf.getInt(recordsOffset + record * RECORD_BYTES + 28);
+    }
+
+    /** Name of a record, decoded from the shared name table. */
+    public String name(int record) {
+        int id = buf.getInt(recordsOffset + record * RECORD_BYTES + 24);
+        int data = namesOffset + 4 * (nameCount + 1);
+        int from = buf.getInt(namesOffset + 4 * id);
+        int to = buf.getInt(namesOffset + 4 * (id + 1));
+        byte[] bytes = new byte[to - from];
+        buf.get(data + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** First record whose distance is greater than the given one. */
+    public int firstBeyond(double distance) {
+        int lo = 0;
+        int hi = recordCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(distance(mid), distance) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Number of records ranked by scientific value. */
+    public int valueRankCount() {
+        return byValueCount;
+    }
+
+    /** Record with the given rank by descending scientific value. */
+    public int byValue(int rank) {
+        return buf.getInt(byValueOffset + 4 * rank);
+    }
+
+    /** Number of lines on the efficiency envelope. */
+    public int hullSize() {
+        return hullCount;
+    }
+
+    /** Record of the i-th envelope line. */
+    public int hullRecord(int i) {
+        return buf.getInt(hullOffset + i * HULL_BYTES);
+    }
+
+    /** Last progress at which the i-th envelope line is on top. */
+    public double hullEnd(int i) {
+        return buf.getDouble(hullOffset + i * HULL_BYTES + 8);
+    }
+
+    /** Number of records with a non-positive consumption rate. */
+    public int nonPositiveRateCount() {
+        return nonPositiveCount;
+    }
+
+    /** The i-th record with a non-positive rate, in file order. */
+    public int nonPositiveRate(int i) {
+        return buf.getInt(nonPositiveOffset + 4 * i);
+    }
+
+    /**
+     * A 64-bit hash of the whole catalog: every destination and its
+     * position in the file. The layout is a function of the destinations,
+     * so equal lists give equal hashes however the catalog was built.
+     * Computed once; the catalog is never written.
+     */
+    public long contentHash() {
+        long h = contentHash;
+        if (h == 0) {
+            h = 0x4F52424300000000L ^ buf.capacity();
+            int i = 0;
+            for (; i + 8 <= buf.capacity(); i += 8) {
+                h = Long.rotateLeft(h ^ buf.getLong(i), 27) * 0x9E3779B97F4A7C15L;
+            }
+            for (; i < buf.capacity(); i++) {
+                h = Long.rotateLeft(h ^ buf.get(i), 27) * 0x9E3779B97F4A7C15L;
+            }
+            h ^= h >>> 31;
+            h = h == 0 ? 1 : h; // 0 means not computed yet
+            contentHash = h;
+        }
+        return h;
+    }
+
+    /** Copies every record into a new Destination, in file order. */
+    public List<Destination> toDestinations() {
+        Destination[] destinations = new Destination[recordCount];
+        for (int r = 0; r < recordCount; r++) {
+            destinations[order(r)] = new Destination(
+                name(r), distance(r), scientificValue(r), consumptionRate(r));
+        }
+        return Arrays.asList(destinations);
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println(
+              "Usage: java BinaryCatalog destinations.txt destinations.orbc"
+            );
+            return;
+        }
+        try {
+            convert(args[0], args[1]);
+        } catch (IOException e) {
+            System.err.println("Failed to convert " + args[0] + ": " + e.getMessage());
+        }
+    }
+}
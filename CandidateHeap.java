@@ -0,0 +1,108 @@
+// CandidateHeap.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the k best of a stream of scored destinations in a bounded
+ * heap, the worst kept one on top: each offer costs O(log k), so
+ * ranking n candidates costs O(n log k) instead of a sort.
+ *
+ * Lower scores are better; equal scores are ranked by the order they
+ * were given, earlier first, as the strategies break ties. NaN scores
+ * are not candidates.
+ *
+ * @author Nihat Masimli
+ */
+final class CandidateHeap {
+    private final int k;
+    private final PriorityQueue<Candidate> worstFirst;
+
+    /**
+     * @param k number of candidates kept
+     */
+    CandidateHeap(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0: " + k);
+        }
+        this.k = k;
+        this.worstFirst = new PriorityQueue<>(Math.min(k, 1024) + 1,
+                                              (a, b) -> b.compareTo(a));
+    }
+
+    /**
+     * Offers a candidate.
+     *
+     * @param destination the candidate
+     * @param score       its score, lower is better
+     * @param order       tie-breaker, lower is better
+     */
+    void offer(Destination destination, double score, long order) {
+        if (!admits(score, order)) {
+            return;
+        }
+        if (worstFirst.size() == k) {
+            worstFirst.poll();
+        }
+        worstFirst.add(new Candidate(destination, score, order));
+    }
+
+    /**
+     * True if a candidate would be kept, so that callers can skip
+     * creating the ones that would not.
+     *
+     * @param score its score, lower is better
+     * @param order tie-breaker, lower is better
+     */
+    boolean admits(double score, long order) {
+        if (Double.isNaN(score) || k == 0) {
+            return false;
+        }
+        if (worstFirst.size() < k) {
+            return true;
+        }
+        Candidate worst = worstFirst.peek();
+        return score < worst.score || (score == worst.score && order < worst.order);
+    }
+
+    /** True if k candidates are kept and none scoring above this could join. */
+    boolean isFullBelow(double score) {
+        return worstFirst.size() == k && score > worstFirst.peek().score;
+    }
+
+    /** The kept candidates, best first. */
+    List<Destination> ranked() {
+        List<Candidate> sorted = new ArrayList<>(worstFirst);
+        Collections.sort(sorted);
+        List<Destination> ranked = new ArrayList<>(sorted.size());
+        for (Candidate c : sorted) {
+            ranked.add(c.destination);
+        }
+        return ranked;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final Destination destination;
+        final double score;
+        final long order;
+
+        Candidate(Destination destination, double score, long order) {
+            this.destination = destination;
+            this.score = score;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            // as the strategies compare: 0.0 and -0.0 tie
+            if (score != other.score) {
+                return score < other.score ? -1 : 1;
+            }
+            return Long.compare(order, other.order);
+        }
+    }
+}
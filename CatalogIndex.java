@@ -0,0 +1,338 @@
+// CatalogIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Destination index answering straight from a mapped BinaryCatalog.
+ *
+ * Records are sorted by distance, so reached destinations are dropped by
+ * moving one pointer past them. The orderings for EXPLORATION and
+ * EFFICIENT mode were computed by the converter and are read in place,
+ * so opening a catalog of any size costs nothing up front.
+ * What the mission changes about the records is kept in a CatalogOverlay,
+ * so the catalog stays read-only and shared; a record becomes a
+ * Destination view only once it is chosen.
+ * Destinations added later go into a regular tree index next to the
+ * catalog; on a tie the catalog record wins as it was added first.
+ */
+public class CatalogIndex extends DestinationIndex {
+    private final BinaryCatalog catalog;
+    private final NavigationMode mode;
+    private final DestinationIndex added;
+    private final NavigationStrategy ranking;
+    /** Mission state of the chosen records. */
+    private final CatalogOverlay overlay;
+    /** Records before this one have been reached. */
+    private int firstLive;
+    /** Ranks before this one in the byValue order have been reached. */
+    private int valueRank;
+
+    /**
+     * Creates an index over every record of a catalog.
+     *
+     * @param catalog mapped catalog
+     * @param mode    chosen NavigationMode
+     */
+    public CatalogIndex(BinaryCatalog catalog, NavigationMode mode) {
+        this(catalog, mode, 0, new CatalogOverlay(catalog), DestinationIndex.forMode(mode));
+    }
+
+    private CatalogIndex(BinaryCatalog catalog, NavigationMode mode, int firstLive,
+                         CatalogOverlay overlay, DestinationIndex added) {
+        this.catalog = catalog;
+        this.mode = mode;
+        this.firstLive = firstLive;
+        this.overlay = overlay;
+        this.added = added;
+        this.ranking = NavigationStrategy.forMode(mode);
+    }
+
+    @Override
+    public void add(Destination dest) {
+        added.add(dest);
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        int beyond = catalog.firstBeyond(progress);
+        if (beyond > firstLive) {
+            overlay.reached(beyond, progress);
+            firstLive = beyond;
+        }
+        added.removeReached(progress);
+    }
+
+    @Override
+    public Destination next(double progress) {
+        int record = select(progress);
+        Destination other = added.next(progress);
+        if (record < 0) {
+            return other;
+        }
+        if (other != null && !catalogWins(record, other, progress)) {
+            return other;
+        }
+        Destination d = overlay.view(record);
+        d.updateProgress(progress);
+        return d;
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        return new CatalogIndex(catalog, mode, firstLive, overlay, added.reindex(mode));
+    }
+
+    @Override
+    public int size() {
+        return catalog.size() - firstLive + added.size();
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        Destination[] live = new Destination[catalog.size()];
+        for (int r = firstLive; r < catalog.size(); r++) {
+            live[catalog.order(r)] = overlay.view(r);
+        }
+        List<Destination> list = new ArrayList<>(size());
+        for (Destination d : live) {
+            if (d != null) {
+                list.add(d);
+            }
+        }
+        list.addAll(added.destinations());
+        return list;
+    }
+
+    @Override
+    public List<Destination> within(double from, double to) {
+        List<Destination> found = new ArrayList<>();
+        // first record at or beyond from
+        int first = Math.max(firstLive, catalog.firstBeyond(Math.nextDown(from)));
+        int beyond = catalog.firstBeyond(to);
+        for (int r = first; r < beyond; r++) {
+            found.add(overlay.view(r));
+        }
+        List<Destination> more = added.within(from, to);
+        if (!more.isEmpty()) {
+            found.addAll(more);
+            // stable, so the catalog record wins a tie as it was added first
+            found.sort(Comparator.comparingDouble(Destination::getDistanceFromEarth));
+        }
+        return found;
+    }
+
+    /** Best live record for the mode, or -1. */
+    private int select(double progress) {
+        if (firstLive >= catalog.size()) {
+            return -1;
+        }
+        switch (mode) {
+            case EFFICIENT:
+                return selectEfficient(progress);
+            case EXPLORATION:
+                while (valueRank < catalog.valueRankCount()
+                       && catalog.byValue(valueRank) < firstLive) {
+                    valueRank++;
+                }
+                return valueRank < catalog.valueRankCount()
+                       ? catalog.byValue(valueRank) : -1;
+            case STANDARD:
+            default:
+                return selectClosest(progress);
+        }
+    }
+
+    private int selectClosest(double progress) {
+        double distance = catalog.distance(firstLive);
+        if (distance > progress) {
+            return distance - progress < Double.MAX_VALUE ? firstLive : -1;
+        }
+        // Passed but not yet removed: the earliest one in the file wins
+        int best = firstLive;
+        int beyond = catalog.firstBeyond(progress);
+        for (int r = firstLive + 1; r < beyond; r++) {
+            if (catalog.order(r) < catalog.order(best)) {
+                best = r;
+            }
+        }
+        return best;
+    }
+
+    private int selectEfficient(double progress) {
+        // A non-positive rate gives a ratio <= 0, better than any positive one
+        int best = -1;
+        double bestRatio = Double.MAX_VALUE;
+        for (int i = 0; i < catalog.nonPositiveRateCount(); i++) {
+            int r = catalog.nonPositiveRate(i);
+            double rem = catalog.distance(r) - progress;
+            if (r < firstLive || rem <= 0) continue;
+            double ratio = catalog.consumptionRate(r) / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = r;
+            }
+        }
+        if (best >= 0 || catalog.hullSize() == 0) {
+            return best;
+        }
+        int lo = 0;
+        int hi = catalog.hullSize() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (catalog.hullEnd(mid) >= progress) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        best = catalog.hullRecord(lo);
+        if (best < firstLive) {
+            // the top line was reached, so no live record is ahead on
+            // the envelope; look at the remaining records directly
+            return scanEfficient(progress);
+        }
+        // On a breakpoint the neighbours tie; settle it as the scan would
+        if (lo > 0) {
+            best = closer(best, catalog.hullRecord(lo - 1), progress);
+        }
+        if (lo + 1 < catalog.hullSize()) {
+            best = closer(best, catalog.hullRecord(lo + 1), progress);
+        }
+        return catalog.distance(best) > progress ? best : -1;
+    }
+
+    private int scanEfficient(double progress) {
+        int best = -1;
+        double bestRatio = Double.MAX_VALUE;
+        for (int r = firstLive; r < catalog.size(); r++) {
+            double rem = catalog.distance(r) - progress;
+            if (rem <= 0) continue;
+            double ratio = catalog.consumptionRate(r) / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = r;
+            } else if (ratio == bestRatio && best >= 0
+                       && catalog.order(r) < catalog.order(best)) {
+                best = r;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return ranking;
+    }
+
+    /**
+     * Scores the live records in place through one probe, so only the
+     * ones the heap keeps get a view in the overlay. In STANDARD and
+     * EXPLORATION mode the records are read in distance or value order
+     * and the scan stops once nothing further could join.
+     */
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        CandidateHeap heap = new CandidateHeap(k);
+        Probe probe = new Probe(catalog);
+        switch (mode) {
+            case EFFICIENT:
+                for (int r = firstLive; r < catalog.size(); r++) {
+                    offer(heap, probe, r, progress, false);
+                }
+                break;
+            case EXPLORATION:
+                for (int rank = valueRank; rank < catalog.valueRankCount(); rank++) {
+                    int r = catalog.byValue(rank);
+                    if (r >= firstLive && !offer(heap, probe, r, progress, true)) {
+                        break;
+                    }
+                }
+                break;
+            case STANDARD:
+            default:
+                for (int r = firstLive; r < catalog.size(); r++) {
+                    if (!offer(heap, probe, r, progress, true)) {
+                        break;
+                    }
+                }
+                break;
+        }
+        // added destinations come after every record in insertion order
+        long order = catalog.size();
+        for (Destination d : added.topK(k, progress)) {
+            heap.offer(d, ranking.score(d, progress), order++);
+        }
+        return heap.ranked();
+    }
+
+    /**
+     * Offers a record to the heap, viewing it only if kept.
+     *
+     * @return false if the scan is ordered and nothing further can join
+     */
+    private boolean offer(CandidateHeap heap, Probe probe, int record, double progress,
+                          boolean ordered) {
+        probe.record = record;
+        double score = ranking.score(probe, progress);
+        if (ordered && heap.isFullBelow(score)) {
+            return false;
+        }
+        long order = catalog.order(record);
+        if (heap.admits(score, order)) {
+            heap.offer(overlay.view(record), score, order);
+        }
+        return true;
+    }
+
+    /** A record's catalog values as a Destination, for scoring only. */
+    private static final class Probe extends Destination {
+        private final BinaryCatalog catalog;
+        int record;
+
+        Probe(BinaryCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        @Override
+        public String getName() { return catalog.name(record); }
+        @Override
+        public double getDistanceFromEarth() { return catalog.distance(record); }
+        @Override
+        public double getScientificValue() { return catalog.scientificValue(record); }
+        @Override
+        public double getConsumptionRate() { return catalog.consumptionRate(record); }
+    }
+
+    /** The better of two records by exact ratio, then file order. */
+    private int closer(int best, int other, double progress) {
+        if (other < firstLive || !(catalog.distance(other) > progress)) {
+            return best;
+        }
+        double ratio = catalog.consumptionRate(other) / (catalog.distance(other) - progress);
+        double bestRatio = catalog.consumptionRate(best) / (catalog.distance(best) - progress);
+        if (ratio < bestRatio
+                || (ratio == bestRatio && catalog.order(other) < catalog.order(best))) {
+            return other;
+        }
+        return best;
+    }
+
+    /** True if the record is at least as good as an added destination. */
+    private boolean catalogWins(int record, Destination other, double progress) {
+        switch (mode) {
+            case EFFICIENT:
+                return catalog.consumptionRate(record) / (catalog.distance(record) - progress)
+                       <= other.getConsumptionRate() / other.distanceRemaining();
+            case EXPLORATION:
+                return catalog.scientificValue(record) >= other.getScientificValue();
+            case STANDARD:
+            default:
+                return Math.max(catalog.distance(record) - progress, 0)
+                       <= other.distanceRemaining();
+        }
+    }
+}
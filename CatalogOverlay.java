@@ -0,0 +1,163 @@
+// CatalogOverlay.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.Arrays;
+
+/**
+ * What one mission changes about the records of a shared BinaryCatalog:
+ * progress and observation completion, in primitive arrays with one
+ * slot per record the mission has chosen. An open-addressing table
+ * finds the slot of a record.
+ *
+ * The catalog holds every immutable field and is never written, so any
+ * number of missions can fly it at once. Each mission only adds an
+ * overlay that grows with the records it visits, never with the size
+ * of the catalog.
+ *
+ * The Destination of a record is a view reading the catalog and the
+ * overlay, created when the record is first chosen; the same view is
+ * returned for it from then on.
+ *
+ * @author Nihat Masimli
+ */
+final class CatalogOverlay {
+    private static final int INITIAL_SLOTS = 16;
+
+    private final BinaryCatalog catalog;
+    /** Slot + 1 of the record hashed there, or 0. */
+    private int[] table = new int[2 * INITIAL_SLOTS];
+    private int[] records = new int[INITIAL_SLOTS];
+    private double[] progress = new double[INITIAL_SLOTS];
+    private double[] observation = new double[INITIAL_SLOTS];
+    private View[] views = new View[INITIAL_SLOTS];
+    private int size;
+    /** Slots whose record has not been reached yet. */
+    private int[] live = new int[INITIAL_SLOTS];
+    private int liveCount;
+
+    /**
+     * @param catalog shared catalog the records come from
+     */
+    CatalogOverlay(BinaryCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * The Destination of a record, given a slot on first use.
+     *
+     * @param record catalog record id
+     * @return view of the record's catalog values and mission state
+     */
+    Destination view(int record) {
+        int mask = table.length - 1;
+        int i = hash(record) & mask;
+        for (int s = table[i]; s != 0; s = table[i]) {
+            if (records[s - 1] == record) {
+                return views[s - 1];
+            }
+            i = (i + 1) & mask;
+        }
+        if (size == records.length) {
+            grow();
+            return view(record);
+        }
+        int slot = size++;
+        records[slot] = record;
+        views[slot] = new View(slot);
+        table[i] = slot + 1;
+        live[liveCount++] = slot;
+        return views[slot];
+    }
+
+    /**
+     * Moves every chosen record before {@code beyond} to the progress, as
+     * dropping a reached Destination does, and forgets it as live.
+     *
+     * @param beyond    first record not reached
+     * @param travelled shuttle's current travelled distance
+     */
+    void reached(int beyond, double travelled) {
+        int kept = 0;
+        for (int i = 0; i < liveCount; i++) {
+            int slot = live[i];
+            if (records[slot] < beyond) {
+                updateProgress(slot, travelled);
+            } else {
+                live[kept++] = slot;
+            }
+        }
+        liveCount = kept;
+    }
+
+    /** Number of records given a slot so far. */
+    int size() {
+        return size;
+    }
+
+    private void updateProgress(int slot, double travelled) {
+        progress[slot] = Math.min(travelled, catalog.distance(records[slot]));
+    }
+
+    private void grow() {
+        int capacity = 2 * records.length;
+        records = Arrays.copyOf(records, capacity);
+        progress = Arrays.copyOf(progress, capacity);
+        observation = Arrays.copyOf(observation, capacity);
+        views = Arrays.copyOf(views, capacity);
+        live = Arrays.copyOf(live, capacity);
+        table = new int[2 * capacity];
+        int mask = table.length - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int i = hash(records[slot]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+        }
+    }
+
+    private static int hash(int record) {
+        int h = record * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** A record as a Destination; its name is decoded on first use. */
+    private final class View extends Destination {
+        private final int slot;
+        private String name;
+
+        View(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public void updateProgress(double travelledDistance) {
+            CatalogOverlay.this.updateProgress(slot, travelledDistance);
+        }
+
+        @Override
+        public void updateObservation(double percent) {
+            observation[slot] = Math.min(observation[slot] + percent, 100.0);
+        }
+
+        @Override
+        public String getName() {
+            if (name == null) {
+                name = catalog.name(records[slot]);
+            }
+            return name;
+        }
+
+        @Override
+        public double getDistanceFromEarth() { return catalog.distance(records[slot]); }
+        @Override
+        public double getProgress() { return progress[slot]; }
+        @Override
+        public double getScientificValue() { return catalog.scientificValue(records[slot]); }
+        @Override
+        public double getObservationCompletion() { return observation[slot]; }
+        @Override
+        public double getConsumptionRate() { return catalog.consumptionRate(records[slot]); }
+    }
+}
@@ -0,0 +1,449 @@
+// ColumnDestinationIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Destination index over a DestinationStore, keeping just enough state
+ * between legs that a selection does not look at every row again:
+ * <ul>
+ *   <li>row ids sorted by distance, with a cursor past the reached ones;
+ *       STANDARD mode takes the first live one</li>
+ *   <li>for EXPLORATION, row ids by descending scientific value, with a
+ *       cursor past the reached ones</li>
+ *   <li>for EFFICIENT, the EfficiencyEnvelope of the rows, searched at
+ *       the current progress</li>
+ * </ul>
+ * Building an ordering costs about as much as REBUILD_SCANS linear
+ * scans, so selections scan every live row until they have scanned
+ * that much, and only then build what the mode needs; a short mission
+ * over a large store never pays for a sort. The orderings are shared
+ * by the indexes of every mode over the same store, so switching back
+ * and forth costs nothing once they are built.
+ *
+ * Reached rows are only marked, by remembering the distance reached;
+ * the columns are compacted once at least half of the rows are reached,
+ * and the orderings rebuilt. Rows added since the orderings were built
+ * are scanned directly; once there are more than about the square root
+ * of the row count they are folded in by the next build.
+ *
+ * Destinations are copied into the store when added; the ones handed
+ * out by next() are views of their rows. Selections match the mode's
+ * strategy over the same rows.
+ */
+public class ColumnDestinationIndex extends DestinationIndex {
+    /** Rows scanned directly before the orderings are rebuilt, at least. */
+    private static final int PENDING_LIMIT = 64;
+    /** Linear scans of the whole store worth one build of the orderings. */
+    private static final int REBUILD_SCANS = 64;
+
+    private final DestinationStore store;
+    private final NavigationMode mode;
+    private final Orders orders;
+
+    /**
+     * Creates an empty column index.
+     *
+     * @param mode chosen NavigationMode
+     */
+    public ColumnDestinationIndex(NavigationMode mode) {
+        this(new DestinationStore(), mode, new Orders());
+    }
+
+    private ColumnDestinationIndex(DestinationStore store, NavigationMode mode,
+                                   Orders orders) {
+        this.store = store;
+        this.mode = mode;
+        this.orders = orders;
+    }
+
+    /** Orderings of the first {@code built} rows and what is reached. */
+    private static final class Orders {
+        /** Rows at this distance or closer are reached but not yet dropped. */
+        double reached = Double.NEGATIVE_INFINITY;
+        int built;
+        int[] byDistance;
+        /** Entries of byDistance before this one are reached. */
+        int firstLive;
+        /** Reached rows at or after {@code built}. */
+        int pendingDead;
+        int[] byValue;
+        /** Entries of byValue before this one are reached. */
+        int valueRank;
+        EfficiencyEnvelope envelope;
+        int[] nonPositive;
+        /** Rows scanned linearly since the last build. */
+        long scanned;
+    }
+
+    @Override
+    public void add(Destination dest) {
+        if (dest.getDistanceFromEarth() <= orders.reached) {
+            // it would count as reached before its time
+            compact();
+        }
+        store.add(dest);
+    }
+
+    @Override
+    public void addAll(Collection<Destination> dests) {
+        store.ensureCapacity(store.size() + dests.size());
+        super.addAll(dests);
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        Orders o = orders;
+        if (!(progress > o.reached)) {
+            return;
+        }
+        o.reached = progress;
+        double[] distances = store.distances();
+        while (o.firstLive < o.built && distances[o.byDistance[o.firstLive]] <= progress) {
+            store.updateProgress(o.byDistance[o.firstLive++], progress);
+        }
+        o.pendingDead = 0;
+        for (int i = o.built; i < store.size(); i++) {
+            if (distances[i] <= progress) {
+                store.updateProgress(i, progress);
+                o.pendingDead++;
+            }
+        }
+        int dead = o.firstLive + o.pendingDead;
+        if (dead > 0 && dead >= store.size() - dead) {
+            compact();
+        }
+    }
+
+    @Override
+    public Destination next(double progress) {
+        prepare();
+        int id = select(progress);
+        if (id < 0) {
+            return null;
+        }
+        Destination best = store.view(id);
+        best.updateProgress(progress);
+        return best;
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        return new ColumnDestinationIndex(store, mode, orders);
+    }
+
+    @Override
+    public int size() {
+        return store.size() - orders.firstLive - orders.pendingDead;
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        List<Destination> list = new ArrayList<>(size());
+        for (int i = 0; i < store.size(); i++) {
+            if (!reached(i)) {
+                list.add(store.view(i));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<Destination> within(double from, double to) {
+        Orders o = orders;
+        double[] distances = store.distances();
+        List<Destination> found = new ArrayList<>();
+        int lo = o.firstLive;
+        int hi = o.built;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (distances[o.byDistance[mid]] < from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int i = lo; i < o.built && distances[o.byDistance[i]] <= to; i++) {
+            found.add(store.view(o.byDistance[i]));
+        }
+        for (int i = o.built; i < store.size(); i++) {
+            if (distances[i] >= from && distances[i] <= to && !reached(i)) {
+                found.add(store.view(i));
+            }
+        }
+        found.sort(Comparator.comparingDouble(Destination::getDistanceFromEarth)
+                             .thenComparingInt(store::idOf));
+        return found;
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return NavigationStrategy.forMode(mode);
+    }
+
+    private boolean reached(int id) {
+        return store.distance(id) <= orders.reached;
+    }
+
+    /** Drops the reached rows; the orderings are rebuilt when next needed. */
+    private void compact() {
+        Orders o = orders;
+        store.removeReached(o.reached);
+        o.reached = Double.NEGATIVE_INFINITY;
+        o.built = 0;
+        o.byDistance = null;
+        o.firstLive = 0;
+        o.pendingDead = 0;
+        o.byValue = null;
+        o.valueRank = 0;
+        o.envelope = null;
+        o.nonPositive = null;
+    }
+
+    /**
+     * Once scanning has cost as much as a build, rebuilds the orderings
+     * if too many rows are pending, then adds the mode's own.
+     */
+    private void prepare() {
+        Orders o = orders;
+        if (o.scanned < (long) REBUILD_SCANS * store.size()) {
+            return;
+        }
+        int pending = store.size() - o.built;
+        if (pending > Math.max(PENDING_LIMIT, (int) Math.sqrt(o.built))) {
+            if (o.reached > Double.NEGATIVE_INFINITY) {
+                compact();
+            }
+            o.byDistance = sortedIds(store.size(), store.distances(), false);
+            o.built = store.size();
+            o.byValue = null;
+            o.envelope = null;
+            o.scanned = 0;
+        }
+        if (o.built == 0) {
+            return;
+        }
+        if (mode == NavigationMode.EXPLORATION && o.byValue == null) {
+            o.byValue = sortedIds(o.built, store.scientificValues(), true);
+            o.valueRank = 0;
+            o.scanned = 0;
+        } else if (mode == NavigationMode.EFFICIENT && o.envelope == null) {
+            double[] rates = store.consumptionRates();
+            int positive = 0;
+            for (int i = 0; i < o.built; i++) {
+                if (rates[i] > 0) {
+                    positive++;
+                }
+            }
+            int[] lines = new int[positive];
+            o.nonPositive = new int[o.built - positive];
+            for (int i = 0, l = 0, n = 0; i < o.built; i++) {
+                if (rates[i] > 0) {
+                    lines[l++] = i;
+                } else {
+                    o.nonPositive[n++] = i;
+                }
+            }
+            o.envelope = EfficiencyEnvelope.build(lines, store.distances(), rates);
+            o.scanned = 0;
+        }
+    }
+
+    /**
+     * Row ids 0..count-1 sorted by a column, ties by id. Descending
+     * leaves out values no scan would ever pick (NaN and -Infinity).
+     */
+    private static int[] sortedIds(int count, double[] column, boolean descending) {
+        int[] ids = new int[count];
+        long[] keys = new long[count];
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (!descending || column[i] > Double.NEGATIVE_INFINITY) {
+                ids[kept++] = i;
+                keys[i] = descending ? ~IdSort.key(column[i]) : IdSort.key(column[i]);
+            }
+        }
+        return IdSort.sort(Arrays.copyOf(ids, kept), keys);
+    }
+
+    /** Best live row for the mode, or -1. */
+    private int select(double progress) {
+        switch (mode) {
+            case EFFICIENT:
+                return selectEfficient(progress);
+            case EXPLORATION:
+                return selectValuable();
+            case STANDARD:
+            default:
+                return selectClosest(progress);
+        }
+    }
+
+    /** Distance remaining as Destination.distanceRemaining() computes it. */
+    private static double remaining(double distance, double progress) {
+        return distance > progress
+               ? distance - progress
+               : Math.max(distance - Math.min(progress, distance), 0.0);
+    }
+
+    private int selectClosest(double progress) {
+        Orders o = orders;
+        double[] distances = store.distances();
+        int best = -1;
+        if (o.firstLive < o.built) {
+            int first = o.byDistance[o.firstLive];
+            if (distances[first] > progress) {
+                best = first;
+            } else {
+                // Passed but not yet removed: all have zero distance
+                // remaining, so the earliest added one wins.
+                for (int i = o.firstLive;
+                     i < o.built && distances[o.byDistance[i]] <= progress; i++) {
+                    if (best < 0 || o.byDistance[i] < best) {
+                        best = o.byDistance[i];
+                    }
+                }
+            }
+        }
+        double bestDist = best < 0 ? Double.MAX_VALUE
+                                   : remaining(distances[best], progress);
+        if (!(bestDist < Double.MAX_VALUE)) {
+            best = -1;
+            bestDist = Double.MAX_VALUE;
+        }
+        o.scanned += store.size() - o.built;
+        for (int i = o.built; i < store.size(); i++) {
+            if (reached(i)) continue;
+            double rem = remaining(distances[i], progress);
+            if (rem < bestDist) {
+                bestDist = rem;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int selectValuable() {
+        Orders o = orders;
+        double[] values = store.scientificValues();
+        int best = -1;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        if (o.byValue != null) {
+            while (o.valueRank < o.byValue.length && reached(o.byValue[o.valueRank])) {
+                o.valueRank++;
+            }
+            if (o.valueRank < o.byValue.length) {
+                best = o.byValue[o.valueRank];
+                maxValue = values[best];
+            }
+        }
+        int from = o.byValue != null ? o.built : 0;
+        o.scanned += store.size() - from;
+        for (int i = from; i < store.size(); i++) {
+            if (!reached(i) && values[i] > maxValue) {
+                maxValue = values[i];
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private int selectEfficient(double progress) {
+        Orders o = orders;
+        double[] distances = store.distances();
+        double[] rates = store.consumptionRates();
+        int best = o.envelope != null ? envelopeBest(progress) : -1;
+        double bestRatio = best < 0 ? Double.MAX_VALUE
+                                    : rates[best] / (distances[best] - progress);
+        int from = o.envelope != null ? o.built : 0;
+        o.scanned += store.size() - from;
+        for (int i = from; i < store.size(); i++) {
+            if (reached(i)) continue;
+            double rem = remaining(distances[i], progress);
+            if (rem <= 0) continue;
+            double ratio = rates[i] / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /** Best of the built rows by ratio, as CatalogIndex finds it. */
+    private int envelopeBest(double progress) {
+        Orders o = orders;
+        double[] distances = store.distances();
+        double[] rates = store.consumptionRates();
+        // A non-positive rate gives a ratio <= 0, better than any positive one
+        int best = -1;
+        double bestRatio = Double.MAX_VALUE;
+        for (int r : o.nonPositive) {
+            double rem = distances[r] - progress;
+            if (reached(r) || rem <= 0) continue;
+            double ratio = rates[r] / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = r;
+            }
+        }
+        EfficiencyEnvelope envelope = o.envelope;
+        if (best >= 0 || envelope.size() == 0) {
+            return best;
+        }
+        int top = envelope.find(progress);
+        best = envelope.line(top);
+        if (reached(best)) {
+            // the top line was reached, so no live row is ahead on the
+            // envelope; look at the remaining rows directly
+            return scanEfficient(progress);
+        }
+        // On a breakpoint the neighbours tie; settle it as the scan would
+        if (top > 0) {
+            best = closer(best, envelope.line(top - 1), progress);
+        }
+        if (top + 1 < envelope.size()) {
+            best = closer(best, envelope.line(top + 1), progress);
+        }
+        return distances[best] > progress ? best : -1;
+    }
+
+    private int scanEfficient(double progress) {
+        Orders o = orders;
+        double[] distances = store.distances();
+        double[] rates = store.consumptionRates();
+        int best = -1;
+        double bestRatio = Double.MAX_VALUE;
+        for (int i = o.firstLive; i < o.built; i++) {
+            int r = o.byDistance[i];
+            double rem = distances[r] - progress;
+            if (rem <= 0) continue;
+            double ratio = rates[r] / rem;
+            if (ratio < bestRatio || (ratio == bestRatio && best >= 0 && r < best)) {
+                bestRatio = ratio;
+                best = r;
+            }
+        }
+        return best;
+    }
+
+    /** The better of two rows by exact ratio, then id. */
+    private int closer(int best, int other, double progress) {
+        double[] distances = store.distances();
+        double[] rates = store.consumptionRates();
+        if (reached(other) || !(distances[other] > progress)) {
+            return best;
+        }
+        double ratio = rates[other] / (distances[other] - progress);
+        double bestRatio = rates[best] / (distances[best] - progress);
+        if (ratio < bestRatio || (ratio == bestRatio && other < best)) {
+            return other;
+        }
+        return best;
+    }
+}
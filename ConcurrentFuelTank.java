@@ -0,0 +1,125 @@
+// ConcurrentFuelTank.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FuelTank that several shuttles or depots can draw from at once.
+ *
+ * The level is a double kept as its raw long bits in an AtomicLong.
+ * Every change reads the level, computes the new one exactly as
+ * FuelTank would, and publishes it with compare-and-set, retrying if
+ * another thread got there first, so no update is lost and no thread
+ * ever blocks. tryUseFuel reserves fuel all-or-nothing, e.g. for one
+ * thrust.
+ *
+ * A tank used by a single shuttle should stay a plain FuelTank.
+ *
+ * @author Nihat Masimli
+ */
+public class ConcurrentFuelTank extends FuelTank {
+    private final AtomicLong level;
+
+    /**
+     * Constructs a shared tank with the specified maximum capacity.
+     * The tank starts fully fuelled.
+     *
+     * @param maxFuel the maximum fuel capacity
+     */
+    public ConcurrentFuelTank(double maxFuel) {
+        this(maxFuel, LOW_FUEL_FRACTION);
+    }
+
+    /**
+     * Constructs a full shared tank that reports low fuel below the given
+     * fraction of its capacity.
+     *
+     * @param maxFuel         the maximum fuel capacity
+     * @param lowFuelFraction fraction of the capacity below which fuel is low
+     */
+    public ConcurrentFuelTank(double maxFuel, double lowFuelFraction) {
+        super(maxFuel, lowFuelFraction);
+        this.level = new AtomicLong(Double.doubleToRawLongBits(maxFuel));
+    }
+
+    @Override
+    public void useFuel(double percent) {
+        double amount = (percent / 100.0) * getMaxFuel();
+        long bits = level.get();
+        while (true) {
+            double fuel = Double.longBitsToDouble(bits);
+            long next = Double.doubleToRawLongBits(Math.max(fuel - amount, 0.0));
+            long witness = level.compareAndExchange(bits, next);
+            if (witness == bits) {
+                return;
+            }
+            bits = witness;
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public boolean tryUseFuel(double percent) {
+        double amount = (percent / 100.0) * getMaxFuel();
+        long bits = level.get();
+        while (true) {
+            double fuel = Double.longBitsToDouble(bits);
+            if (fuel < amount) {
+                return false;
+            }
+            long witness = level.compareAndExchange(
+                bits, Double.doubleToRawLongBits(fuel - amount));
+            if (witness == bits) {
+                return true;
+            }
+            bits = witness;
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public void useFuel(double percent, int times) {
+        double amount = (percent / 100.0) * getMaxFuel();
+        long bits = level.get();
+        while (true) {
+            double fuel = afterBurns(Double.longBitsToDouble(bits), amount, times);
+            long witness = level.compareAndExchange(bits, Double.doubleToRawLongBits(fuel));
+            if (witness == bits) {
+                return;
+            }
+            bits = witness;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Counts burns from the level at the time of the call; other users
+     * of the tank may change it before they happen.
+     */
+    @Override
+    public int burnsUntilLow(double percent) {
+        return burnsUntilLow(getCurrentFuel(), (percent / 100.0) * getMaxFuel(),
+                             getLowFuelFraction() * getMaxFuel());
+    }
+
+    @Override
+    public void refuel() {
+        level.set(Double.doubleToRawLongBits(getMaxFuel()));
+    }
+
+    @Override
+    void setCurrentFuel(double fuel) {
+        level.set(Double.doubleToRawLongBits(fuel));
+    }
+
+    @Override
+    public boolean isLowFuel() {
+        return getCurrentFuel() < (getLowFuelFraction() * getMaxFuel());
+    }
+
+    @Override
+    public double getCurrentFuel() {
+        return Double.longBitsToDouble(level.get());
+    }
+}
@@ -0,0 +1,138 @@
+// ConsoleMissionListener.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.PrintStream;
+
+/**
+ * Prints the mission log to a stream, System.out by default.
+ * This is the listener the shuttle uses unless told otherwise.
+ */
+public class ConsoleMissionListener implements MissionListener {
+    private final PrintStream out;
+
+    /** Prints to System.out. */
+    public ConsoleMissionListener() {
+        this(System.out);
+    }
+
+    /**
+     * @param out stream the log is printed to
+     */
+    public ConsoleMissionListener(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void launched() {
+        out.println("Launching Orion Expedition...");
+    }
+
+    @Override
+    public void missionStarted(ShuttleState initial) {
+        out.println("Initial state: " + initial);
+    }
+
+    @Override
+    public void legStarted(Destination target) {
+        printLegStarted(target.getName());
+    }
+
+    @Override
+    public void thrust(Destination target, int thrusts,
+                       double progress, double fuel) {
+        printThrust(target.getName(), target.getProgress(),
+                    target.getDistanceFromEarth());
+    }
+
+    @Override
+    public void arrival(Destination target) {
+        printArrival(target.getName());
+    }
+
+    @Override
+    public void observationStarted(Destination target, boolean resumed) {
+        printObservationStarted(target.getName(), resumed);
+    }
+
+    @Override
+    public void observationStep(Destination target, double fuel) {
+        printObservationStep(target.getObservationCompletion());
+    }
+
+    @Override
+    public void observationComplete(Destination target) {
+        printObservationComplete(target.getName());
+    }
+
+    @Override
+    public void emergency(Destination target, boolean duringObservation,
+                          double fuel) {
+        printEmergency(duringObservation);
+    }
+
+    @Override
+    public void refuel(boolean emergency, boolean succeeded, double fuel) {
+        printRefuel(emergency, succeeded);
+    }
+
+    @Override
+    public void missionEnded(boolean complete, ShuttleState state) {
+        printMissionEnded(complete, state);
+    }
+
+    /* Formatting from plain values, shared with AsyncMissionListener */
+
+    void printLegStarted(String name) {
+        out.println("\nHeading to " + name);
+    }
+
+    void printThrust(String name, double targetProgress, double distance) {
+        out.printf("Travel: %.2f/%.2f to %s%n", targetProgress, distance, name);
+    }
+
+    void printArrival(String name) {
+        out.println("Arrived at " + name);
+    }
+
+    void printObservationStarted(String name, boolean resumed) {
+        out.println(resumed ? "Resuming observations..."
+                            : "Orbiting and observing " + name);
+    }
+
+    void printObservationStep(double completion) {
+        out.printf("Observation: %.2f%% complete%n", completion);
+    }
+
+    void printObservationComplete(String name) {
+        out.println("Observations complete at " + name);
+    }
+
+    void printEmergency(boolean duringObservation) {
+        out.println(duringObservation
+                    ? "Fuel critical during observation—EMERGENCY."
+                    : "Fuel critical—entering EMERGENCY.");
+    }
+
+    void printRefuel(boolean emergency, boolean succeeded) {
+        if (!emergency) {
+            out.println("Docked: refueling...");
+            return;
+        }
+        out.println("Attempting emergency refuel...");
+        out.println(succeeded ? "Emergency refuel succeeded."
+                              : "Emergency refuel failed. Docking shuttle.");
+    }
+
+    void printMissionEnded(boolean complete, ShuttleState state) {
+        if (complete) {
+            out.println("\nAll destinations reached. Mission complete!");
+        } else if (state == ShuttleState.DOCKED) {
+            out.println("Stuck docked. Aborting mission.");
+        }
+    }
+
+    void flush() {
+        out.flush();
+    }
+}
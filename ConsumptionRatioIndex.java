@@ -0,0 +1,192 @@
+// ConsumptionRatioIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Index for EFFICIENT mode: minimises consumptionRate / remainingDistance.
+ *
+ * For a positive rate r and distance d, minimising r / (d - p) is the same
+ * as maximising (d - p) / r, a line in the progress p with slope -1/r.
+ * The index keeps the upper envelope of those lines, so the best
+ * destination at any progress is found with one ordered lookup.
+ * Passed destinations evaluate to at most zero and never beat one still
+ * ahead, so they stay in the envelope until it is rebuilt.
+ * Destinations with a non-positive rate are rare and kept in a plain set
+ * in insertion order, so ties go to the earliest added whatever order
+ * they were handed over in.
+ */
+public class ConsumptionRatioIndex extends TreeDestinationIndex {
+
+    /** One destination as the line k * p + m. */
+    private static final class Line {
+        final Entry entry;
+        final double k;
+        final double m;
+        /** Last progress at which this line is on the envelope. */
+        double end;
+        final boolean query;
+
+        Line(Entry entry, double k, double m) {
+            this.entry = entry;
+            this.k = k;
+            this.m = m;
+            this.query = false;
+        }
+
+        Line(double x) {
+            this.entry = null;
+            this.k = 0.0;
+            this.m = 0.0;
+            this.end = x;
+            this.query = true;
+        }
+    }
+
+    private static final NavigationStrategy RANKING = new EfficientNavigationStrategy();
+
+    private final TreeSet<Line> hull = new TreeSet<>((a, b) ->
+        a.query || b.query ? Double.compare(a.end, b.end)
+                           : Double.compare(a.k, b.k));
+    private final TreeSet<Entry> nonPositiveRate =
+        new TreeSet<>(Comparator.comparingLong(e -> e.seq));
+    private int liveLines;
+    private int deadLines;
+
+    @Override
+    protected void entryAdded(Entry e) {
+        double rate = e.destination.getConsumptionRate();
+        if (rate > 0) {
+            liveLines++;
+            insert(new Line(e, -1.0 / rate, e.distance / rate));
+        } else {
+            nonPositiveRate.add(e);
+        }
+    }
+
+    @Override
+    protected void entryRemoved(Entry e) {
+        if (nonPositiveRate.remove(e)) {
+            return;
+        }
+        liveLines--;
+        deadLines++;
+    }
+
+    @Override
+    protected Entry select(double progress) {
+        // A non-positive rate gives a ratio <= 0, better than any positive one
+        Entry best = null;
+        double bestRatio = Double.MAX_VALUE;
+        for (Entry e : nonPositiveRate) {
+            double rem = e.distance - progress;
+            if (rem <= 0) continue;
+            double ratio = e.destination.getConsumptionRate() / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = e;
+            }
+        }
+        if (best != null || liveLines == 0) {
+            return best;
+        }
+        if (deadLines > liveLines) {
+            rebuild();
+        }
+        Line line = hull.ceiling(new Line(progress));
+        if (line.entry.removed) {
+            // only possible if progress moved backwards past removed ones
+            rebuild();
+            line = hull.ceiling(new Line(progress));
+        }
+        // On a breakpoint the neighbours tie; settle it as the scan would
+        best = closer(line.entry, hull.lower(line), progress);
+        best = closer(best, hull.higher(line), progress);
+        return best.distance > progress ? best : null;
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return RANKING;
+    }
+
+    /** The better of an entry and a neighbouring line by exact ratio. */
+    private static Entry closer(Entry best, Line other, double progress) {
+        if (other == null || !(other.entry.distance > progress)
+                || other.entry.removed) {
+            return best;
+        }
+        double ratio = other.entry.destination.getConsumptionRate()
+                       / (other.entry.distance - progress);
+        double bestRatio = best.destination.getConsumptionRate()
+                           / (best.distance - progress);
+        if (ratio < bestRatio || (ratio == bestRatio && other.entry.seq < best.seq)) {
+            return other.entry;
+        }
+        return best;
+    }
+
+    private void rebuild() {
+        hull.clear();
+        liveLines = 0;
+        deadLines = 0;
+        for (Entry e : byDistance()) {
+            double rate = e.destination.getConsumptionRate();
+            if (rate > 0) {
+                liveLines++;
+                insert(new Line(e, -1.0 / rate, e.distance / rate));
+            }
+        }
+    }
+
+    /** Adds a line, dropping any that leave the upper envelope. */
+    private void insert(Line line) {
+        Line same = hull.floor(line);
+        if (same != null && same.k == line.k) {
+            // equal slopes: keep the higher one, the earlier one on a tie
+            if (same.m >= line.m) {
+                return;
+            }
+            hull.remove(same);
+        }
+        hull.add(line);
+        Line y = line;
+        Line z = hull.higher(y);
+        while (intersect(y, z)) {
+            hull.remove(z);
+            z = hull.higher(y);
+        }
+        Line x = hull.lower(y);
+        if (x != null && intersect(x, y)) {
+            hull.remove(y);
+            intersect(x, hull.higher(x));
+        }
+        if (x == null) {
+            return;
+        }
+        y = x;
+        x = hull.lower(y);
+        while (x != null && x.end >= y.end) {
+            hull.remove(y);
+            intersect(x, hull.higher(x));
+            y = x;
+            x = hull.lower(y);
+        }
+    }
+
+    /**
+     * Sets where x stops being the upper line against its successor y.
+     *
+     * @return true if y makes x redundant
+     */
+    private static boolean intersect(Line x, Line y) {
+        if (y == null) {
+            x.end = Double.POSITIVE_INFINITY;
+            return false;
+        }
+        x.end = (y.m - x.m) / (x.k - y.k);
+        return x.end >= y.end;
+    }
+}
@@ -3,6 +3,8 @@
 /**
  * Represents a celestial destination with scientific value,
  * observation progress, and a fuel consumption rate.
+ * Derived values go through the getters, so a DestinationStore row can
+ * present its columns as a Destination.
  * 
  * @author Nihat Masimli 
  */
@@ -32,13 +34,20 @@ public class Destination {
         this.observationCompletion = 0.0;
     }
 
+    /**
+     * For views that keep their values elsewhere and override every
+     * getter and update.
+     */
+    protected Destination() {
+    }
+
     /**
      * Updates travel progress toward this destination.
      *
      * @param travelledDistance total distance the shuttle has travelled
      */
     public void updateProgress(double travelledDistance) {
-        this.progress = Math.min(travelledDistance, this.distanceFromEarth);
+        this.progress = Math.min(travelledDistance, getDistanceFromEarth());
     }
 
     /**
@@ -47,14 +56,26 @@ public class Destination {
      * @return remaining distance (>= 0)
      */
     public double distanceRemaining() {
-        return Math.max(this.distanceFromEarth - this.progress, 0.0);
+        return Math.max(getDistanceFromEarth() - getProgress(), 0.0);
+    }
+
+    /**
+     * How much farther would remain after updateProgress(travelled),
+     * without changing this destination.
+     *
+     * @param travelled total distance the shuttle has travelled
+     * @return remaining distance (>= 0)
+     */
+    public double distanceRemaining(double travelled) {
+        double distance = getDistanceFromEarth();
+        return Math.max(distance - Math.min(travelled, distance), 0.0);
     }
 
     /**
      * True if travel progress has reached or passed the destination.
      */
     public boolean isReached() {
-        return this.progress >= this.distanceFromEarth;
+        return getProgress() >= getDistanceFromEarth();
     }
 
     /**
@@ -71,7 +92,7 @@ public class Destination {
      * True if observation has reached 100%.
      */
     public boolean isObservationComplete() {
-        return this.observationCompletion >= 100.0;
+        return getObservationCompletion() >= 100.0;
     }
 
     /* Getters */
@@ -86,8 +107,8 @@ public class Destination {
     public String toString() {
         return String.format(
             "Destination{name='%s', distance=%.2f, prog=%.2f, obs=%.2f%%, sci=%.2f, rate=%.2f%%}",
-            name, distanceFromEarth, progress, observationCompletion,
-            scientificValue, consumptionRate
+            getName(), getDistanceFromEarth(), getProgress(),
+            getObservationCompletion(), getScientificValue(), getConsumptionRate()
         );
     }
 }
@@ -0,0 +1,204 @@
+// DestinationFeed.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Destinations arriving while a mission is in flight, e.g. survey
+ * results read from a pipe.
+ *
+ * Producers put destinations into a bounded queue and wait while it is
+ * full, so a fast source is held back instead of piling up. The orbiter
+ * it is given to merges everything queued into its NavigationSystem
+ * between two legs, on its own thread, adding only the new destinations
+ * to the index. Out of destinations, the orbiter waits for more until
+ * the feed is closed.
+ *
+ * Any number of threads may put; only the orbiter takes.
+ *
+ * @author Nihat Masimli
+ */
+public class DestinationFeed implements AutoCloseable {
+    /** How often a waiting orbiter looks whether the feed was closed. */
+    private static final long CLOSE_CHECK_MILLIS = 20;
+    private static final int READ_BYTES = 64 * 1024;
+
+    private final BlockingQueue<Destination> queue;
+    private final AtomicLong accepted = new AtomicLong();
+    private volatile boolean closed;
+    private volatile IOException failure;
+    /** Taken from the queue while waiting, not yet merged. */
+    private Destination held;
+    private long delivered;
+
+    /**
+     * @param capacity destinations that may wait to be merged
+     */
+    public DestinationFeed(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Feeds the destinations read from a stream, in the format of a
+     * destination file, from a background thread; the feed is closed at
+     * the end of the stream. Reading stops while the queue is full.
+     *
+     * @param in       e.g. System.in or a named pipe; closed at its end
+     * @param capacity destinations that may wait to be merged
+     * @return the feed
+     */
+    public static DestinationFeed follow(InputStream in, int capacity) {
+        DestinationFeed feed = new DestinationFeed(capacity);
+        Thread reader = new Thread(() -> feed.readAll(in), "destination-feed");
+        reader.setDaemon(true);
+        reader.start();
+        return feed;
+    }
+
+    /** Parses whole lines as they arrive, keeping a partial last line. */
+    private void readAll(InputStream in) {
+        byte[] buf = new byte[READ_BYTES];
+        int filled = 0;
+        try (InputStream input = in) {
+            int n;
+            while ((n = input.read(buf, filled, buf.length - filled)) >= 0) {
+                filled += n;
+                int lineEnd = filled;
+                while (lineEnd > 0 && buf[lineEnd - 1] != '\n' && buf[lineEnd - 1] != '\r') {
+                    lineEnd--;
+                }
+                for (Destination d : DestinationFileLoader.parseChunk(ByteBuffer.wrap(buf, 0, lineEnd))) {
+                    put(d);
+                }
+                System.arraycopy(buf, lineEnd, buf, 0, filled - lineEnd);
+                filled -= lineEnd;
+                if (filled == buf.length) {
+                    buf = Arrays.copyOf(buf, 2 * buf.length); // a very long line
+                }
+            }
+            for (Destination d : DestinationFileLoader.parseChunk(ByteBuffer.wrap(buf, 0, filled))) {
+                put(d);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Queues a destination, waiting while the queue is full.
+     *
+     * @param dest destination to add to the mission
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the feed is closed
+     */
+    public void put(Destination dest) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("feed is closed");
+        }
+        queue.put(dest);
+        accepted.incrementAndGet();
+    }
+
+    /**
+     * Queues a destination, waiting at most the given time for room.
+     *
+     * @param dest    destination to add to the mission
+     * @param timeout how long to wait
+     * @param unit    unit of the timeout
+     * @return false if the queue stayed full
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the feed is closed
+     */
+    public boolean offer(Destination dest, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("feed is closed");
+        }
+        if (!queue.offer(dest, timeout, unit)) {
+            return false;
+        }
+        accepted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Adds everything queued to a navigation system as one batch.
+     * Called by the orbiter between legs.
+     *
+     * @param navigation the mission's navigation
+     * @return number of destinations added
+     */
+    public int drainTo(NavigationSystem navigation) {
+        List<Destination> batch = new ArrayList<>();
+        if (held != null) {
+            batch.add(held);
+            held = null;
+        }
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            navigation.addDestinations(batch);
+            delivered += batch.size();
+        }
+        return batch.size();
+    }
+
+    /**
+     * Waits until a destination is queued or the feed is finished.
+     *
+     * @return true if there is a destination to drain
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitMore() throws InterruptedException {
+        while (held == null) {
+            boolean wasClosed = closed;
+            held = queue.poll(CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (held == null && wasClosed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True once the feed is closed and everything in it was drained; an
+     * orbiter then ends the mission when it runs out of destinations.
+     */
+    public boolean isFinished() {
+        return closed && held == null && queue.isEmpty();
+    }
+
+    /** No more destinations will be put; queued ones are still merged. */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /** Destinations accepted into the queue so far. */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /** Destinations merged into the mission so far; read by the orbiter's thread. */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /** Why reading the stream of follow() stopped early, or null. */
+    public IOException getFailure() {
+        return failure;
+    }
+}
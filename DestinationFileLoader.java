@@ -0,0 +1,270 @@
+// DestinationFileLoader.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Loads destination files by memory-mapping them and parsing chunks
+ * of whole lines in parallel.
+ *
+ * Accepts the same lines as before:
+ *   Name Distance
+ * or
+ *   Name Distance SciValue ConsumptionRate
+ * separated by any whitespace; the 2-column form gets scientific value
+ * 0.0 and consumption rate 10.0. Lines of the form
+ *   Name X Y Z SciValue ConsumptionRate
+ * give SpatialDestinations, and other lines are ignored.
+ * Plain decimal numbers are parsed straight from the bytes; anything
+ * else (exponents, Infinity, ...) is handed to Double.parseDouble, so
+ * every value is exactly what Double.parseDouble would return.
+ * Names are read as UTF-8. Destinations keep their order in the file.
+ *
+ * @author Nihat Masimli
+ */
+public final class DestinationFileLoader {
+    private static final double DEFAULT_SCI_VALUE = 0.0;
+    private static final double DEFAULT_RATE = 10.0;
+
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+    private static final int BOUNDARY_SCAN_BYTES = 8192;
+
+    /** Largest long whose value is exact as a double. */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private DestinationFileLoader() {
+    }
+
+    /**
+     * Reads every destination in the file.
+     *
+     * @param filename path to the file
+     * @return destinations in file order
+     * @throws IOException if file read fails
+     */
+    public static List<Destination> load(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int parallelism = ForkJoinPool.commonPool().getParallelism();
+            long chunks = Math.max(1, Math.min(4L * parallelism, size / MIN_CHUNK_BYTES));
+            chunks = Math.max(chunks, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+            return load(channel, (int) chunks);
+        }
+    }
+
+    /**
+     * Reads every destination, splitting the file into about the given
+     * number of chunks.
+     *
+     * @param channel open channel of the file
+     * @param chunks  number of chunks to parse in parallel
+     * @return destinations in file order
+     * @throws IOException if file read fails
+     */
+    static List<Destination> load(FileChannel channel, int chunks) throws IOException {
+        long[] bounds = chunkBounds(channel, chunks);
+        List<long[]> ranges = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            if (bounds[i + 1] > bounds[i]) {
+                ranges.add(new long[] {bounds[i], bounds[i + 1]});
+            }
+        }
+        List<List<Destination>> parsed;
+        try {
+            parsed = ranges.parallelStream()
+                           .map(r -> parseChunk(map(channel, r[0], r[1] - r[0])))
+                           .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int total = 0;
+        for (List<Destination> part : parsed) {
+            total += part.size();
+        }
+        List<Destination> destinations = new ArrayList<>(total);
+        for (List<Destination> part : parsed) {
+            destinations.addAll(part);
+        }
+        return destinations;
+    }
+
+    /**
+     * Splits the file at the first line start after each even cut.
+     *
+     * @return chunks + 1 offsets, first 0 and last the file size
+     */
+    private static long[] chunkBounds(FileChannel channel, int chunks) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_BYTES);
+        for (int i = 1; i < chunks; i++) {
+            long pos = Math.max(size / chunks * i, bounds[i - 1]);
+            bounds[i] = size;
+            search:
+            while (pos < size) {
+                scan.clear();
+                int read = channel.read(scan, pos);
+                if (read <= 0) {
+                    break;
+                }
+                for (int j = 0; j < read; j++) {
+                    if (isLineEnd(scan.get(j))) {
+                        bounds[i] = pos + j + 1;
+                        break search;
+                    }
+                }
+                pos += read;
+            }
+        }
+        return bounds;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long length) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the whole lines of one chunk, from index 0 to the limit;
+     * also used by DestinationFeed for what it reads from a stream.
+     */
+    static List<Destination> parseChunk(ByteBuffer buf) {
+        List<Destination> destinations = new ArrayList<>();
+        byte[] nameBytes = new byte[64];
+        int[] starts = new int[6];
+        int[] ends = new int[6];
+        int limit = buf.limit();
+        int i = 0;
+        while (i < limit) {
+            int tokens = 0;
+            // one line: collect up to six tokens, count the rest
+            while (i < limit) {
+                byte b = buf.get(i);
+                if (isLineEnd(b)) {
+                    i++;
+                    break;
+                }
+                if (isBlank(b)) {
+                    i++;
+                    continue;
+                }
+                int start = i;
+                while (i < limit && !isBlank(buf.get(i)) && !isLineEnd(buf.get(i))) {
+                    i++;
+                }
+                if (tokens < 6) {
+                    starts[tokens] = start;
+                    ends[tokens] = i;
+                }
+                tokens++;
+            }
+            if (tokens != 2 && tokens != 4 && tokens != 6) {
+                continue; // ignore any lines that don't match
+            }
+            int nameLength = ends[0] - starts[0];
+            if (nameLength > nameBytes.length) {
+                nameBytes = new byte[Math.max(nameLength, 2 * nameBytes.length)];
+            }
+            buf.get(starts[0], nameBytes, 0, nameLength);
+            String name = new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+            if (tokens == 6) {
+                destinations.add(new SpatialDestination(name,
+                    parseNumber(buf, starts[1], ends[1]), parseNumber(buf, starts[2], ends[2]),
+                    parseNumber(buf, starts[3], ends[3]), parseNumber(buf, starts[4], ends[4]),
+                    parseNumber(buf, starts[5], ends[5])));
+                continue;
+            }
+            double distance = parseNumber(buf, starts[1], ends[1]);
+            double sciValue = DEFAULT_SCI_VALUE;
+            double rate = DEFAULT_RATE;
+            if (tokens == 4) {
+                sciValue = parseNumber(buf, starts[2], ends[2]);
+                rate = parseNumber(buf, starts[3], ends[3]);
+            }
+            destinations.add(new Destination(name, distance, sciValue, rate));
+        }
+        return destinations;
+    }
+
+    /**
+     * Parses [sign] digits [. digits] exactly; a mantissa of up to 2^53
+     * divided by a power of ten up to 10^22 is one correctly rounded
+     * division. Anything else goes to Double.parseDouble.
+     */
+    private static double parseNumber(ByteBuffer buf, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+            negative = buf.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        boolean digits = false;
+        for (; i < end; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return slowParse(buf, start, end);
+                }
+                if (dot) {
+                    fractionDigits++;
+                }
+                digits = true;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                return slowParse(buf, start, end);
+            }
+        }
+        if (!digits || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowParse(buf, start, end);
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buf.get(start, bytes);
+        return Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    /** Whitespace within a line, as matched by \s. */
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f';
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
@@ -0,0 +1,116 @@
+// DestinationIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ordered index over the destinations of a NavigationSystem, answering
+ * "next" for one navigation mode without scanning every destination.
+ * Reached destinations are dropped as a range of distances.
+ *
+ * Ties are broken by insertion order, as in the linear strategies.
+ */
+public abstract class DestinationIndex {
+
+    /**
+     * Creates the index matching a navigation mode.
+     *
+     * @param mode chosen NavigationMode
+     * @return an empty index for that mode
+     */
+    public static DestinationIndex forMode(NavigationMode mode) {
+        return TreeDestinationIndex.create(mode);
+    }
+
+    /** Adds a destination to the index. */
+    public abstract void add(Destination dest);
+
+    /**
+     * Adds many destinations at once, in collection order.
+     *
+     * @param dests destinations to add
+     */
+    public void addAll(Collection<Destination> dests) {
+        for (Destination d : dests) {
+            add(d);
+        }
+    }
+
+    /**
+     * Drops every destination whose distance is within the progress.
+     *
+     * @param progress shuttle's current travelled distance
+     */
+    public abstract void removeReached(double progress);
+
+    /**
+     * Selects the next destination and refreshes its progress.
+     *
+     * @param progress shuttle's current travelled distance
+     * @return the chosen Destination, or null if none qualifies
+     */
+    public abstract Destination next(double progress);
+
+    /**
+     * Returns an index with the same destinations, ordered for another
+     * mode. This index must not be used afterwards.
+     *
+     * @param mode chosen NavigationMode
+     * @return index for that mode
+     */
+    public abstract DestinationIndex reindex(NavigationMode mode);
+
+    /**
+     * Destinations whose distance from Earth lies in a range, by
+     * distance, then insertion order. This default filters
+     * destinations().
+     *
+     * @param from lowest distance, inclusive
+     * @param to   highest distance, inclusive
+     * @return the destinations in range
+     */
+    public List<Destination> within(double from, double to) {
+        List<Destination> found = new ArrayList<>();
+        for (Destination d : destinations()) {
+            if (d.getDistanceFromEarth() >= from && d.getDistanceFromEarth() <= to) {
+                found.add(d);
+            }
+        }
+        found.sort(Comparator.comparingDouble(Destination::getDistanceFromEarth));
+        return found;
+    }
+
+    /**
+     * The strategy this index chooses like; it scores the candidates
+     * of topK().
+     */
+    protected abstract NavigationStrategy ranking();
+
+    /**
+     * The k best candidates in the order next() would choose them if
+     * nothing changed in between, ties by insertion order. This default
+     * keeps a bounded heap over destinations(): O(n log k).
+     *
+     * @param k        most candidates returned
+     * @param progress shuttle's current travelled distance
+     * @return up to k destinations, best first
+     */
+    public List<Destination> topK(int k, double progress) {
+        return ranking().topK(destinations(), k, progress);
+    }
+
+    /** Number of destinations held. */
+    public abstract int size();
+
+    /** True if no destinations remain. */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Remaining destinations in the order they were added. */
+    public abstract List<Destination> destinations();
+}
@@ -0,0 +1,265 @@
+// DestinationStore.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Destinations kept as parallel primitive columns addressed by row id,
+ * instead of one heap object each. Selection scans walk contiguous
+ * double[] arrays rather than chasing references.
+ *
+ * Rows are kept in insertion order; removing reached destinations
+ * compacts the columns in place, so the live rows are always 0..size-1.
+ * A Destination view of a row is created on demand and stays valid
+ * after its row is removed, keeping the values it had.
+ *
+ * @author Nihat Masimli
+ */
+public final class DestinationStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names;
+    private double[] distances;
+    private double[] progress;
+    private double[] scientificValues;
+    private double[] observationCompletions;
+    private double[] consumptionRates;
+    private Row[] rows;
+    private int size;
+
+    /** Creates an empty store. */
+    public DestinationStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store with room for the given number of rows.
+     *
+     * @param capacity initial number of rows
+     */
+    public DestinationStore(int capacity) {
+        capacity = Math.max(capacity, 1);
+        names = new String[capacity];
+        distances = new double[capacity];
+        progress = new double[capacity];
+        scientificValues = new double[capacity];
+        observationCompletions = new double[capacity];
+        consumptionRates = new double[capacity];
+        rows = new Row[capacity];
+    }
+
+    /**
+     * Appends a destination with no progress.
+     *
+     * @return id of the new row
+     */
+    public int add(String name, double distance, double scientificValue,
+                   double consumptionRate) {
+        if (size == distances.length) {
+            grow(size + 1);
+        }
+        names[size] = name;
+        distances[size] = distance;
+        progress[size] = 0.0;
+        scientificValues[size] = scientificValue;
+        observationCompletions[size] = 0.0;
+        consumptionRates[size] = consumptionRate;
+        return size++;
+    }
+
+    /**
+     * Appends a copy of a destination, including its progress and
+     * observation completion.
+     *
+     * @return id of the new row
+     */
+    public int add(Destination d) {
+        int id = add(d.getName(), d.getDistanceFromEarth(),
+                     d.getScientificValue(), d.getConsumptionRate());
+        progress[id] = d.getProgress();
+        observationCompletions[id] = d.getObservationCompletion();
+        return id;
+    }
+
+    /**
+     * Makes room for at least the given number of rows.
+     *
+     * @param capacity rows needed
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > distances.length) {
+            grow(capacity);
+        }
+    }
+
+    private void grow(int needed) {
+        int capacity = Math.max(needed, distances.length + (distances.length >> 1));
+        names = Arrays.copyOf(names, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        progress = Arrays.copyOf(progress, capacity);
+        scientificValues = Arrays.copyOf(scientificValues, capacity);
+        observationCompletions = Arrays.copyOf(observationCompletions, capacity);
+        consumptionRates = Arrays.copyOf(consumptionRates, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+    }
+
+    /**
+     * Drops every row whose distance is within the progress, keeping the
+     * others in order. Views of dropped rows get the progress and are
+     * detached from the store.
+     *
+     * @param travelled shuttle's current travelled distance
+     * @return number of rows dropped
+     */
+    public int removeReached(double travelled) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (distances[i] <= travelled) {
+                if (rows[i] != null) {
+                    progress[i] = Math.min(travelled, distances[i]);
+                    rows[i].detach();
+                }
+                continue;
+            }
+            if (kept != i) {
+                names[kept] = names[i];
+                distances[kept] = distances[i];
+                progress[kept] = progress[i];
+                scientificValues[kept] = scientificValues[i];
+                observationCompletions[kept] = observationCompletions[i];
+                consumptionRates[kept] = consumptionRates[i];
+                rows[kept] = rows[i];
+                if (rows[kept] != null) {
+                    rows[kept].id = kept;
+                }
+            }
+            kept++;
+        }
+        int removed = size - kept;
+        Arrays.fill(names, kept, size, null);
+        Arrays.fill(rows, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    /** Number of rows. */
+    public int size() {
+        return size;
+    }
+
+    /*
+     * Raw columns for scans: valid for ids below size(), replaced when
+     * the store grows. Callers must not write to them.
+     */
+    public double[] distances() { return distances; }
+    public double[] scientificValues() { return scientificValues; }
+    public double[] consumptionRates() { return consumptionRates; }
+
+    /* Single values */
+    public String name(int id) { return names[id]; }
+    public double distance(int id) { return distances[id]; }
+    public double progress(int id) { return progress[id]; }
+    public double scientificValue(int id) { return scientificValues[id]; }
+    public double observationCompletion(int id) { return observationCompletions[id]; }
+    public double consumptionRate(int id) { return consumptionRates[id]; }
+
+    /**
+     * Moves a row's progress, as Destination.updateProgress does.
+     *
+     * @param id        row id
+     * @param travelled shuttle's current travelled distance
+     */
+    public void updateProgress(int id, double travelled) {
+        progress[id] = Math.min(travelled, distances[id]);
+    }
+
+    /**
+     * The Destination view of a row; the same object for as long as the
+     * row lives.
+     *
+     * @param id row id
+     * @return view reading and writing the row's columns
+     */
+    public Destination view(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("row " + id + " of " + size);
+        }
+        if (rows[id] == null) {
+            rows[id] = new Row(this, id);
+        }
+        return rows[id];
+    }
+
+    /**
+     * Row id of a Destination if it is a view into this store.
+     *
+     * @param d any destination
+     * @return its row id, or -1
+     */
+    public int idOf(Destination d) {
+        if (d instanceof Row && ((Row) d).store == this) {
+            return ((Row) d).id;
+        }
+        return -1;
+    }
+
+    /** Views of every row, in insertion order. */
+    public List<Destination> views() {
+        List<Destination> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(view(i));
+        }
+        return list;
+    }
+
+    /**
+     * A Destination whose state lives in a store's columns. Once its row
+     * is removed it moves into a private one-row store.
+     */
+    private static final class Row extends Destination {
+        private DestinationStore store;
+        private int id;
+
+        Row(DestinationStore store, int id) {
+            super(store.names[id], store.distances[id],
+                  store.scientificValues[id], store.consumptionRates[id]);
+            this.store = store;
+            this.id = id;
+        }
+
+        void detach() {
+            DestinationStore own = new DestinationStore(1);
+            own.add(this);
+            own.rows[0] = this;
+            this.store = own;
+            this.id = 0;
+        }
+
+        @Override
+        public void updateProgress(double travelledDistance) {
+            store.updateProgress(id, travelledDistance);
+        }
+
+        @Override
+        public void updateObservation(double percent) {
+            store.observationCompletions[id] =
+                Math.min(store.observationCompletions[id] + percent, 100.0);
+        }
+
+        @Override
+        public String getName() { return store.names[id]; }
+        @Override
+        public double getDistanceFromEarth() { return store.distances[id]; }
+        @Override
+        public double getProgress() { return store.progress[id]; }
+        @Override
+        public double getScientificValue() { return store.scientificValues[id]; }
+        @Override
+        public double getObservationCompletion() { return store.observationCompletions[id]; }
+        @Override
+        public double getConsumptionRate() { return store.consumptionRates[id]; }
+    }
+}
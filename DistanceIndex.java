@@ -0,0 +1,64 @@
+// DistanceIndex.java
+/**
+ * @author Nihat Masimli
+ */
+
+import java.util.List;
+
+/**
+ * Index for STANDARD mode: the closest destination is the first
+ * entry in distance order.
+ */
+public class DistanceIndex extends TreeDestinationIndex {
+    private static final NavigationStrategy RANKING = new StandardNavigationStrategy();
+
+    @Override
+    protected void entryAdded(Entry e) {
+        // distance order is maintained by the base index
+    }
+
+    @Override
+    protected void entryRemoved(Entry e) {
+        // distance order is maintained by the base index
+    }
+
+    @Override
+    protected Entry select(double progress) {
+        Entry first = byDistance().first();
+        if (first.distance > progress) {
+            double rem = first.distance - progress;
+            return rem < Double.MAX_VALUE ? first : null;
+        }
+        // Passed but not yet removed: all have zero distance remaining,
+        // so the earliest added one wins.
+        Entry best = null;
+        for (Entry e : passed(progress)) {
+            if (best == null || e.seq < best.seq) {
+                best = e;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return RANKING;
+    }
+
+    /**
+     * Remaining distance grows along the distance order, so only the
+     * first k entries and their ties are ranked: O(k log n).
+     */
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        CandidateHeap heap = new CandidateHeap(k);
+        for (Entry e : byDistance()) {
+            double score = RANKING.score(e.destination, progress);
+            if (heap.isFullBelow(score)) {
+                break;
+            }
+            heap.offer(e.destination, score, e.seq);
+        }
+        return heap.ranked();
+    }
+}
@@ -0,0 +1,120 @@
+// EfficiencyEnvelope.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Answers EFFICIENT mode's "lowest consumptionRate / remaining distance"
+ * at any progress p by a binary search instead of a scan.
+ *
+ * For a positive rate r, minimising r / (d - p) is maximising
+ * (d - p) / r = -p / r + d / r, a line in p. This is the upper envelope
+ * of those lines by increasing slope; each line is on top up to its end.
+ * Lines of destinations already passed never rise above one still ahead,
+ * so the envelope stays valid as destinations are reached.
+ *
+ * @author Nihat Masimli
+ */
+final class EfficiencyEnvelope {
+    private final int[] lines;
+    private final double[] ends;
+
+    private EfficiencyEnvelope(int[] lines, double[] ends) {
+        this.lines = lines;
+        this.ends = ends;
+    }
+
+    /**
+     * Builds the envelope of some destinations.
+     *
+     * @param ids       destinations with a positive rate, earliest first;
+     *                  of equal lines the earliest is kept
+     * @param distances distance from Earth, by id
+     * @param rates     consumption rate, by id
+     * @return the envelope
+     */
+    static EfficiencyEnvelope build(int[] ids, double[] distances, double[] rates) {
+        int count = ids.length;
+        int[] positions = new int[count];
+        double[] k = new double[count];
+        double[] m = new double[count];
+        long[] slopeKeys = new long[count];
+        long[] heightKeys = new long[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = i;
+            k[i] = -1.0 / rates[ids[i]];
+            m[i] = distances[ids[i]] / rates[ids[i]];
+            slopeKeys[i] = IdSort.key(k[i]);
+            heightKeys[i] = ~IdSort.key(m[i]);
+        }
+        // by slope; for equal slopes the highest line, then the earliest
+        int[] byIndex = IdSort.sort(IdSort.sort(positions, heightKeys), slopeKeys);
+        int[] stack = new int[count];
+        double[] starts = new double[count];
+        int top = 0;
+        for (int idx = 0; idx < count; idx++) {
+            int line = byIndex[idx];
+            if (top > 0 && k[stack[top - 1]] == k[line]) {
+                continue; // lower (or later) line of the same slope
+            }
+            double start = Double.NEGATIVE_INFINITY;
+            while (top > 0) {
+                int last = stack[top - 1];
+                start = (m[line] - m[last]) / (k[last] - k[line]);
+                if (start > starts[top - 1]) {
+                    break;
+                }
+                top--;
+                start = Double.NEGATIVE_INFINITY;
+            }
+            stack[top] = line;
+            starts[top] = start;
+            top++;
+        }
+        int[] lines = new int[top];
+        double[] ends = new double[top];
+        for (int i = 0; i < top; i++) {
+            lines[i] = ids[stack[i]];
+            ends[i] = i + 1 < top ? starts[i + 1] : Double.POSITIVE_INFINITY;
+        }
+        return new EfficiencyEnvelope(lines, ends);
+    }
+
+    /** Number of lines on the envelope. */
+    int size() {
+        return lines.length;
+    }
+
+    /** Destination id of the i-th line. */
+    int line(int i) {
+        return lines[i];
+    }
+
+    /** Progress up to which the i-th line is on top. */
+    double end(int i) {
+        return ends[i];
+    }
+
+    /**
+     * The line on top at a progress; on a breakpoint its neighbour ties.
+     *
+     * @param progress shuttle's current travelled distance
+     * @return index of the line, or -1 if the envelope is empty
+     */
+    int find(double progress) {
+        if (lines.length == 0) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = lines.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] >= progress) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
@@ -16,8 +16,7 @@ public class EfficientNavigationStrategy implements NavigationStrategy {
         Destination best = null;
         double bestRatio = Double.MAX_VALUE;
         for (Destination d : destinations) {
-            d.updateProgress(currentProgress);
-            double rem = d.distanceRemaining();
+            double rem = d.distanceRemaining(currentProgress);
             if (rem <= 0) continue;
             double ratio = d.getConsumptionRate() / rem;
             if (ratio < bestRatio) {
@@ -27,4 +26,42 @@ public class EfficientNavigationStrategy implements NavigationStrategy {
         }
         return best;
     }
+
+    @Override
+    public boolean scores() {
+        return true;
+    }
+
+    @Override
+    public double score(Destination destination, double currentProgress) {
+        double rem = destination.distanceRemaining(currentProgress);
+        if (rem <= 0) {
+            return Double.NaN;
+        }
+        double ratio = destination.getConsumptionRate() / rem;
+        return ratio < Double.MAX_VALUE ? ratio : Double.NaN;
+    }
+
+    @Override
+    public int selectNext(DestinationStore store, double currentProgress) {
+        double[] distances = store.distances();
+        double[] rates = store.consumptionRates();
+        int n = store.size();
+        int best = -1;
+        double bestRatio = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            double d = distances[i];
+            // same value as distanceRemaining(currentProgress)
+            double rem = d > currentProgress
+                         ? d - currentProgress
+                         : Math.max(d - Math.min(currentProgress, d), 0.0);
+            if (rem <= 0) continue;
+            double ratio = rates[i] / rem;
+            if (ratio < bestRatio) {
+                bestRatio = ratio;
+                best = i;
+            }
+        }
+        return best;
+    }
 }
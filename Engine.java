@@ -6,8 +6,31 @@
  * @author Nihat Masimli 
  */
 public class Engine {
+    /** Percent of the max fuel used per thrust by default. */
+    static final double FUEL_PER_THRUST = 10.0;
+    /** Progress gained per thrust by default. */
+    static final double PROGRESS_PER_THRUST = 5.0;
+    
+    private final double fuelPerThrust;
+    private final double progressPerThrust;
     private boolean running;
     
+    /**
+     * Engine burning 10% of the max fuel for 5 units of progress per thrust.
+     */
+    public Engine(){
+        this(FUEL_PER_THRUST, PROGRESS_PER_THRUST);
+    }
+    
+    /**
+     * @param fuelPerThrust     percent of the max fuel used per thrust
+     * @param progressPerThrust progress gained per thrust
+     */
+    public Engine(double fuelPerThrust, double progressPerThrust){
+        this.fuelPerThrust = fuelPerThrust;
+        this.progressPerThrust = progressPerThrust;
+    }
+    
     /**
      * Starts the engine.
      */
@@ -32,7 +55,8 @@ public class Engine {
     }
     
     /**
-     * Applies thrust: consumes 10% of max fuel and yields 5% progress.
+     * Applies thrust: consumes 10% of max fuel and yields 5% progress,
+     * or this engine's own amounts.
      * If engine is not running, this call has no effect.
      * 
      * @param tank the FuelTank to draw fuel from
@@ -43,9 +67,120 @@ public class Engine {
             return 0.0;
         }
         //Consume 10% of max capacity
-        tank.useFuel(10.0);
+        tank.useFuel(fuelPerThrust);
         //Return 5% progress increment
-        return 5.0;
+        return progressPerThrust;
+    }
+    
+    /**
+     * Applies thrust only if the tank still holds the fuel for it, taking
+     * that fuel in one step; for tanks shared with other shuttles.
+     * 
+     * @param tank the FuelTank to draw fuel from
+     * @return progress increment (5.0, or 0.0 if not running or the
+     *         fuel could not be reserved)
+     */
+    public double tryThrust(FuelTank tank){
+        if(!running || !tank.tryUseFuel(fuelPerThrust)){
+            return 0.0;
+        }
+        return progressPerThrust;
+    }
+    
+    /**
+     * Applies several thrusts at once, with the same total effect as
+     * calling {@link #thrust(FuelTank)} that many times and adding up
+     * what they return.
+     * 
+     * @param tank  the FuelTank to draw fuel from
+     * @param times number of thrusts
+     * @return total progress increment (0.0 if not running)
+     */
+    public double thrust(FuelTank tank, int times){
+        if(!running || times <= 0){
+            return 0.0;
+        }
+        tank.useFuel(fuelPerThrust, times);
+        return progressAfter(0.0, times);
+    }
+    
+    /**
+     * Progress after several thrusts, rounded as adding the progress of
+     * each thrust in turn would round it.
+     * 
+     * @param progress progress before the first thrust
+     * @param times    number of thrusts
+     * @return progress after the last one
+     */
+    public double progressAfter(double progress, int times){
+        return advance(progress, progressPerThrust, times);
+    }
+    
+    /** A value after several additions of the same amount. */
+    static double advance(double value, double amount, int times){
+        if(FuelTank.isWhole(value) && FuelTank.isWhole(amount)
+                && Math.abs(value) + (double) times * Math.abs(amount) < 0x1p52){
+            return value + times * amount;
+        }
+        for(int i = 0; i < times; i++){
+            value += amount;
+        }
+        return value;
+    }
+    
+    /**
+     * Number of thrusts after which the tank first reports low fuel.
+     * 
+     * @param tank the FuelTank to draw fuel from
+     * @return thrust count (at least 1)
+     */
+    public int thrustsUntilLowFuel(FuelTank tank){
+        return tank.burnsUntilLow(fuelPerThrust);
+    }
+    
+    /**
+     * Number of thrusts until the progress first reaches a distance,
+     * checking after each thrust as a cruise does (at least 1).
+     * 
+     * @param progress progress before the first thrust
+     * @param distance progress to reach
+     * @return thrust count, or Integer.MAX_VALUE if never
+     */
+    public int thrustsToReach(double progress, double distance){
+        if(progress + progressPerThrust >= distance){
+            return 1;
+        }
+        if(!(progress + progressPerThrust > progress)){
+            return Integer.MAX_VALUE; // the progress no longer moves
+        }
+        if(FuelTank.isWhole(progress) && FuelTank.isWhole(progressPerThrust)
+                && Math.abs(progress) + Math.abs(distance) + progressPerThrust < 0x1p52){
+            // estimate, then settle on the exact progress after each thrust
+            double thrusts = Math.max(Math.ceil((distance - progress) / progressPerThrust), 1);
+            while(thrusts > 1 && progress + (thrusts - 1) * progressPerThrust >= distance){
+                thrusts--;
+            }
+            while(progress + thrusts * progressPerThrust < distance){
+                thrusts++;
+            }
+            return (int) thrusts;
+        }
+        int thrusts = 0;
+        do{
+            progress += progressPerThrust;
+            thrusts++;
+        }while(progress < distance && thrusts < Integer.MAX_VALUE);
+        return thrusts;
+    }
+    
+    /** Percent of the max fuel used per thrust. */
+    public double getFuelPerThrust(){
+        return fuelPerThrust;
+    }
+    
+    /** Progress gained per thrust. */
+    public double getProgressPerThrust(){
+        return progressPerThrust;
     }
     
     @Override
@@ -16,8 +16,32 @@ public class ExplorationNavigationStrategy implements NavigationStrategy {
                 best = d;
             }
         }
-        if (best != null) {
-            best.updateProgress(currentProgress);
+        return best;
+    }
+
+    /** The negated scientific value, so that the most valuable scores lowest. */
+    @Override
+    public boolean scores() {
+        return true;
+    }
+
+    @Override
+    public double score(Destination destination, double currentProgress) {
+        double value = destination.getScientificValue();
+        return value > Double.NEGATIVE_INFINITY ? -value : Double.NaN;
+    }
+
+    @Override
+    public int selectNext(DestinationStore store, double currentProgress) {
+        double[] values = store.scientificValues();
+        int n = store.size();
+        int best = -1;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (values[i] > maxValue) {
+                maxValue = values[i];
+                best = i;
+            }
         }
         return best;
     }
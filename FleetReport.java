@@ -0,0 +1,141 @@
+// FleetReport.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Outcome of a fleet run by FleetRunner: how the missions ended, the
+ * throughput of the fleet, and how long single ticks took.
+ *
+ * @author Nihat Masimli
+ */
+public class FleetReport {
+    private final MonteCarloReport outcomes;
+    private final long elapsedNanos;
+    private final long ticks;
+    private final TickHistogram latency;
+
+    FleetReport(MonteCarloReport outcomes, long elapsedNanos, TickHistogram latency) {
+        this.outcomes = outcomes;
+        this.elapsedNanos = elapsedNanos;
+        this.ticks = latency.count();
+        this.latency = latency;
+    }
+
+    /** Success rate, final states and percentiles of the missions. */
+    public MonteCarloReport getOutcomes() { return outcomes; }
+
+    /** Wall-clock time of the whole run. */
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    /** Number of legs flown by all shuttles. */
+    public long getTicks() { return ticks; }
+
+    /** Missions finished per second of wall-clock time. */
+    public double getMissionsPerSecond() {
+        return perSecond(outcomes.getMissions());
+    }
+
+    /** Ticks run per second of wall-clock time. */
+    public double getTicksPerSecond() {
+        return perSecond(ticks);
+    }
+
+    /**
+     * Time spent in one tick, by percentile; accurate to 1/8 of the value.
+     *
+     * @param percentile 0-100
+     * @return nanoseconds, or NaN if no ticks ran
+     */
+    public double tickLatencyPercentile(double percentile) {
+        return latency.percentile(percentile);
+    }
+
+    private double perSecond(long count) {
+        return elapsedNanos == 0 ? 0.0 : count * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return outcomes
+             + String.format("Throughput: %.0f missions/s, %.0f ticks/s (%d ticks in %d ms)%n",
+                             getMissionsPerSecond(), getTicksPerSecond(), ticks,
+                             elapsedNanos / 1_000_000)
+             + String.format("Tick latency (us): p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                             tickLatencyPercentile(50) / 1e3,
+                             tickLatencyPercentile(90) / 1e3,
+                             tickLatencyPercentile(99) / 1e3,
+                             tickLatencyPercentile(100) / 1e3);
+    }
+
+    /**
+     * Log-linear histogram of tick durations: eight buckets per power of
+     * two, so recording is a few bit operations and each worker thread
+     * can keep its own and merge at the end. MissionMetrics shares the
+     * buckets for its concurrent histograms.
+     */
+    static final class TickHistogram {
+        private static final int SUB_BITS = 3;
+        private static final int SUB = 1 << SUB_BITS;
+        private static final int LINEAR = 2 * SUB;
+        static final int BUCKETS = LINEAR + (63 - SUB_BITS - 1) * SUB;
+
+        private final long[] counts = new long[BUCKETS];
+        private long count;
+
+        void record(long nanos) {
+            counts[bucket(Math.max(nanos, 0))]++;
+            count++;
+        }
+
+        void add(int bucket, long n) {
+            counts[bucket] += n;
+            count += n;
+        }
+
+        void add(TickHistogram other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            count += other.count;
+        }
+
+        long count() {
+            return count;
+        }
+
+        /** Nearest-rank percentile, reported as the middle of its bucket. */
+        double percentile(double percentile) {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long rank = Math.max((long) Math.ceil(percentile / 100.0 * count), 1);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return (lowest(i) + lowest(i + 1)) / 2.0;
+                }
+            }
+            return lowest(BUCKETS);
+        }
+
+        static int bucket(long value) {
+            if (value < LINEAR) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB - 1);
+            return LINEAR + (exponent - SUB_BITS - 1) * SUB + sub;
+        }
+
+        private static double lowest(int bucket) {
+            if (bucket < LINEAR) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR) / SUB + SUB_BITS + 1;
+            int sub = (bucket - LINEAR) % SUB;
+            return (double) (SUB + sub) * (1L << (exponent - SUB_BITS));
+        }
+    }
+}
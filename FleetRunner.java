@@ -0,0 +1,224 @@
+// FleetRunner.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Flies a fleet of shuttles concurrently over one shared catalog.
+ *
+ * The destinations are laid out once as an in-memory BinaryCatalog,
+ * which no shuttle ever writes. Each shuttle has its own FuelTank,
+ * Engine and progress, and navigates the catalog through its own
+ * CatalogIndex, which holds everything that changes during a mission.
+ *
+ * Every shuttle is a task on a work-stealing pool that flies one leg per
+ * tick and then yields by resubmitting itself, so thousands of shuttles
+ * share a few worker threads the way virtual threads would, and idle
+ * workers steal queued shuttles from busy ones. Each shuttle gets its own
+ * MissionRandom split from the seed up front, so a seed reproduces the
+ * same outcomes however the ticks are scheduled.
+ *
+ * Usage:
+ *   java FleetRunner destinations.txt [mode] [shuttles] [seed]
+ *
+ * @author Nihat Masimli
+ */
+public class FleetRunner {
+    private final BinaryCatalog catalog;
+    private final NavigationMode mode;
+    private final double maxFuel;
+
+    /**
+     * @param catalog destinations every shuttle starts from (copied once
+     *                into a shared catalog)
+     * @param mode    navigation mode used by every shuttle
+     * @param maxFuel maximum fuel capacity of each shuttle
+     * @throws IOException if the catalog would exceed 2 GB
+     */
+    public FleetRunner(List<Destination> catalog, NavigationMode mode,
+                       double maxFuel) throws IOException {
+        this(BinaryCatalog.of(catalog), mode, maxFuel);
+    }
+
+    /**
+     * @param catalog shared catalog every shuttle starts from
+     * @param mode    navigation mode used by every shuttle
+     * @param maxFuel maximum fuel capacity of each shuttle
+     */
+    public FleetRunner(BinaryCatalog catalog, NavigationMode mode, double maxFuel) {
+        this.catalog = catalog;
+        this.mode = mode;
+        this.maxFuel = maxFuel;
+    }
+
+    /**
+     * Runs the fleet on a new work-stealing pool with one worker per core.
+     *
+     * @param shuttles number of shuttles, each flying one mission
+     * @param seed     root seed; equal seeds give equal outcomes
+     * @return outcomes, throughput and tick latency of the fleet
+     */
+    public FleetReport run(int shuttles, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        try {
+            return run(shuttles, seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the fleet on the given pool. A pool in async mode interleaves
+     * the shuttles fairly; otherwise a worker keeps flying the shuttle it
+     * ticked last.
+     *
+     * @param shuttles number of shuttles, each flying one mission
+     * @param seed     root seed; equal seeds give equal outcomes
+     * @param pool     pool executing the ticks
+     * @return outcomes, throughput and tick latency of the fleet
+     */
+    public FleetReport run(int shuttles, long seed, ForkJoinPool pool) {
+        if (shuttles < 0) {
+            throw new IllegalArgumentException("shuttles must be >= 0");
+        }
+        Fleet fleet = new Fleet(shuttles, pool);
+        MissionRandom root = new MissionRandom(seed);
+        long start = System.nanoTime();
+        for (int i = 0; i < shuttles; i++) {
+            pool.execute(new Flight(fleet, i, root.split()));
+        }
+        try {
+            fleet.landed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the fleet was flying", e);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (fleet.failure.get() != null) {
+            throw new IllegalStateException("A shuttle failed", fleet.failure.get());
+        }
+        FleetReport.TickHistogram latency = new FleetReport.TickHistogram();
+        for (FleetReport.TickHistogram h : fleet.histograms) {
+            latency.add(h);
+        }
+        MonteCarloReport outcomes = new MonteCarloReport(
+            fleet.completed, fleet.states, fleet.fuel, fleet.progress);
+        return new FleetReport(outcomes, elapsed, latency);
+    }
+
+    /** Shared results of a run; each flight writes only its own index. */
+    private static final class Fleet {
+        final boolean[] completed;
+        final ShuttleState[] states;
+        final double[] fuel;
+        final double[] progress;
+        final ForkJoinPool pool;
+        final CountDownLatch landed;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ConcurrentLinkedQueue<FleetReport.TickHistogram> histograms =
+            new ConcurrentLinkedQueue<>();
+        /** One histogram per worker thread, so recording never contends. */
+        final ThreadLocal<FleetReport.TickHistogram> latency =
+            ThreadLocal.withInitial(() -> {
+                FleetReport.TickHistogram h = new FleetReport.TickHistogram();
+                histograms.add(h);
+                return h;
+            });
+
+        Fleet(int shuttles, ForkJoinPool pool) {
+            this.pool = pool;
+            this.completed = new boolean[shuttles];
+            this.states = new ShuttleState[shuttles];
+            this.fuel = new double[shuttles];
+            this.progress = new double[shuttles];
+            this.landed = new CountDownLatch(shuttles);
+        }
+    }
+
+    /** One shuttle: built on its first tick, resubmitted after each one. */
+    private final class Flight implements Runnable {
+        private final Fleet fleet;
+        private final int id;
+        private final MissionRandom random;
+        private SpaceShuttle shuttle;
+        private Orbiter orbiter;
+
+        Flight(Fleet fleet, int id, MissionRandom random) {
+            this.fleet = fleet;
+            this.id = id;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long start = System.nanoTime();
+                if (orbiter == null) {
+                    launch();
+                }
+                boolean flying = orbiter.tick();
+                fleet.latency.get().record(System.nanoTime() - start);
+                if (flying) {
+                    fleet.pool.execute(this);
+                    return;
+                }
+                fleet.completed[id] = orbiter.isMissionComplete();
+                fleet.states[id] = orbiter.getState();
+                fleet.fuel[id] = shuttle.getFuelTank().getCurrentFuel();
+                fleet.progress[id] = shuttle.getProgress();
+            } catch (Throwable t) {
+                fleet.failure.compareAndSet(null, t);
+            }
+            fleet.landed.countDown();
+        }
+
+        private void launch() {
+            shuttle = new SpaceShuttle(maxFuel);
+            shuttle.setNavigationMode(mode);
+            shuttle.getNavigationSystem().addCatalog(catalog);
+            orbiter = new Orbiter(shuttle, random);
+            orbiter.setListener(NoOpMissionListener.INSTANCE);
+            orbiter.setEventDrivenCruise(true);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+              "Usage: java FleetRunner destinations.txt [mode] [shuttles] [seed]"
+            );
+            return;
+        }
+        NavigationMode mode = NavigationMode.STANDARD;
+        if (args.length > 1) {
+            try {
+                mode = NavigationMode.valueOf(args[1].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown mode '" + args[1] + "'. Using STANDARD.");
+            }
+        }
+        int shuttles = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        FleetRunner runner;
+        try {
+            runner = BinaryCatalog.isCatalog(args[0])
+                ? new FleetRunner(BinaryCatalog.open(args[0]), mode, 1000.0)
+                : new FleetRunner(DestinationFileLoader.load(args[0]), mode, 1000.0);
+        } catch (IOException e) {
+            System.err.println("Failed to load " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        FleetReport report = runner.run(shuttles, seed);
+        System.out.print(report);
+        System.out.printf("Flew %d shuttles (seed %d)%n", shuttles, seed);
+    }
+}
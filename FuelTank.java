@@ -1,10 +1,15 @@
 /**
  * FuelTank manages fuel levels for the space shuttle.
+ * It is not thread-safe; ConcurrentFuelTank can be shared.
  * 
  * @author Nihat Masimli DNGKKG
  */
 public class FuelTank {
+    /** Fraction of the capacity below which fuel counts as low by default. */
+    static final double LOW_FUEL_FRACTION = 0.15;
+
     private final double maxFuel;
+    private final double lowFuelFraction;
     private double currentFuel;
     
     /**
@@ -14,7 +19,19 @@ public class FuelTank {
      * @param maxFuel the maximum fuel capacity
      */
     public FuelTank(double maxFuel){
+        this(maxFuel, LOW_FUEL_FRACTION);
+    }
+    
+    /**
+     * Constructs a full FuelTank that reports low fuel below the given
+     * fraction of its capacity.
+     * 
+     * @param maxFuel         the maximum fuel capacity
+     * @param lowFuelFraction fraction of the capacity below which fuel is low
+     */
+    public FuelTank(double maxFuel, double lowFuelFraction){
         this.maxFuel = maxFuel;
+        this.lowFuelFraction = lowFuelFraction;
         this.currentFuel = maxFuel;
     }
     
@@ -29,6 +46,93 @@ public class FuelTank {
         this.currentFuel = Math.max(this.currentFuel - amount, 0.0);
     }
     
+    /**
+     * Consumes a percentage of the maximum fuel only if that much is
+     * left, e.g. to reserve the fuel for one thrust.
+     * 
+     * @param percent percentage of the max fuel to use (0-100)
+     * @return true if the fuel was taken, false if the tank is unchanged
+     */
+    public boolean tryUseFuel(double percent){
+        double amount = (percent / 100.0) * maxFuel;
+        if(this.currentFuel < amount){
+            return false;
+        }
+        this.currentFuel -= amount;
+        return true;
+    }
+    
+    /**
+     * Consumes the same percentage of the maximum fuel several times over.
+     * The level ends exactly where that many {@link #useFuel(double)}
+     * calls would leave it; whole-unit amounts take one subtraction.
+     * 
+     * @param percent percentage of the max fuel used per burn (0-100)
+     * @param times   number of burns
+     */
+    public void useFuel(double percent, int times){
+        this.currentFuel = afterBurns(currentFuel, (percent / 100.0) * maxFuel, times);
+    }
+    
+    /** Fuel level left after several burns of the same amount. */
+    static double afterBurns(double fuel, double amount, int times){
+        if(isWhole(amount) && isWhole(fuel)){
+            return Math.max(fuel - times * amount, 0.0);
+        }
+        for(int i = 0; i < times; i++){
+            fuel = Math.max(fuel - amount, 0.0);
+        }
+        return fuel;
+    }
+    
+    /**
+     * Counts how many burns of the given percentage it takes until
+     * {@link #isLowFuel()} first reports true, checking after each burn.
+     * 
+     * @param percent percentage of the max fuel used per burn (0-100)
+     * @return number of burns (at least 1), or Integer.MAX_VALUE if never
+     */
+    public int burnsUntilLow(double percent){
+        return burnsUntilLow(currentFuel, (percent / 100.0) * maxFuel,
+                             lowFuelFraction * maxFuel);
+    }
+    
+    /**
+     * Burns of an amount from a fuel level until it is below the
+     * threshold, with the same arithmetic as {@link #afterBurns}: whole
+     * amounts are counted from the quotient, others burn by burn.
+     */
+    static int burnsUntilLow(double fuel, double amount, double threshold){
+        if(threshold <= 0){
+            return Integer.MAX_VALUE; // the level never drops below zero
+        }
+        if(amount <= 0){
+            return fuel < threshold ? 1 : Integer.MAX_VALUE;
+        }
+        if(isWhole(amount) && isWhole(fuel)){
+            // estimate, then settle on the exact level after each burn
+            double burns = Math.max(Math.floor((fuel - threshold) / amount) + 1, 1);
+            while(burns > 1 && Math.max(fuel - (burns - 1) * amount, 0.0) < threshold){
+                burns--;
+            }
+            while(Math.max(fuel - burns * amount, 0.0) >= threshold){
+                burns++;
+            }
+            return burns >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) burns;
+        }
+        int burns = 0;
+        do{
+            fuel = Math.max(fuel - amount, 0.0);
+            burns++;
+        }while(fuel >= threshold && burns < Integer.MAX_VALUE);
+        return burns;
+    }
+    
+    /** True if the value is a whole number small enough to subtract exactly. */
+    static boolean isWhole(double value){
+        return value == Math.rint(value) && Math.abs(value) < 0x1p52;
+    }
+    
     /**
      * Refuels the tank back to full capacity.
      */
@@ -37,12 +141,13 @@ public class FuelTank {
     }
     
     /**
-     * Checks if the current fuel level is below 15% of the capacity.
+     * Checks if the current fuel level is below 15% of the capacity, or
+     * the fraction the tank was built with.
      * 
      * @return true if low on fuel
      */
     public boolean isLowFuel(){
-        return this.currentFuel < (0.15 * maxFuel);
+        return this.currentFuel < (lowFuelFraction * maxFuel);
     }
     
     /**
@@ -54,6 +159,11 @@ public class FuelTank {
         return currentFuel;
     }
     
+    /** Puts the level back to a saved value, see MissionCheckpoint. */
+    void setCurrentFuel(double fuel){
+        this.currentFuel = fuel;
+    }
+    
     /**
      * Retrieves the maximum fuel capacity.
      * 
@@ -63,11 +173,20 @@ public class FuelTank {
         return maxFuel;
     }
     
+    /**
+     * Retrieves the fraction of the capacity below which fuel is low.
+     * 
+     * @return low-fuel fraction (0.15 by default)
+     */
+    public double getLowFuelFraction(){
+        return lowFuelFraction;
+    }
+    
     @Override
     public String toString(){
         return String.format(
                 "FuelTank{currentFuel=%.2f, maxFuel=%.2f}",
-                currentFuel, maxFuel
+                getCurrentFuel(), maxFuel
         );
     }
 }
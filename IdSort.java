@@ -0,0 +1,75 @@
+// IdSort.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.Arrays;
+
+/**
+ * Sorts destination ids by a double column without boxing: a stable
+ * radix sort on 64-bit keys ordered like Double.compare, 11 bits per
+ * pass, skipping passes where every key has the same digit.
+ *
+ * @author Nihat Masimli
+ */
+final class IdSort {
+    private static final int BITS = 11;
+    private static final int RADIX = 1 << BITS;
+
+    private IdSort() {
+    }
+
+    /**
+     * Key of a value, ordered as unsigned longs like Double.compare
+     * orders the values; {@code ~key(v)} orders them the other way.
+     */
+    static long key(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits : bits ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Sorts ids by their keys; ids with equal keys keep their order.
+     *
+     * @param ids  ids to sort (not modified)
+     * @param keys key of every id, indexed by id
+     * @return the ids in ascending key order
+     */
+    static int[] sort(int[] ids, long[] keys) {
+        int n = ids.length;
+        int[] from = ids.clone();
+        int[] to = new int[n];
+        long[] fromKeys = new long[n];
+        long[] toKeys = new long[n];
+        for (int i = 0; i < n; i++) {
+            fromKeys[i] = keys[ids[i]];
+        }
+        int[] count = new int[RADIX];
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            Arrays.fill(count, 0);
+            for (int i = 0; i < n; i++) {
+                count[(int) (fromKeys[i] >>> shift) & (RADIX - 1)]++;
+            }
+            if (n == 0 || count[(int) (fromKeys[0] >>> shift) & (RADIX - 1)] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int c = count[d];
+                count[d] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int at = count[(int) (fromKeys[i] >>> shift) & (RADIX - 1)]++;
+                to[at] = from[i];
+                toKeys[at] = fromKeys[i];
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,366 @@
+// MissionCache.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the results of whole missions, so that asking the same
+ * what-if question again costs a lookup instead of a simulation.
+ *
+ * A mission is identified by the content hash of its catalog, the
+ * navigation mode, its MissionParameters and the seed of its
+ * MissionRandom;
+ * with those equal it flies the same way every time. OPTIMAL missions
+ * plan within a time budget and may differ from run to run; the first
+ * result is the one kept.
+ *
+ * The least recently used result is evicted once the cache is full,
+ * and a result older than the maximum age is flown again. The cache is
+ * safe to share between threads; two threads missing on the same key at
+ * once may both fly the mission.
+ *
+ * File layout of save(), version 2, little-endian:
+ * <pre>
+ *   header  magic "ORMC", version, entry count
+ *   entries 112 bytes each, least recently used first:
+ *           catalog hash, mode, state, completed flag, unused byte,
+ *           maxFuel, seed, creation time in epoch milliseconds,
+ *           fuel, progress, science, observations, legs, emergencies,
+ *           thrustFuel, thrustProgress, observationFuel,
+ *           observationStep, lowFuelFraction
+ * </pre>
+ * Version 1 files, with 72-byte entries ending at emergencies, are read
+ * as missions flown with the default costs.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionCache {
+    private static final int MAGIC = 0x434D524F; // "ORMC" little-endian
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 12;
+    private static final int V1_ENTRY_BYTES = 72;
+    private static final int ENTRY_BYTES = V1_ENTRY_BYTES + 5 * 8;
+
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final LongSupplier clock;
+    private final Map<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maxEntries results kept before the least recently used is evicted
+     * @param maxAge     age after which a result is flown again
+     */
+    public MissionCache(int maxEntries, Duration maxAge) {
+        this(maxEntries, maxAge, System::currentTimeMillis);
+    }
+
+    /** Cache reading the time from a clock in epoch milliseconds, for tests. */
+    MissionCache(int maxEntries, Duration maxAge, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1: " + maxEntries);
+        }
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("maxAge must not be negative: " + maxAge);
+        }
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > MissionCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** What identifies a mission. */
+    private static final class Key {
+        final long catalogHash;
+        final NavigationMode mode;
+        final MissionParameters parameters;
+        final long seed;
+
+        Key(long catalogHash, NavigationMode mode, MissionParameters parameters, long seed) {
+            this.catalogHash = catalogHash;
+            this.mode = mode;
+            this.parameters = parameters;
+            this.seed = seed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return catalogHash == k.catalogHash && mode == k.mode
+                   && parameters.equals(k.parameters) && seed == k.seed;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = catalogHash * 31 + mode.ordinal();
+            h = h * 31 + parameters.hashCode();
+            h = h * 31 + seed;
+            return Long.hashCode(h * 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    /** A result and when it was flown. */
+    private static final class Entry {
+        final MissionResult result;
+        final long created;
+
+        Entry(MissionResult result, long created) {
+            this.result = result;
+            this.created = created;
+        }
+    }
+
+    /**
+     * The result of a mission with the default costs, flown by
+     * MissionResult.fly() unless a fresh one is cached.
+     *
+     * @param catalog shared catalog, only read
+     * @param mode    navigation mode
+     * @param maxFuel fuel capacity
+     * @param seed    seed of the mission's MissionRandom
+     * @return the outcome
+     */
+    public MissionResult launch(BinaryCatalog catalog, NavigationMode mode,
+                                double maxFuel, long seed) {
+        return launch(catalog, mode, MissionParameters.DEFAULT.withMaxFuel(maxFuel), seed);
+    }
+
+    /**
+     * The result of a mission, flown by MissionResult.fly() unless a
+     * fresh one is cached.
+     *
+     * @param catalog    shared catalog, only read
+     * @param mode       navigation mode
+     * @param parameters capacity, fuel costs and low-fuel threshold
+     * @param seed       seed of the mission's MissionRandom
+     * @return the outcome
+     */
+    public MissionResult launch(BinaryCatalog catalog, NavigationMode mode,
+                                MissionParameters parameters, long seed) {
+        Key key = new Key(catalog.contentHash(), mode, parameters, seed);
+        MissionResult cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        MissionResult result = MissionResult.fly(catalog, mode, parameters, seed);
+        synchronized (this) {
+            entries.put(key, new Entry(result, clock.getAsLong()));
+        }
+        return result;
+    }
+
+    private synchronized MissionResult get(Key key) {
+        Entry e = entries.get(key);
+        if (e != null && expired(e, clock.getAsLong())) {
+            entries.remove(key);
+            expirations++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.result;
+    }
+
+    private boolean expired(Entry e, long now) {
+        return now - e.created > maxAgeMillis;
+    }
+
+    /** Drops every result older than the maximum age. */
+    public synchronized void evictExpired() {
+        long now = clock.getAsLong();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (expired(it.next(), now)) {
+                it.remove();
+                expirations++;
+            }
+        }
+    }
+
+    /** Drops every result; the statistics are kept. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Writes the results that have not expired to a file, next to it
+     * first and then moved over it, as MissionCheckpoint does.
+     *
+     * @param filename cache file (replaced if present)
+     * @throws IOException if writing fails
+     */
+    public void save(String filename) throws IOException {
+        List<Map.Entry<Key, Entry>> kept = new ArrayList<>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            for (Map.Entry<Key, Entry> e : entries.entrySet()) {
+                if (!expired(e.getValue(), now)) {
+                    kept.add(e);
+                }
+            }
+        }
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + ENTRY_BYTES * kept.size())
+                                   .order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(kept.size());
+        for (Map.Entry<Key, Entry> e : kept) {
+            Key k = e.getKey();
+            Entry v = e.getValue();
+            MissionResult r = v.result;
+            buf.putLong(k.catalogHash);
+            buf.put((byte) k.mode.ordinal()).put((byte) r.getState().ordinal())
+               .put((byte) (r.isCompleted() ? 1 : 0)).put((byte) 0);
+            MissionParameters p = k.parameters;
+            buf.putDouble(p.getMaxFuel()).putLong(k.seed).putLong(v.created);
+            buf.putDouble(r.getFuel()).putDouble(r.getProgress()).putDouble(r.getScience());
+            buf.putInt(r.getObservations()).putInt(r.getLegs()).putInt(r.getEmergencies());
+            buf.putDouble(p.getThrustFuel()).putDouble(p.getThrustProgress())
+               .putDouble(p.getObservationFuel()).putDouble(p.getObservationStep())
+               .putDouble(p.getLowFuelFraction());
+        }
+        buf.flip();
+        Path target = Paths.get(filename);
+        Path partial = Paths.get(filename + ".part");
+        try (FileChannel channel = FileChannel.open(partial,
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            channel.force(false);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the results saved in a file, skipping the ones that have
+     * expired since; they keep their original age.
+     *
+     * @param filename file written by save()
+     * @return number of results added
+     * @throws IOException if the file is unreadable or not a mission cache
+     */
+    public int load(String filename) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mission cache larger than 2 GB: " + filename);
+            }
+            buf = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // until full or end of file
+            }
+            buf.flip();
+        }
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a mission cache: " + filename);
+            }
+            int version = buf.getInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported mission cache version " + version);
+            }
+            int count = buf.getInt();
+            int entryBytes = version == 1 ? V1_ENTRY_BYTES : ENTRY_BYTES;
+            if (count < 0 || buf.remaining() != (long) entryBytes * count) {
+                throw new IOException("Corrupt mission cache: " + filename);
+            }
+            int added = 0;
+            synchronized (this) {
+                long now = clock.getAsLong();
+                for (int i = 0; i < count; i++) {
+                    long hash = buf.getLong();
+                    NavigationMode mode = NavigationMode.values()[buf.get()];
+                    ShuttleState state = ShuttleState.values()[buf.get()];
+                    boolean completed = buf.get() != 0;
+                    buf.get();
+                    double maxFuel = buf.getDouble();
+                    long seed = buf.getLong();
+                    long created = buf.getLong();
+                    double fuel = buf.getDouble();
+                    double progress = buf.getDouble();
+                    double science = buf.getDouble();
+                    int observations = buf.getInt();
+                    int legs = buf.getInt();
+                    int emergencies = buf.getInt();
+                    MissionParameters parameters = version == 1
+                        ? MissionParameters.DEFAULT.withMaxFuel(maxFuel)
+                        : new MissionParameters(maxFuel, buf.getDouble(), buf.getDouble(),
+                                                buf.getDouble(), buf.getDouble(),
+                                                buf.getDouble());
+                    Entry e = new Entry(new MissionResult(completed, state, fuel, progress,
+                                                          science, observations, legs,
+                                                          emergencies), created);
+                    if (!expired(e, now)) {
+                        entries.put(new Key(hash, mode, parameters, seed), e);
+                        added++;
+                    }
+                }
+            }
+            return added;
+        } catch (RuntimeException e) {
+            // BufferUnderflow, a bad ordinal or parameters out of range
+            throw new IOException("Corrupt mission cache: " + filename, e);
+        }
+    }
+
+    /** Number of results held. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    /** Results dropped to stay within the maximum number of entries. */
+    public synchronized long getEvictions() { return evictions; }
+    /** Results dropped for being older than the maximum age. */
+    public synchronized long getExpirations() { return expirations; }
+
+    /** Fraction of launches answered from the cache, or NaN before any. */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? Double.NaN : hits / (double) (hits + misses);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "MissionCache{entries=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, "
+            + "evictions=%d, expirations=%d}",
+            entries.size(), maxEntries, hits, misses, 100.0 * getHitRate(),
+            evictions, expirations);
+    }
+}
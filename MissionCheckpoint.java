@@ -0,0 +1,395 @@
+// MissionCheckpoint.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Snapshot of a mission between two legs, taken by Orbiter.checkpoint():
+ * shuttle state, progress, fuel level, engine flag, every remaining
+ * destination with its progress and observation completion, the current
+ * and next destination, the mission parameters, and the random source
+ * if it is Serializable, as MissionRandom and java.util.Random are.
+ *
+ * Taking one only copies those values into arrays, so the mission can go
+ * on while the snapshot is written, e.g. by a MissionCheckpointer.
+ * restore() builds a new shuttle and orbiter that fly on exactly as the
+ * original would have.
+ *
+ * File layout, version 2, little-endian:
+ * <pre>
+ *   header       magic "ORCK", version, maxFuel, fuel, progress,
+ *                state, mode, flags, next destination's position
+ *   current      the destination last reached
+ *   destinations count, then each remaining one in insertion order:
+ *                distance, scientificValue, consumptionRate, progress,
+ *                observationCompletion, UTF-8 name
+ *   random       length, then the serialized generator (0 if none)
+ *   parameters   thrustFuel, thrustProgress, observationFuel,
+ *                observationStep, lowFuelFraction
+ * </pre>
+ * Version 1 files, without the parameters, are read with the defaults.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionCheckpoint {
+    private static final int MAGIC = 0x4B43524F; // "ORCK" little-endian
+    private static final int VERSION = 2;
+    private static final int STARTED = 1;
+    private static final int ENDED = 2;
+    private static final int ENGINE_RUNNING = 4;
+    private static final int EVENT_DRIVEN = 8;
+    private static final int COLUMN_STORE = 16;
+
+    private final MissionParameters parameters;
+    private final double fuel;
+    private final double progress;
+    private final ShuttleState state;
+    private final NavigationMode mode;
+    private final int flags;
+    private final Destination current;
+    /** Position of the next destination among the remaining ones, or -1. */
+    private final int next;
+    private final String[] names;
+    /** Five values per destination, in the order of the file layout. */
+    private final double[] values;
+    private final byte[] random;
+
+    private MissionCheckpoint(MissionParameters parameters, double fuel, double progress,
+                              ShuttleState state, NavigationMode mode, int flags,
+                              Destination current, int next, String[] names,
+                              double[] values, byte[] random) {
+        this.parameters = parameters;
+        this.fuel = fuel;
+        this.progress = progress;
+        this.state = state;
+        this.mode = mode;
+        this.flags = flags;
+        this.current = current;
+        this.next = next;
+        this.names = names;
+        this.values = values;
+        this.random = random;
+    }
+
+    /** Copies the state of a mission; called by Orbiter between legs. */
+    static MissionCheckpoint capture(SpaceShuttle shuttle, RandomGenerator random,
+                                     ShuttleState state, Destination current,
+                                     Destination next, boolean started,
+                                     boolean ended, boolean eventDriven) {
+        NavigationSystem navigation = shuttle.getNavigationSystem();
+        if (navigation.usesSpatialIndex()) {
+            throw new IllegalStateException("Spatial missions cannot be checkpointed");
+        }
+        List<Destination> remaining = navigation.getDestinations();
+        int count = remaining.size();
+        String[] names = new String[count];
+        double[] values = new double[5 * count];
+        int nextAt = -1;
+        for (int i = 0; i < count; i++) {
+            Destination d = remaining.get(i);
+            if (d == next) {
+                nextAt = i;
+            }
+            names[i] = d.getName();
+            values[5 * i] = d.getDistanceFromEarth();
+            values[5 * i + 1] = d.getScientificValue();
+            values[5 * i + 2] = d.getConsumptionRate();
+            values[5 * i + 3] = d.getProgress();
+            values[5 * i + 4] = d.getObservationCompletion();
+        }
+        int flags = (started ? STARTED : 0) | (ended ? ENDED : 0)
+                  | (shuttle.getEngine().isRunning() ? ENGINE_RUNNING : 0)
+                  | (eventDriven ? EVENT_DRIVEN : 0)
+                  | (navigation.usesColumnStore() ? COLUMN_STORE : 0);
+        FuelTank tank = shuttle.getFuelTank();
+        return new MissionCheckpoint(shuttle.getParameters(), tank.getCurrentFuel(),
+                                     shuttle.getProgress(), state, navigation.getMode(),
+                                     flags, copy(current), nextAt, names, values,
+                                     saveRandom(random));
+    }
+
+    private static Destination copy(Destination d) {
+        Destination copy = new Destination(d.getName(), d.getDistanceFromEarth(),
+                                           d.getScientificValue(), d.getConsumptionRate());
+        copy.updateProgress(d.getProgress());
+        copy.updateObservation(d.getObservationCompletion());
+        return copy;
+    }
+
+    /** Serialized generator, or none if it is not Serializable. */
+    private static byte[] saveRandom(RandomGenerator random) {
+        if (!(random instanceof Serializable)) {
+            return new byte[0];
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        } catch (IOException e) {
+            return new byte[0]; // e.g. a subclass that is not really serializable
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the checkpoint to a file. It is written next to it first
+     * and then moved over it, so a crash never leaves half a checkpoint.
+     *
+     * @param filename checkpoint file (replaced if present)
+     * @throws IOException if writing fails
+     */
+    public void write(String filename) throws IOException {
+        Path target = Paths.get(filename);
+        Path partial = Paths.get(filename + ".part");
+        ByteBuffer buf = toBytes();
+        try (FileChannel channel = FileChannel.open(partial,
+                 StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            channel.force(false);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint file.
+     *
+     * @param filename checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file is unreadable or not a checkpoint
+     */
+    public static MissionCheckpoint read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Checkpoint larger than 2 GB: " + filename);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // until full or end of file
+            }
+            buf.flip();
+            return fromBytes(buf);
+        }
+    }
+
+    /** The checkpoint in its file layout, ready to be read. */
+    public ByteBuffer toBytes() {
+        byte[][] encoded = new byte[names.length][];
+        byte[] currentName = current.getName().getBytes(StandardCharsets.UTF_8);
+        long length = 4 * 4 + 3 * 8 + 5 * 8 + 4 + currentName.length + 4 + 4 + random.length
+                      + 5 * 8;
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            length += 5 * 8 + 4 + encoded[i].length;
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Checkpoint larger than 2 GB");
+        }
+        ByteBuffer buf = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION);
+        buf.putDouble(parameters.getMaxFuel()).putDouble(fuel).putDouble(progress);
+        buf.put((byte) state.ordinal()).put((byte) mode.ordinal())
+           .put((byte) flags).put((byte) 0);
+        buf.putInt(next);
+        buf.putDouble(current.getDistanceFromEarth()).putDouble(current.getScientificValue())
+           .putDouble(current.getConsumptionRate()).putDouble(current.getProgress())
+           .putDouble(current.getObservationCompletion());
+        buf.putInt(currentName.length).put(currentName);
+        buf.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            for (int v = 0; v < 5; v++) {
+                buf.putDouble(values[5 * i + v]);
+            }
+            buf.putInt(encoded[i].length).put(encoded[i]);
+        }
+        buf.putInt(random.length).put(random);
+        buf.putDouble(parameters.getThrustFuel()).putDouble(parameters.getThrustProgress())
+           .putDouble(parameters.getObservationFuel()).putDouble(parameters.getObservationStep())
+           .putDouble(parameters.getLowFuelFraction());
+        return buf.flip();
+    }
+
+    /**
+     * Reads a checkpoint from its file layout.
+     *
+     * @param bytes the checkpoint, from its position to its limit
+     * @return the checkpoint
+     * @throws IOException if the bytes are not a checkpoint
+     */
+    public static MissionCheckpoint fromBytes(ByteBuffer bytes) throws IOException {
+        ByteBuffer buf = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a mission checkpoint");
+            }
+            int version = buf.getInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version);
+            }
+            double maxFuel = buf.getDouble();
+            double fuel = buf.getDouble();
+            double progress = buf.getDouble();
+            ShuttleState state = ShuttleState.values()[buf.get()];
+            NavigationMode mode = NavigationMode.values()[buf.get()];
+            int flags = buf.get();
+            buf.get();
+            int next = buf.getInt();
+            double[] c = new double[5];
+            for (int v = 0; v < 5; v++) {
+                c[v] = buf.getDouble();
+            }
+            Destination current = new Destination(string(buf), c[0], c[1], c[2]);
+            current.updateProgress(c[3]);
+            current.updateObservation(c[4]);
+            int count = buf.getInt();
+            if (count < 0 || next >= count) {
+                throw new IOException("Corrupt mission checkpoint");
+            }
+            String[] names = new String[count];
+            double[] values = new double[5 * count];
+            for (int i = 0; i < count; i++) {
+                for (int v = 0; v < 5; v++) {
+                    values[5 * i + v] = buf.getDouble();
+                }
+                names[i] = string(buf);
+            }
+            byte[] random = new byte[buf.getInt()];
+            buf.get(random);
+            MissionParameters parameters = MissionParameters.DEFAULT.withMaxFuel(maxFuel);
+            if (version > 1) {
+                parameters = new MissionParameters(maxFuel, buf.getDouble(), buf.getDouble(),
+                                                   buf.getDouble(), buf.getDouble(),
+                                                   buf.getDouble());
+            }
+            return new MissionCheckpoint(parameters, fuel, progress, state, mode, flags,
+                                         current, next, names, values, random);
+        } catch (RuntimeException e) {
+            // BufferUnderflow, a bad ordinal, a negative length or parameters
+            // out of range
+            throw new IOException("Corrupt mission checkpoint", e);
+        }
+    }
+
+    private static String string(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rebuilds the mission with the saved random source, or a new one if
+     * none was saved.
+     *
+     * @return an orbiter that continues the mission with its next tick()
+     * @throws IOException if the saved random source cannot be read
+     */
+    public Orbiter restore() throws IOException {
+        return restore(random.length > 0 ? loadRandom() : new MissionRandom());
+    }
+
+    /**
+     * Rebuilds the mission on a new shuttle with a full-size plain tank
+     * and the saved parameters.
+     * Its listener is the console's until set on the orbiter.
+     *
+     * @param random random source to go on with
+     * @return an orbiter that continues the mission with its next tick()
+     */
+    public Orbiter restore(RandomGenerator random) {
+        SpaceShuttle shuttle = new SpaceShuttle(parameters);
+        shuttle.getFuelTank().setCurrentFuel(fuel);
+        shuttle.incrementProgress(progress);
+        if ((flags & ENGINE_RUNNING) != 0) {
+            shuttle.getEngine().start();
+        }
+        NavigationSystem navigation = shuttle.getNavigationSystem();
+        if ((flags & COLUMN_STORE) != 0) {
+            navigation.useColumnStore();
+        }
+        navigation.setMode(mode);
+        List<Destination> remaining = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            Destination d = new Destination(names[i], values[5 * i],
+                                            values[5 * i + 1], values[5 * i + 2]);
+            d.updateProgress(values[5 * i + 3]);
+            d.updateObservation(values[5 * i + 4]);
+            remaining.add(d);
+        }
+        navigation.addDestinations(remaining);
+        // the column store hands out its own views of the rows
+        Destination nextDestination =
+            next < 0 ? null : navigation.getDestinations().get(next);
+        Orbiter orbiter = new Orbiter(shuttle, random, state, copy(current),
+                                      nextDestination, (flags & STARTED) != 0,
+                                      (flags & ENDED) != 0);
+        orbiter.setEventDrivenCruise((flags & EVENT_DRIVEN) != 0);
+        return orbiter;
+    }
+
+    /** Deserializes the saved generator, accepting random generators only. */
+    private RandomGenerator loadRandom() throws IOException {
+        try (ObjectInputStream in =
+                 new ObjectInputStream(new ByteArrayInputStream(random))) {
+            in.setObjectInputFilter(info ->
+                info.serialClass() == null
+                || RandomGenerator.class.isAssignableFrom(info.serialClass())
+                ? ObjectInputFilter.Status.ALLOWED
+                : ObjectInputFilter.Status.REJECTED);
+            return (RandomGenerator) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Unreadable random source in checkpoint", e);
+        }
+    }
+
+    /** Number of destinations left to visit. */
+    public int getRemainingCount() {
+        return names.length;
+    }
+
+    /** Shuttle's travelled distance. */
+    public double getProgress() {
+        return progress;
+    }
+
+    /** Fuel left in the tank. */
+    public double getFuel() {
+        return fuel;
+    }
+
+    /** Capacity, costs and low-fuel threshold of the mission. */
+    public MissionParameters getParameters() {
+        return parameters;
+    }
+
+    /** Shuttle state at the checkpoint. */
+    public ShuttleState getState() {
+        return state;
+    }
+
+    /** True if the random source was saved along with the mission. */
+    public boolean hasRandom() {
+        return random.length > 0;
+    }
+}
@@ -0,0 +1,152 @@
+// MissionCheckpointer.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Flies a mission and keeps a checkpoint file of it up to date.
+ *
+ * Every few legs the orbiter's state is copied into a MissionCheckpoint,
+ * which only pauses the mission for the copy; a background thread then
+ * writes it. If the writer falls behind, only the newest checkpoint is
+ * written. Call close() to write the last one and stop the writer.
+ *
+ * Resume with {@code MissionCheckpoint.read(file).restore().startCourse()}.
+ *
+ * Usage, resuming from the checkpoint file if it exists:
+ *   java MissionCheckpointer mission.orck [destinations.txt] [mode] [everyLegs]
+ */
+public class MissionCheckpointer implements AutoCloseable {
+    private final String filename;
+    private final int everyLegs;
+    private final AtomicReference<MissionCheckpoint> pending = new AtomicReference<>();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private final ExecutorService writer;
+    private int written;
+
+    /**
+     * @param filename  checkpoint file, replaced by every write
+     * @param everyLegs legs flown between checkpoints
+     */
+    public MissionCheckpointer(String filename, int everyLegs) {
+        if (everyLegs < 1) {
+            throw new IllegalArgumentException("everyLegs must be positive");
+        }
+        this.filename = filename;
+        this.everyLegs = everyLegs;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "mission-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Flies the rest of a mission, checkpointing every few legs and once
+     * more at the end.
+     *
+     * @param orbiter a new or restored orbiter
+     * @return true if every destination was reached
+     */
+    public boolean run(Orbiter orbiter) {
+        int legs = 0;
+        while (orbiter.tick()) {
+            if (++legs % everyLegs == 0) {
+                save(orbiter.checkpoint());
+            }
+        }
+        save(orbiter.checkpoint());
+        return orbiter.isMissionComplete();
+    }
+
+    /**
+     * Queues a checkpoint for writing, e.g. one taken on demand; it
+     * replaces any not yet written.
+     *
+     * @param checkpoint the checkpoint
+     */
+    public void save(MissionCheckpoint checkpoint) {
+        if (pending.getAndSet(checkpoint) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        MissionCheckpoint checkpoint = pending.getAndSet(null);
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            checkpoint.write(filename);
+            written++;
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /** Checkpoints written so far; read it after close(). */
+    public int getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Writes the checkpoint still queued, if any, and stops the writer.
+     *
+     * @throws IOException the first write that failed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the last checkpoint", e);
+        }
+        IOException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+              "Usage: java MissionCheckpointer mission.orck [destinations.txt] [mode] [everyLegs]"
+            );
+            return;
+        }
+        int everyLegs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        Orbiter orbiter;
+        try {
+            if (Files.exists(Paths.get(args[0]))) {
+                orbiter = MissionCheckpoint.read(args[0]).restore();
+                System.out.println("Resuming from " + args[0]);
+            } else {
+                SpaceShuttle shuttle = new SpaceShuttle(1000.0);
+                if (args.length > 1) {
+                    shuttle.loadDestinationFromFile(args[1]);
+                }
+                if (args.length > 2) {
+                    shuttle.setNavigationMode(NavigationMode.valueOf(args[2].toUpperCase()));
+                }
+                orbiter = new Orbiter(shuttle);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to start: " + e.getMessage());
+            return;
+        }
+        try (MissionCheckpointer checkpointer = new MissionCheckpointer(args[0], everyLegs)) {
+            checkpointer.run(orbiter);
+        } catch (IOException e) {
+            System.err.println("Failed to write " + args[0] + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,342 @@
+// MissionJournal.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Records every event of a mission in a compact binary file, instead of
+ * the text log: state changes, legs, thrusts, arrivals, observation
+ * steps, emergencies and refuels, with the fuel and progress of the
+ * moment. MissionReplay reads it back without flying the mission again.
+ *
+ * Events are packed into one of two direct buffers; when it fills, a
+ * background thread writes it to the file channel while the mission goes
+ * on in the other, so the simulation thread only encodes. A destination
+ * is described once, the first time an event names it, and referred to
+ * by number after; other events allocate nothing.
+ *
+ * One simulation thread may feed a journal. A failed write stops the
+ * recording and is thrown by flush() or close(), which writes what is
+ * buffered and forces it to disk.
+ *
+ * File layout, version 1, little-endian:
+ * <pre>
+ *   header  magic "ORJN", version
+ *   records a type byte, then by type:
+ *           destination        distance, scientificValue, consumptionRate,
+ *                              name length (unsigned short), UTF-8 name;
+ *                              numbered 0, 1, ... in order of appearance
+ *           thrust             destination, thrusts, progress, fuel
+ *           observation step   destination, completion, fuel
+ *           emergency          destination, in orbit flag, fuel
+ *           refuel             emergency flag, succeeded flag, fuel
+ *           state changed      from, to
+ *           mission started    state
+ *           mission ended      complete flag, state
+ *           other events       destination, and the resumed flag for
+ *                              an observation start
+ * </pre>
+ * A journal cut short, e.g. by a crash, reads up to its last whole record.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionJournal implements MissionListener, AutoCloseable {
+    static final int MAGIC = 0x4E4A524F; // "ORJN" little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    static final byte LAUNCHED = 1;
+    static final byte MISSION_STARTED = 2;
+    static final byte STATE_CHANGED = 3;
+    static final byte LEG_STARTED = 4;
+    static final byte THRUST = 5;
+    static final byte ARRIVAL = 6;
+    static final byte OBSERVATION_STARTED = 7;
+    static final byte OBSERVATION_STEP = 8;
+    static final byte OBSERVATION_COMPLETE = 9;
+    static final byte EMERGENCY = 10;
+    static final byte REFUEL = 11;
+    static final byte MISSION_ENDED = 12;
+    static final byte DESTINATION = 13;
+
+    /** Longest record apart from a destination's. */
+    private static final int MAX_EVENT_BYTES = 25;
+    private static final int DESTINATION_BYTES = 27; // without the name
+
+    private final FileChannel channel;
+    private final ExecutorService writer;
+    private ByteBuffer buf;
+    private ByteBuffer spare;
+    private Future<?> writing;
+    private final Map<Destination, Integer> ids = new IdentityHashMap<>();
+    private Destination last;
+    private int lastId;
+    private long events;
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * Journal writing 64 KB at a time.
+     *
+     * @param filename journal file (replaced if present)
+     * @throws IOException if the file cannot be created
+     */
+    public MissionJournal(String filename) throws IOException {
+        this(filename, 1 << 16);
+    }
+
+    /**
+     * @param filename    journal file (replaced if present)
+     * @param bufferBytes bytes written at a time; twice that is buffered
+     * @throws IOException if the file cannot be created
+     */
+    public MissionJournal(String filename, int bufferBytes) throws IOException {
+        if (bufferBytes < 256) {
+            throw new IllegalArgumentException("bufferBytes must be at least 256");
+        }
+        this.channel = FileChannel.open(Paths.get(filename),
+                                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+        this.buf = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.spare = ByteBuffer.allocateDirect(bufferBytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "mission-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        buf.putInt(MAGIC).putInt(VERSION);
+    }
+
+    @Override
+    public void launched() {
+        claim(LAUNCHED);
+    }
+
+    @Override
+    public void missionStarted(ShuttleState initial) {
+        claim(MISSION_STARTED).put((byte) initial.ordinal());
+    }
+
+    @Override
+    public void stateChanged(ShuttleState from, ShuttleState to) {
+        claim(STATE_CHANGED).put((byte) from.ordinal()).put((byte) to.ordinal());
+    }
+
+    @Override
+    public void legStarted(Destination target) {
+        int id = id(target);
+        claim(LEG_STARTED).putInt(id);
+    }
+
+    @Override
+    public void thrust(Destination target, int thrusts,
+                       double progress, double fuel) {
+        int id = id(target);
+        claim(THRUST).putInt(id).putInt(thrusts).putDouble(progress).putDouble(fuel);
+    }
+
+    @Override
+    public void arrival(Destination target) {
+        int id = id(target);
+        claim(ARRIVAL).putInt(id);
+    }
+
+    @Override
+    public void observationStarted(Destination target, boolean resumed) {
+        int id = id(target);
+        claim(OBSERVATION_STARTED).putInt(id).put((byte) (resumed ? 1 : 0));
+    }
+
+    @Override
+    public void observationStep(Destination target, double fuel) {
+        int id = id(target);
+        claim(OBSERVATION_STEP).putInt(id).putDouble(target.getObservationCompletion())
+                               .putDouble(fuel);
+    }
+
+    @Override
+    public void observationComplete(Destination target) {
+        int id = id(target);
+        claim(OBSERVATION_COMPLETE).putInt(id);
+    }
+
+    @Override
+    public void emergency(Destination target, boolean duringObservation,
+                          double fuel) {
+        int id = id(target);
+        claim(EMERGENCY).putInt(id).put((byte) (duringObservation ? 1 : 0)).putDouble(fuel);
+    }
+
+    @Override
+    public void refuel(boolean emergency, boolean succeeded, double fuel) {
+        claim(REFUEL).put((byte) (emergency ? 1 : 0)).put((byte) (succeeded ? 1 : 0))
+                     .putDouble(fuel);
+    }
+
+    @Override
+    public void missionEnded(boolean complete, ShuttleState state) {
+        claim(MISSION_ENDED).put((byte) (complete ? 1 : 0)).put((byte) state.ordinal());
+    }
+
+    /** Number of a destination, describing it first if it is new. */
+    private int id(Destination d) {
+        if (d == last) {
+            return lastId;
+        }
+        Integer known = ids.get(d);
+        int id;
+        if (known != null) {
+            id = known;
+        } else {
+            id = ids.size();
+            ids.put(d, id);
+            byte[] name = d.getName().getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(name.length, 0xFFFF);
+            int bytes = DESTINATION_BYTES + length;
+            ByteBuffer record;
+            if (bytes > buf.capacity()) {
+                // a name longer than the buffer goes out on its own
+                swap();
+                awaitWrite();
+                record = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            } else {
+                reserve(bytes);
+                record = buf;
+            }
+            record.put(DESTINATION).putDouble(d.getDistanceFromEarth())
+                  .putDouble(d.getScientificValue()).putDouble(d.getConsumptionRate())
+                  .putShort((short) length).put(name, 0, length);
+            if (record != buf) {
+                record.flip();
+                write(record);
+            }
+        }
+        last = d;
+        lastId = id;
+        return id;
+    }
+
+    /** Makes room for an event record and starts it. */
+    private ByteBuffer claim(byte type) {
+        reserve(MAX_EVENT_BYTES);
+        events++;
+        return buf.put(type);
+    }
+
+    private void reserve(int bytes) {
+        if (buf.remaining() < bytes) {
+            swap();
+        }
+    }
+
+    /** Hands the filled buffer to the writer and goes on in the spare one. */
+    private void swap() {
+        if (closed) {
+            buf.clear();  // events after close() are dropped
+            return;
+        }
+        awaitWrite();
+        ByteBuffer full = buf;
+        buf = spare;
+        spare = full;
+        full.flip();
+        writing = writer.submit(() -> write(full));
+    }
+
+    /** Waits until the buffer being written is free again. */
+    private void awaitWrite() {
+        if (writing == null) {
+            return;
+        }
+        try {
+            writing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(new IOException("Interrupted while writing the journal", e));
+        } catch (ExecutionException e) {
+            fail(new IOException("Journal writer failed", e.getCause()));
+        }
+        writing = null;
+    }
+
+    /** Writes a buffer to the channel; after a failure only empties it. */
+    private void write(ByteBuffer pending) {
+        if (failure == null) {
+            try {
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+        pending.clear();
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Writes the buffered events to the file, e.g. before reading it
+     * while the mission goes on; they reach the disk when the operating
+     * system writes them, or at close().
+     *
+     * @throws IOException the first write that failed
+     */
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        swap();
+        awaitWrite();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /** Events recorded so far. */
+    public long getEventCount() {
+        return events;
+    }
+
+    /** Destinations described so far. */
+    public int getDestinationCount() {
+        return ids.size();
+    }
+
+    /**
+     * Writes the buffered events, forces the file to disk and closes it.
+     *
+     * @throws IOException the first write that failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            closed = true;
+            writer.shutdown();
+            channel.close();
+        }
+    }
+}
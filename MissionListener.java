@@ -0,0 +1,107 @@
+// MissionListener.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Receives the events of a mission as the Orbiter flies it.
+ * Events carry the values of the moment as primitives, so a listener
+ * that does nothing costs nothing; every method defaults to a no-op.
+ *
+ * Calls arrive on the simulation thread, in mission order.
+ */
+public interface MissionListener {
+
+    /** The shuttle has been launched. */
+    default void launched() {}
+
+    /**
+     * The orbiter starts its course.
+     *
+     * @param initial state before the first leg
+     */
+    default void missionStarted(ShuttleState initial) {}
+
+    /**
+     * The shuttle switched state.
+     *
+     * @param from previous state
+     * @param to   new state
+     */
+    default void stateChanged(ShuttleState from, ShuttleState to) {}
+
+    /**
+     * A new leg begins.
+     *
+     * @param target destination of the leg
+     */
+    default void legStarted(Destination target) {}
+
+    /**
+     * The engine thrusted toward the target.
+     *
+     * @param target   destination being approached
+     * @param thrusts  thrusts covered by this event (1 when stepping)
+     * @param progress shuttle's travelled distance afterwards
+     * @param fuel     fuel left afterwards
+     */
+    default void thrust(Destination target, int thrusts,
+                        double progress, double fuel) {}
+
+    /**
+     * The shuttle reached the target.
+     *
+     * @param target destination reached
+     */
+    default void arrival(Destination target) {}
+
+    /**
+     * Observation of the target starts, or resumes after an emergency.
+     *
+     * @param target  destination observed
+     * @param resumed true if resuming after an emergency refuel
+     */
+    default void observationStarted(Destination target, boolean resumed) {}
+
+    /**
+     * One observation step was performed.
+     *
+     * @param target destination observed
+     * @param fuel   fuel left afterwards
+     */
+    default void observationStep(Destination target, double fuel) {}
+
+    /**
+     * Observation of the target is complete.
+     *
+     * @param target destination observed
+     */
+    default void observationComplete(Destination target) {}
+
+    /**
+     * Fuel dropped below the safe level.
+     *
+     * @param target            destination of the current leg
+     * @param duringObservation true if it happened in orbit
+     * @param fuel              fuel left
+     */
+    default void emergency(Destination target, boolean duringObservation,
+                           double fuel) {}
+
+    /**
+     * The tank was refuelled, or an emergency refuel was attempted.
+     *
+     * @param emergency true for an emergency attempt, false when docked
+     * @param succeeded whether fuel was taken on
+     * @param fuel      fuel level afterwards
+     */
+    default void refuel(boolean emergency, boolean succeeded, double fuel) {}
+
+    /**
+     * The course has ended.
+     *
+     * @param complete true if every destination was reached
+     * @param state    final state of the shuttle
+     */
+    default void missionEnded(boolean complete, ShuttleState state) {}
+}
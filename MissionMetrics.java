@@ -0,0 +1,203 @@
+// MissionMetrics.java
+/**
+ * @author Nihat Masimli
+ */
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms of where missions spend time and fuel:
+ * thrusts, observation steps, emergencies and how they ended, refuels,
+ * fuel used per leg, and the wall time of choosing the next destination,
+ * cruising and orbiting.
+ *
+ * Counters are LongAdders and histograms are log-linear bucket arrays
+ * updated atomically, so every orbiter of a parallel batch can record
+ * into one instance. An orbiter records only if it was given metrics;
+ * otherwise each hook is a single null check, so the hooks stay
+ * compiled in.
+ *
+ * Run with {@code -Dorion.metrics=true}, or call install(), to have
+ * every new orbiter record into one instance that is published over
+ * JMX and printed to standard error when the JVM exits.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionMetrics implements MissionMetricsMXBean {
+    /** JMX name of the installed instance. */
+    public static final String OBJECT_NAME = "orion:type=MissionMetrics";
+
+    private static volatile MissionMetrics installed =
+        Boolean.getBoolean("orion.metrics") ? register(new MissionMetrics()) : null;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+    private final LongAdder legs = new LongAdder();
+    private final LongAdder thrusts = new LongAdder();
+    private final LongAdder observationSteps = new LongAdder();
+    private final LongAdder cruiseEmergencies = new LongAdder();
+    private final LongAdder orbitEmergencies = new LongAdder();
+    private final LongAdder emergencyRefuels = new LongAdder();
+    private final LongAdder failedRefuels = new LongAdder();
+    private final LongAdder dockedRefuels = new LongAdder();
+    private final DoubleAdder fuelUsed = new DoubleAdder();
+    /** Fuel per leg in hundredths of a percent of the capacity. */
+    private final Histogram legFuel = new Histogram();
+    private final Histogram selectNanos = new Histogram();
+    private final Histogram cruiseNanos = new Histogram();
+    private final Histogram orbitNanos = new Histogram();
+
+    /**
+     * Installs a process-wide instance that new orbiters record into,
+     * registers it over JMX, and prints it when the JVM exits. Later
+     * calls return the same instance.
+     *
+     * @return the installed metrics
+     */
+    public static synchronized MissionMetrics install() {
+        if (installed == null) {
+            installed = register(new MissionMetrics());
+        }
+        return installed;
+    }
+
+    /** The installed instance, or null if metrics are off. */
+    public static MissionMetrics current() {
+        return installed;
+    }
+
+    private static MissionMetrics register(MissionMetrics metrics) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                             .registerMBean(metrics, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Mission metrics not published over JMX: " + e.getMessage());
+        }
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(() -> System.err.print(metrics), "mission-metrics-dump"));
+        return metrics;
+    }
+
+    void selected(long nanos) {
+        selectNanos.record(nanos);
+    }
+
+    void cruised(long nanos) {
+        cruiseNanos.record(nanos);
+    }
+
+    void orbited(long nanos) {
+        orbitNanos.record(nanos);
+    }
+
+    void thrusts(int count) {
+        thrusts.add(count);
+    }
+
+    void observationStep() {
+        observationSteps.increment();
+    }
+
+    void emergency(boolean inOrbit, boolean refuelled) {
+        (inOrbit ? orbitEmergencies : cruiseEmergencies).increment();
+        (refuelled ? emergencyRefuels : failedRefuels).increment();
+    }
+
+    void dockedRefuel() {
+        dockedRefuels.increment();
+    }
+
+    /** One leg flown, using this percentage of the capacity. */
+    void leg(double fuelPercent) {
+        legs.increment();
+        fuelUsed.add(fuelPercent);
+        legFuel.record(Math.round(fuelPercent * 100.0));
+    }
+
+    void missionEnded(boolean complete) {
+        (complete ? completed : aborted).increment();
+    }
+
+    @Override public long getMissionsCompleted() { return completed.sum(); }
+    @Override public long getMissionsAborted() { return aborted.sum(); }
+    @Override public long getLegs() { return legs.sum(); }
+    @Override public long getThrusts() { return thrusts.sum(); }
+    @Override public long getObservationSteps() { return observationSteps.sum(); }
+    @Override public long getCruiseEmergencies() { return cruiseEmergencies.sum(); }
+    @Override public long getOrbitEmergencies() { return orbitEmergencies.sum(); }
+    @Override public long getEmergencyRefuels() { return emergencyRefuels.sum(); }
+    @Override public long getFailedRefuels() { return failedRefuels.sum(); }
+    @Override public long getDockedRefuels() { return dockedRefuels.sum(); }
+    @Override public double getFuelUsedPercent() { return fuelUsed.sum(); }
+    @Override public double getLegFuelPercentP50() { return legFuel.percentile(50) / 100.0; }
+    @Override public double getLegFuelPercentP99() { return legFuel.percentile(99) / 100.0; }
+    @Override public double getSelectMicrosP50() { return selectNanos.percentile(50) / 1e3; }
+    @Override public double getSelectMicrosP99() { return selectNanos.percentile(99) / 1e3; }
+    @Override public double getCruiseMicrosP50() { return cruiseNanos.percentile(50) / 1e3; }
+    @Override public double getCruiseMicrosP99() { return cruiseNanos.percentile(99) / 1e3; }
+    @Override public double getOrbitMicrosP50() { return orbitNanos.percentile(50) / 1e3; }
+    @Override public double getOrbitMicrosP99() { return orbitNanos.percentile(99) / 1e3; }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[] {completed, aborted, legs, thrusts,
+                observationSteps, cruiseEmergencies, orbitEmergencies,
+                emergencyRefuels, failedRefuels, dockedRefuels}) {
+            counter.reset();
+        }
+        fuelUsed.reset();
+        for (Histogram histogram : new Histogram[] {legFuel, selectNanos,
+                cruiseNanos, orbitNanos}) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Missions: %d complete, %d aborted, %d legs%n",
+                             getMissionsCompleted(), getMissionsAborted(), getLegs())
+             + String.format("Thrusts: %d, observation steps: %d%n",
+                             getThrusts(), getObservationSteps())
+             + String.format("Emergencies: %d cruising, %d orbiting; refuels: %d "
+                             + "emergency, %d failed, %d docked%n",
+                             getCruiseEmergencies(), getOrbitEmergencies(),
+                             getEmergencyRefuels(), getFailedRefuels(), getDockedRefuels())
+             + String.format("Fuel (%%): %.1f in all, per leg p50 %.1f, p99 %.1f%n",
+                             getFuelUsedPercent(), getLegFuelPercentP50(),
+                             getLegFuelPercentP99())
+             + String.format("Time (us) p50/p99: select %.1f/%.1f, cruise %.1f/%.1f, "
+                             + "orbit %.1f/%.1f%n",
+                             getSelectMicrosP50(), getSelectMicrosP99(),
+                             getCruiseMicrosP50(), getCruiseMicrosP99(),
+                             getOrbitMicrosP50(), getOrbitMicrosP99());
+    }
+
+    /** FleetReport's log-linear buckets, counted atomically. */
+    private static final class Histogram {
+        private final AtomicLongArray counts =
+            new AtomicLongArray(FleetReport.TickHistogram.BUCKETS);
+
+        void record(long value) {
+            counts.getAndIncrement(FleetReport.TickHistogram.bucket(Math.max(value, 0)));
+        }
+
+        /** As FleetReport reports it; NaN if nothing was recorded. */
+        double percentile(double percentile) {
+            FleetReport.TickHistogram snapshot = new FleetReport.TickHistogram();
+            for (int i = 0; i < counts.length(); i++) {
+                snapshot.add(i, counts.get(i));
+            }
+            return snapshot.percentile(percentile);
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+// MissionMetricsMXBean.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Management view of MissionMetrics, registered as
+ * {@code orion:type=MissionMetrics} by MissionMetrics.install().
+ * Times are in microseconds, fuel in percent of the tank's capacity.
+ *
+ * @author Nihat Masimli
+ */
+public interface MissionMetricsMXBean {
+    long getMissionsCompleted();
+    long getMissionsAborted();
+    long getLegs();
+    long getThrusts();
+    long getObservationSteps();
+    long getCruiseEmergencies();
+    long getOrbitEmergencies();
+    long getEmergencyRefuels();
+    long getFailedRefuels();
+    long getDockedRefuels();
+    double getFuelUsedPercent();
+    double getLegFuelPercentP50();
+    double getLegFuelPercentP99();
+    double getSelectMicrosP50();
+    double getSelectMicrosP99();
+    double getCruiseMicrosP50();
+    double getCruiseMicrosP99();
+    double getOrbitMicrosP50();
+    double getOrbitMicrosP99();
+
+    /** Sets every counter and histogram back to zero. */
+    void reset();
+}
@@ -0,0 +1,200 @@
+// MissionParameters.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * The physical settings of a mission: tank capacity, what a thrust and
+ * an observation step cost and gain, and when fuel counts as low.
+ * Immutable; the with-methods return a copy with one setting changed.
+ *
+ * Fuel costs are percents of the tank's capacity, as FuelTank.useFuel()
+ * takes them. OPTIMAL mode plans its route with these costs, rounded to
+ * the whole percents of its fuel levels.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionParameters {
+    /** 1000 units of fuel, 10% for 5 units of progress per thrust, 3%
+     *  for 5% of an observation per step, low below 15%. */
+    public static final MissionParameters DEFAULT = new MissionParameters(
+        1000.0, Engine.FUEL_PER_THRUST, Engine.PROGRESS_PER_THRUST,
+        Orbiter.OBSERVATION_FUEL, Orbiter.OBSERVATION_STEP, FuelTank.LOW_FUEL_FRACTION);
+
+    /** One setting, to vary in a ParameterSweep. */
+    public enum Setting {
+        MAX_FUEL,
+        THRUST_FUEL,
+        THRUST_PROGRESS,
+        OBSERVATION_FUEL,
+        OBSERVATION_STEP,
+        LOW_FUEL_FRACTION;
+
+        /** The value of this setting in some parameters. */
+        public double get(MissionParameters p) {
+            switch (this) {
+                case MAX_FUEL:         return p.maxFuel;
+                case THRUST_FUEL:      return p.thrustFuel;
+                case THRUST_PROGRESS:  return p.thrustProgress;
+                case OBSERVATION_FUEL: return p.observationFuel;
+                case OBSERVATION_STEP: return p.observationStep;
+                default:               return p.lowFuelFraction;
+            }
+        }
+
+        /**
+         * Copy of some parameters with this setting changed.
+         *
+         * @throws IllegalArgumentException if the value is out of range
+         */
+        public MissionParameters with(MissionParameters p, double value) {
+            switch (this) {
+                case MAX_FUEL:         return p.withMaxFuel(value);
+                case THRUST_FUEL:      return p.withThrustFuel(value);
+                case THRUST_PROGRESS:  return p.withThrustProgress(value);
+                case OBSERVATION_FUEL: return p.withObservationFuel(value);
+                case OBSERVATION_STEP: return p.withObservationStep(value);
+                default:               return p.withLowFuelFraction(value);
+            }
+        }
+    }
+
+    private final double maxFuel;
+    private final double thrustFuel;
+    private final double thrustProgress;
+    private final double observationFuel;
+    private final double observationStep;
+    private final double lowFuelFraction;
+
+    /**
+     * @param maxFuel         tank capacity (> 0)
+     * @param thrustFuel      percent of the capacity burnt per thrust (0-100)
+     * @param thrustProgress  distance gained per thrust (> 0)
+     * @param observationFuel percent of the capacity burnt per observation
+     *                        step (0-100)
+     * @param observationStep observation completion gained per step, in
+     *                        percent (> 0, at most 100)
+     * @param lowFuelFraction fraction of the capacity below which fuel
+     *                        counts as low (0-1); at 0 it never does, so
+     *                        missions have no emergencies
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public MissionParameters(double maxFuel, double thrustFuel, double thrustProgress,
+                             double observationFuel, double observationStep,
+                             double lowFuelFraction) {
+        if (!(maxFuel > 0) || maxFuel == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("maxFuel must be positive and finite: " + maxFuel);
+        }
+        if (!(thrustFuel >= 0 && thrustFuel <= 100)) {
+            throw new IllegalArgumentException("thrustFuel must be 0-100: " + thrustFuel);
+        }
+        if (!(thrustProgress > 0) || thrustProgress == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException(
+                "thrustProgress must be positive and finite: " + thrustProgress);
+        }
+        if (!(observationFuel >= 0 && observationFuel <= 100)) {
+            throw new IllegalArgumentException(
+                "observationFuel must be 0-100: " + observationFuel);
+        }
+        if (!(observationStep > 0 && observationStep <= 100)) {
+            throw new IllegalArgumentException(
+                "observationStep must be above 0 and at most 100: " + observationStep);
+        }
+        if (!(lowFuelFraction >= 0 && lowFuelFraction <= 1)) {
+            throw new IllegalArgumentException(
+                "lowFuelFraction must be 0-1: " + lowFuelFraction);
+        }
+        this.maxFuel = maxFuel;
+        this.thrustFuel = thrustFuel;
+        this.thrustProgress = thrustProgress;
+        this.observationFuel = observationFuel;
+        this.observationStep = observationStep;
+        this.lowFuelFraction = lowFuelFraction;
+    }
+
+    public MissionParameters withMaxFuel(double maxFuel) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    public MissionParameters withThrustFuel(double thrustFuel) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    public MissionParameters withThrustProgress(double thrustProgress) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    public MissionParameters withObservationFuel(double observationFuel) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    public MissionParameters withObservationStep(double observationStep) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    public MissionParameters withLowFuelFraction(double lowFuelFraction) {
+        return new MissionParameters(maxFuel, thrustFuel, thrustProgress,
+                                     observationFuel, observationStep, lowFuelFraction);
+    }
+
+    /** Tank capacity. */
+    public double getMaxFuel() { return maxFuel; }
+    /** Percent of the capacity burnt per thrust. */
+    public double getThrustFuel() { return thrustFuel; }
+    /** Distance gained per thrust. */
+    public double getThrustProgress() { return thrustProgress; }
+    /** Percent of the capacity burnt per observation step. */
+    public double getObservationFuel() { return observationFuel; }
+    /** Observation completion gained per step, in percent. */
+    public double getObservationStep() { return observationStep; }
+    /** Fraction of the capacity below which fuel counts as low. */
+    public double getLowFuelFraction() { return lowFuelFraction; }
+
+    /** A new tank of this capacity and low-fuel threshold, full. */
+    public FuelTank newFuelTank() {
+        return new FuelTank(maxFuel, lowFuelFraction);
+    }
+
+    /** A new engine, stopped, with these thrust costs. */
+    public Engine newEngine() {
+        return new Engine(thrustFuel, thrustProgress);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MissionParameters)) {
+            return false;
+        }
+        MissionParameters p = (MissionParameters) o;
+        return Double.compare(maxFuel, p.maxFuel) == 0
+               && Double.compare(thrustFuel, p.thrustFuel) == 0
+               && Double.compare(thrustProgress, p.thrustProgress) == 0
+               && Double.compare(observationFuel, p.observationFuel) == 0
+               && Double.compare(observationStep, p.observationStep) == 0
+               && Double.compare(lowFuelFraction, p.lowFuelFraction) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Double.hashCode(maxFuel);
+        h = 31 * h + Double.hashCode(thrustFuel);
+        h = 31 * h + Double.hashCode(thrustProgress);
+        h = 31 * h + Double.hashCode(observationFuel);
+        h = 31 * h + Double.hashCode(observationStep);
+        return 31 * h + Double.hashCode(lowFuelFraction);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "MissionParameters{maxFuel=%s, thrustFuel=%s%%, thrustProgress=%s, "
+            + "observationFuel=%s%%, observationStep=%s%%, lowFuelFraction=%s}",
+            maxFuel, thrustFuel, thrustProgress, observationFuel, observationStep,
+            lowFuelFraction);
+    }
+}
@@ -0,0 +1,85 @@
+// MissionRandom.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.Serializable;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Random source of a mission: the SplitMix64 generator of
+ * SplittableRandom, giving the same numbers and splits for the same
+ * seed, but Serializable so a MissionCheckpoint can carry its state.
+ *
+ * One instance belongs to one mission and is never shared, so drawing
+ * is a plain add and mix with no compare-and-set as in java.util.Random.
+ * split() derives an independent generator for another mission; a tree
+ * of splits from one seed reproduces every mission of a batch, whichever
+ * thread runs it.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionRandom implements RandomGenerator, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma;
+
+    /** Seeded like {@code new SplittableRandom(seed)}. */
+    public MissionRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /** Seeded from SplittableRandom's own seed source; not reproducible. */
+    public MissionRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    private MissionRandom(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * A new generator for another mission, as SplittableRandom.split()
+     * makes it; advances this one.
+     */
+    public MissionRandom split() {
+        return new MissionRandom(nextLong(), mixGamma(nextSeed()));
+    }
+
+    @Override
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    @Override
+    public int nextInt() {
+        return mix32(nextSeed());
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    /** An odd gamma with enough bit transitions, as SplittableRandom picks it. */
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
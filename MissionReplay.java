@@ -0,0 +1,416 @@
+// MissionReplay.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a MissionJournal back. replay() hands its events to any
+ * MissionListener in mission order, as the Orbiter did, so a listener
+ * can fold over them, e.g. a ConsoleMissionListener prints the text log
+ * afterwards. stateAt() rebuilds the mission as it stood after a number
+ * of events.
+ *
+ * The file is memory-mapped and checked once when opened; a journal cut
+ * short reads up to its last whole record. Each replay rebuilds its own
+ * destinations, so one MissionReplay may be replayed from several
+ * threads at once.
+ *
+ * Usage, printing the log or the state after the first n events:
+ *   java MissionReplay journal.orjn [n]
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionReplay {
+    private static final ShuttleState[] STATES = ShuttleState.values();
+
+    private final ByteBuffer buf;
+    private final int end;
+    private final long events;
+    private final int destinations;
+
+    private MissionReplay(ByteBuffer buf, int end, long events, int destinations) {
+        this.buf = buf;
+        this.end = end;
+        this.events = events;
+        this.destinations = destinations;
+    }
+
+    /**
+     * Maps a journal file and checks its records. The mapping stays
+     * valid after this returns.
+     *
+     * @param filename journal written by a MissionJournal
+     * @return the journal, ready to replay
+     * @throws IOException if the file is unreadable or not a mission journal
+     */
+    public static MissionReplay open(String filename) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                                                    StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Mission journal larger than 2 GB: " + filename);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buf = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.limit() < MissionJournal.HEADER_BYTES
+            || buf.getInt(0) != MissionJournal.MAGIC) {
+            throw new IOException("Not a mission journal: " + filename);
+        }
+        int version = buf.getInt(4);
+        if (version != MissionJournal.VERSION) {
+            throw new IOException("Unsupported mission journal version " + version);
+        }
+        int pos = MissionJournal.HEADER_BYTES;
+        long events = 0;
+        int destinations = 0;
+        while (pos < buf.limit()) {
+            byte type = buf.get(pos);
+            int length = length(buf, pos);
+            if (length < 0) {
+                throw new IOException("Corrupt mission journal: unknown record "
+                                      + type + " at byte " + pos);
+            }
+            if (pos + length > buf.limit()) {
+                break;  // cut short while writing
+            }
+            if (!valid(buf, pos, destinations)) {
+                throw new IOException("Corrupt mission journal: bad record at byte " + pos);
+            }
+            if (type == MissionJournal.DESTINATION) {
+                destinations++;
+            } else {
+                events++;
+            }
+            pos += length;
+        }
+        return new MissionReplay(buf, pos, events, destinations);
+    }
+
+    /** Bytes of the record at pos, as far as the buffer shows, or -1 if unknown. */
+    private static int length(ByteBuffer buf, int pos) {
+        switch (buf.get(pos)) {
+            case MissionJournal.LAUNCHED:             return 1;
+            case MissionJournal.MISSION_STARTED:      return 2;
+            case MissionJournal.STATE_CHANGED:        return 3;
+            case MissionJournal.MISSION_ENDED:        return 3;
+            case MissionJournal.LEG_STARTED:          return 5;
+            case MissionJournal.ARRIVAL:              return 5;
+            case MissionJournal.OBSERVATION_COMPLETE: return 5;
+            case MissionJournal.OBSERVATION_STARTED:  return 6;
+            case MissionJournal.REFUEL:               return 11;
+            case MissionJournal.EMERGENCY:            return 14;
+            case MissionJournal.OBSERVATION_STEP:     return 21;
+            case MissionJournal.THRUST:               return 25;
+            case MissionJournal.DESTINATION:
+                // the name's length follows the three values
+                return pos + 27 > buf.limit()
+                       ? 27 : 27 + Short.toUnsignedInt(buf.getShort(pos + 25));
+            default:                                  return -1;
+        }
+    }
+
+    /** True if the states and destination a whole record names exist. */
+    private static boolean valid(ByteBuffer buf, int pos, int destinations) {
+        switch (buf.get(pos)) {
+            case MissionJournal.MISSION_STARTED:
+                return state(buf.get(pos + 1));
+            case MissionJournal.STATE_CHANGED:
+                return state(buf.get(pos + 1)) && state(buf.get(pos + 2));
+            case MissionJournal.MISSION_ENDED:
+                return state(buf.get(pos + 2));
+            case MissionJournal.LEG_STARTED:
+            case MissionJournal.ARRIVAL:
+            case MissionJournal.OBSERVATION_COMPLETE:
+            case MissionJournal.OBSERVATION_STARTED:
+            case MissionJournal.EMERGENCY:
+            case MissionJournal.OBSERVATION_STEP:
+            case MissionJournal.THRUST:
+                return Integer.compareUnsigned(buf.getInt(pos + 1), destinations) < 0;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean state(byte ordinal) {
+        return ordinal >= 0 && ordinal < STATES.length;
+    }
+
+    /** Events in the journal. */
+    public long getEventCount() {
+        return events;
+    }
+
+    /** Destinations the events name. */
+    public int getDestinationCount() {
+        return destinations;
+    }
+
+    /**
+     * Hands every event to a listener.
+     *
+     * @param listener receives the events
+     * @return number of events replayed
+     */
+    public long replay(MissionListener listener) {
+        return replay(listener, Long.MAX_VALUE);
+    }
+
+    /**
+     * Hands the first events to a listener. The destinations passed are
+     * rebuilt from the journal, with the progress and observation
+     * completion they had at each event.
+     *
+     * @param listener  receives the events
+     * @param maxEvents most events replayed
+     * @return number of events replayed
+     */
+    public long replay(MissionListener listener, long maxEvents) {
+        List<Destination> dests = new ArrayList<>(destinations);
+        long replayed = 0;
+        int pos = MissionJournal.HEADER_BYTES;
+        while (pos < end && replayed < maxEvents) {
+            byte type = buf.get(pos);
+            if (type == MissionJournal.DESTINATION) {
+                byte[] name = new byte[Short.toUnsignedInt(buf.getShort(pos + 25))];
+                buf.get(pos + 27, name);
+                dests.add(new Destination(new String(name, StandardCharsets.UTF_8),
+                                          buf.getDouble(pos + 1), buf.getDouble(pos + 9),
+                                          buf.getDouble(pos + 17)));
+                pos += 27 + name.length;
+                continue;
+            }
+            switch (type) {
+                case MissionJournal.LAUNCHED:
+                    listener.launched();
+                    break;
+                case MissionJournal.MISSION_STARTED:
+                    listener.missionStarted(STATES[buf.get(pos + 1)]);
+                    break;
+                case MissionJournal.STATE_CHANGED:
+                    listener.stateChanged(STATES[buf.get(pos + 1)], STATES[buf.get(pos + 2)]);
+                    break;
+                case MissionJournal.LEG_STARTED:
+                    listener.legStarted(dests.get(buf.getInt(pos + 1)));
+                    break;
+                case MissionJournal.THRUST: {
+                    Destination d = dests.get(buf.getInt(pos + 1));
+                    double progress = buf.getDouble(pos + 9);
+                    d.updateProgress(progress);
+                    listener.thrust(d, buf.getInt(pos + 5), progress, buf.getDouble(pos + 17));
+                    break;
+                }
+                case MissionJournal.ARRIVAL:
+                    listener.arrival(dests.get(buf.getInt(pos + 1)));
+                    break;
+                case MissionJournal.OBSERVATION_STARTED:
+                    listener.observationStarted(dests.get(buf.getInt(pos + 1)),
+                                                buf.get(pos + 5) != 0);
+                    break;
+                case MissionJournal.OBSERVATION_STEP: {
+                    Destination d = dests.get(buf.getInt(pos + 1));
+                    d.updateObservation(buf.getDouble(pos + 5) - d.getObservationCompletion());
+                    listener.observationStep(d, buf.getDouble(pos + 13));
+                    break;
+                }
+                case MissionJournal.OBSERVATION_COMPLETE:
+                    listener.observationComplete(dests.get(buf.getInt(pos + 1)));
+                    break;
+                case MissionJournal.EMERGENCY:
+                    listener.emergency(dests.get(buf.getInt(pos + 1)), buf.get(pos + 5) != 0,
+                                       buf.getDouble(pos + 6));
+                    break;
+                case MissionJournal.REFUEL:
+                    listener.refuel(buf.get(pos + 1) != 0, buf.get(pos + 2) != 0,
+                                    buf.getDouble(pos + 3));
+                    break;
+                default: // MISSION_ENDED, the only other type open() lets through
+                    listener.missionEnded(buf.get(pos + 1) != 0, STATES[buf.get(pos + 2)]);
+                    break;
+            }
+            pos += length(buf, pos);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * The mission as it stood after its first events.
+     *
+     * @param events events replayed; 0 for before launch
+     * @return the rebuilt state
+     */
+    public Snapshot stateAt(long events) {
+        Snapshot snapshot = new Snapshot();
+        replay(snapshot, events);
+        return snapshot;
+    }
+
+    /** The mission as it stood after its last event. */
+    public Snapshot finalState() {
+        return stateAt(events);
+    }
+
+    /**
+     * State of a mission rebuilt from its events; being a listener, it
+     * can also follow a mission live.
+     */
+    public static final class Snapshot implements MissionListener {
+        private long events;
+        private ShuttleState state = ShuttleState.DOCKED;
+        private double progress;
+        private double fuel = Double.NaN;
+        private Destination target;
+        private int legs;
+        private long thrusts;
+        private int observations;
+        private double science;
+        private int emergencies;
+        private int refuels;
+        private boolean ended;
+        private boolean completed;
+
+        @Override
+        public void launched() {
+            events++;
+        }
+
+        @Override
+        public void missionStarted(ShuttleState initial) {
+            events++;
+            state = initial;
+        }
+
+        @Override
+        public void stateChanged(ShuttleState from, ShuttleState to) {
+            events++;
+            state = to;
+        }
+
+        @Override
+        public void legStarted(Destination target) {
+            events++;
+            this.target = target;
+            legs++;
+        }
+
+        @Override
+        public void thrust(Destination target, int thrusts,
+                           double progress, double fuel) {
+            events++;
+            this.thrusts += thrusts;
+            this.progress = progress;
+            this.fuel = fuel;
+        }
+
+        @Override
+        public void arrival(Destination target) {
+            events++;
+        }
+
+        @Override
+        public void observationStarted(Destination target, boolean resumed) {
+            events++;
+        }
+
+        @Override
+        public void observationStep(Destination target, double fuel) {
+            events++;
+            this.fuel = fuel;
+        }
+
+        @Override
+        public void observationComplete(Destination target) {
+            events++;
+            observations++;
+            science += target.getScientificValue();
+        }
+
+        @Override
+        public void emergency(Destination target, boolean duringObservation,
+                              double fuel) {
+            events++;
+            emergencies++;
+            this.fuel = fuel;
+        }
+
+        @Override
+        public void refuel(boolean emergency, boolean succeeded, double fuel) {
+            events++;
+            if (succeeded) {
+                refuels++;
+            }
+            this.fuel = fuel;
+        }
+
+        @Override
+        public void missionEnded(boolean complete, ShuttleState state) {
+            events++;
+            this.ended = true;
+            this.completed = complete;
+            this.state = state;
+        }
+
+        /** Events seen. */
+        public long getEvents() { return events; }
+        public ShuttleState getState() { return state; }
+        /** Shuttle's travelled distance after the last thrust. */
+        public double getProgress() { return progress; }
+        /** Fuel at the last event that reported it, or NaN before any. */
+        public double getFuel() { return fuel; }
+        /** Destination of the current leg, or null before the first. */
+        public Destination getTarget() { return target; }
+        public int getLegs() { return legs; }
+        public long getThrusts() { return thrusts; }
+        /** Observations completed. */
+        public int getObservations() { return observations; }
+        /** Scientific value of the completed observations. */
+        public double getScience() { return science; }
+        public int getEmergencies() { return emergencies; }
+        /** Refuels that took fuel on, docked or in an emergency. */
+        public int getRefuels() { return refuels; }
+        public boolean isEnded() { return ended; }
+        /** True if the mission ended with every destination reached. */
+        public boolean isCompleted() { return completed; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Snapshot{events=%d, state=%s, progress=%.2f, fuel=%.2f, target=%s, "
+                + "legs=%d, thrusts=%d, observations=%d, science=%.2f, emergencies=%d, "
+                + "refuels=%d, ended=%b, completed=%b}",
+                events, state, progress, fuel, target == null ? null : target.getName(),
+                legs, thrusts, observations, science, emergencies, refuels, ended, completed);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java MissionReplay journal.orjn [events]");
+            return;
+        }
+        MissionReplay journal;
+        try {
+            journal = MissionReplay.open(args[0]);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        if (args.length > 1) {
+            System.out.println(journal.stateAt(Long.parseLong(args[1])));
+        } else {
+            journal.replay(new ConsoleMissionListener());
+            System.out.println(journal.finalState());
+        }
+    }
+}
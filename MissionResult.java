@@ -0,0 +1,152 @@
+// MissionResult.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Outcome of one whole mission: how it ended, where, with how much
+ * fuel, and what it observed. Immutable, so a MissionCache can hand the
+ * same result to every caller asking the same question.
+ *
+ * @author Nihat Masimli
+ */
+public final class MissionResult {
+    private final boolean completed;
+    private final ShuttleState state;
+    private final double fuel;
+    private final double progress;
+    private final double science;
+    private final int observations;
+    private final int legs;
+    private final int emergencies;
+
+    MissionResult(boolean completed, ShuttleState state, double fuel, double progress,
+                  double science, int observations, int legs, int emergencies) {
+        this.completed = completed;
+        this.state = state;
+        this.fuel = fuel;
+        this.progress = progress;
+        this.science = science;
+        this.observations = observations;
+        this.legs = legs;
+        this.emergencies = emergencies;
+    }
+
+    /**
+     * Flies one mission over a catalog from Earth, with event-driven
+     * cruise and no output.
+     *
+     * @param catalog shared catalog, only read
+     * @param mode    navigation mode
+     * @param maxFuel fuel capacity
+     * @param seed    seed of the mission's MissionRandom
+     * @return the outcome
+     */
+    public static MissionResult fly(BinaryCatalog catalog, NavigationMode mode,
+                                    double maxFuel, long seed) {
+        return fly(catalog, mode, MissionParameters.DEFAULT.withMaxFuel(maxFuel), seed);
+    }
+
+    /**
+     * Flies one mission over a catalog from Earth, with event-driven
+     * cruise, no output and the given capacity and costs.
+     *
+     * @param catalog    shared catalog, only read
+     * @param mode       navigation mode
+     * @param parameters capacity, fuel costs and low-fuel threshold
+     * @param seed       seed of the mission's MissionRandom
+     * @return the outcome
+     */
+    public static MissionResult fly(BinaryCatalog catalog, NavigationMode mode,
+                                    MissionParameters parameters, long seed) {
+        SpaceShuttle shuttle = new SpaceShuttle(parameters);
+        shuttle.setNavigationMode(mode);
+        shuttle.getNavigationSystem().addCatalog(catalog);
+        Orbiter orbiter = new Orbiter(shuttle, new MissionRandom(seed));
+        Outcome outcome = new Outcome();
+        orbiter.setListener(outcome);
+        orbiter.setEventDrivenCruise(true);
+        orbiter.startCourse();
+        return new MissionResult(outcome.completed, orbiter.getState(),
+                                 shuttle.getFuelTank().getCurrentFuel(),
+                                 shuttle.getProgress(), outcome.science,
+                                 outcome.observations, outcome.legs,
+                                 outcome.emergencies);
+    }
+
+    /** Counts what a mission did as it flies. */
+    private static final class Outcome implements MissionListener {
+        boolean completed;
+        double science;
+        int observations;
+        int legs;
+        int emergencies;
+
+        @Override
+        public void legStarted(Destination target) {
+            legs++;
+        }
+
+        @Override
+        public void observationComplete(Destination target) {
+            observations++;
+            science += target.getScientificValue();
+        }
+
+        @Override
+        public void emergency(Destination target, boolean duringObservation, double fuel) {
+            emergencies++;
+        }
+
+        @Override
+        public void missionEnded(boolean complete, ShuttleState state) {
+            completed = complete;
+        }
+    }
+
+    /** True if every destination was visited. */
+    public boolean isCompleted() { return completed; }
+    public ShuttleState getState() { return state; }
+    /** Fuel left in the tank. */
+    public double getFuel() { return fuel; }
+    public double getProgress() { return progress; }
+    /** Scientific value of the completed observations. */
+    public double getScience() { return science; }
+    public int getObservations() { return observations; }
+    public int getLegs() { return legs; }
+    public int getEmergencies() { return emergencies; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof MissionResult)) {
+            return false;
+        }
+        MissionResult r = (MissionResult) o;
+        return completed == r.completed && state == r.state
+               && Double.compare(fuel, r.fuel) == 0
+               && Double.compare(progress, r.progress) == 0
+               && Double.compare(science, r.science) == 0
+               && observations == r.observations && legs == r.legs
+               && emergencies == r.emergencies;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = Boolean.hashCode(completed);
+        h = 31 * h + state.ordinal();
+        h = 31 * h + Double.hashCode(fuel);
+        h = 31 * h + Double.hashCode(progress);
+        h = 31 * h + Double.hashCode(science);
+        h = 31 * h + observations;
+        h = 31 * h + legs;
+        return 31 * h + emergencies;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "MissionResult{completed=%b, state=%s, fuel=%.2f, progress=%.2f, "
+            + "science=%.2f, observations=%d, legs=%d, emergencies=%d}",
+            completed, state, fuel, progress, science, observations, legs, emergencies);
+    }
+}
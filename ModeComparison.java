@@ -0,0 +1,249 @@
+// ModeComparison.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Flies the same catalog under every navigation mode, and any custom
+ * strategies, side by side, to choose a mode for it in one run.
+ *
+ * The destinations are laid out once as a BinaryCatalog that every
+ * mission navigates without writing, as in FleetRunner. Every mission
+ * of every candidate is a task on a work-stealing pool with its own
+ * shuttle and index. Mission i of each candidate draws from the same
+ * MissionRandom seed, so the candidates meet the same refuel outcomes
+ * and differ only by the route they choose.
+ *
+ * Usage:
+ *   java ModeComparison destinations.txt [missions] [seed]
+ *
+ * @author Nihat Masimli
+ */
+public class ModeComparison {
+    private final BinaryCatalog catalog;
+    private final double maxFuel;
+    private final Map<String, Consumer<NavigationSystem>> candidates = new LinkedHashMap<>();
+
+    /**
+     * Compares every NavigationMode.
+     *
+     * @param catalog destinations every mission starts from (copied once
+     *                into a shared catalog)
+     * @param maxFuel maximum fuel capacity of each shuttle
+     * @throws IOException if the catalog would exceed 2 GB
+     */
+    public ModeComparison(List<Destination> catalog, double maxFuel) throws IOException {
+        this(BinaryCatalog.of(catalog), maxFuel);
+    }
+
+    /**
+     * Compares every NavigationMode.
+     *
+     * @param catalog shared catalog every mission starts from
+     * @param maxFuel maximum fuel capacity of each shuttle
+     */
+    public ModeComparison(BinaryCatalog catalog, double maxFuel) {
+        this.catalog = catalog;
+        this.maxFuel = maxFuel;
+        for (NavigationMode mode : NavigationMode.values()) {
+            candidates.put(mode.name(), navigation -> navigation.setMode(mode));
+        }
+    }
+
+    /**
+     * Adds a custom strategy to the comparison. Parallel missions share
+     * it, so it must not keep state between calls.
+     *
+     * @param name     row name in the table
+     * @param strategy chooses the next destination
+     * @return this comparison
+     */
+    public ModeComparison addStrategy(String name, NavigationStrategy strategy) {
+        candidates.put(name, navigation -> navigation.setStrategy(strategy));
+        return this;
+    }
+
+    /**
+     * Runs the comparison on a new work-stealing pool with one worker
+     * per core.
+     *
+     * @param missions missions flown by each candidate
+     * @param seed     root seed; equal seeds give equal tables
+     * @return one row per candidate, modes first
+     */
+    public List<Row> run(int missions, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return run(missions, seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the comparison on the given pool.
+     *
+     * @param missions missions flown by each candidate
+     * @param seed     root seed; equal seeds give equal tables
+     * @param pool     pool flying the missions
+     * @return one row per candidate, modes first
+     */
+    public List<Row> run(int missions, long seed, ForkJoinPool pool) {
+        if (missions < 1) {
+            throw new IllegalArgumentException("missions must be >= 1");
+        }
+        MissionRandom root = new MissionRandom(seed);
+        long[] seeds = new long[missions];
+        for (int i = 0; i < missions; i++) {
+            seeds[i] = root.nextLong();
+        }
+        List<Tally> tallies = new ArrayList<>();
+        List<ForkJoinTask<?>> flights = new ArrayList<>();
+        for (Map.Entry<String, Consumer<NavigationSystem>> c : candidates.entrySet()) {
+            Tally tally = new Tally(c.getKey());
+            tallies.add(tally);
+            for (long s : seeds) {
+                flights.add(pool.submit(() -> fly(c.getValue(), s, tally)));
+            }
+        }
+        for (ForkJoinTask<?> flight : flights) {
+            flight.join();
+        }
+        List<Row> rows = new ArrayList<>();
+        for (Tally t : tallies) {
+            MissionMetrics m = t.metrics;
+            rows.add(new Row(t.name, missions, m.getMissionsCompleted(),
+                             m.getLegs() / (double) missions,
+                             m.getFuelUsedPercent() / missions,
+                             (m.getCruiseEmergencies() + m.getOrbitEmergencies())
+                                 / (double) missions,
+                             t.science.sum() / missions,
+                             t.nanos.sum() / 1e6 / missions));
+        }
+        return rows;
+    }
+
+    /** Flies one mission of a candidate, adding its outcome to the tally. */
+    private void fly(Consumer<NavigationSystem> navigate, long seed, Tally tally) {
+        long start = System.nanoTime();
+        SpaceShuttle shuttle = new SpaceShuttle(maxFuel);
+        navigate.accept(shuttle.getNavigationSystem());
+        shuttle.getNavigationSystem().addCatalog(catalog);
+        Orbiter orbiter = new Orbiter(shuttle, new MissionRandom(seed));
+        orbiter.setListener(new MissionListener() {
+            @Override
+            public void observationComplete(Destination target) {
+                tally.science.add(target.getScientificValue());
+            }
+        });
+        orbiter.setMetrics(tally.metrics);
+        orbiter.setEventDrivenCruise(true);
+        orbiter.startCourse();
+        tally.nanos.add(System.nanoTime() - start);
+    }
+
+    /** What the missions of one candidate added up to. */
+    private static final class Tally {
+        final String name;
+        final MissionMetrics metrics = new MissionMetrics();
+        final DoubleAdder science = new DoubleAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Tally(String name) {
+            this.name = name;
+        }
+    }
+
+    /** Outcome of one candidate, averaged per mission. */
+    public static final class Row {
+        private final String name;
+        private final int missions;
+        private final long completed;
+        private final double legs;
+        private final double fuelUsedPercent;
+        private final double emergencies;
+        private final double science;
+        private final double millis;
+
+        Row(String name, int missions, long completed, double legs,
+            double fuelUsedPercent, double emergencies, double science, double millis) {
+            this.name = name;
+            this.missions = missions;
+            this.completed = completed;
+            this.legs = legs;
+            this.fuelUsedPercent = fuelUsedPercent;
+            this.emergencies = emergencies;
+            this.science = science;
+            this.millis = millis;
+        }
+
+        /** Mode or strategy name. */
+        public String getName() { return name; }
+        public int getMissions() { return missions; }
+        public long getCompleted() { return completed; }
+        public double getLegs() { return legs; }
+        /** Fuel burnt per mission, in percent of one tank. */
+        public double getFuelUsedPercent() { return fuelUsedPercent; }
+        public double getEmergencies() { return emergencies; }
+        /** Scientific value of the completed observations per mission. */
+        public double getScience() { return science; }
+        /** Wall time per mission, including the time spent waiting for a worker. */
+        public double getMillis() { return millis; }
+
+        @Override
+        public String toString() {
+            return String.format("%-12s %5d/%-5d %8.1f %9.1f %11.2f %10.1f %10.2f",
+                                 name, completed, missions, legs, fuelUsedPercent,
+                                 emergencies, science, millis);
+        }
+    }
+
+    /**
+     * Formats rows as a table with a header line.
+     *
+     * @param rows rows of run()
+     * @return the table, one line per row
+     */
+    public static String table(List<Row> rows) {
+        StringBuilder sb = new StringBuilder(String.format(
+            "%-12s %11s %8s %9s %11s %10s %10s%n", "Mode", "Complete",
+            "Legs", "Fuel %", "Emergencies", "Science", "ms/mission"));
+        for (Row row : rows) {
+            sb.append(row).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+              "Usage: java ModeComparison destinations.txt [missions] [seed]"
+            );
+            return;
+        }
+        int missions = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        ModeComparison comparison;
+        try {
+            comparison = BinaryCatalog.isCatalog(args[0])
+                ? new ModeComparison(BinaryCatalog.open(args[0]), 1000.0)
+                : new ModeComparison(DestinationFileLoader.load(args[0]), 1000.0);
+        } catch (IOException e) {
+            System.err.println("Failed to load " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        System.out.print(table(comparison.run(missions, seed)));
+        System.out.printf("Flew %d missions per mode (seed %d)%n", missions, seed);
+    }
+}
@@ -0,0 +1,116 @@
+// MonteCarloReport.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Aggregated outcome of a batch of missions run by MonteCarloRunner:
+ * success rate, final states, and fuel/progress percentiles.
+ *
+ * @author Nihat Masimli
+ */
+public class MonteCarloReport {
+    private final int missions;
+    private final int completed;
+    private final Map<ShuttleState, Integer> finalStates;
+    private final Map<ShuttleState, Integer> aborts;
+    private final double[] sortedFuel;
+    private final double[] sortedProgress;
+
+    /**
+     * @param completed per-mission flag, true if all destinations were reached
+     * @param states    per-mission final shuttle state
+     * @param fuel      per-mission fuel left (sorted in place)
+     * @param progress  per-mission distance travelled (sorted in place)
+     */
+    MonteCarloReport(boolean[] completed, ShuttleState[] states,
+                     double[] fuel, double[] progress) {
+        this.missions = completed.length;
+        Map<ShuttleState, Integer> finals = new EnumMap<>(ShuttleState.class);
+        Map<ShuttleState, Integer> aborted = new EnumMap<>(ShuttleState.class);
+        int done = 0;
+        for (int i = 0; i < missions; i++) {
+            finals.merge(states[i], 1, Integer::sum);
+            if (completed[i]) {
+                done++;
+            } else {
+                aborted.merge(states[i], 1, Integer::sum);
+            }
+        }
+        this.completed = done;
+        this.finalStates = Collections.unmodifiableMap(finals);
+        this.aborts = Collections.unmodifiableMap(aborted);
+        Arrays.parallelSort(fuel);
+        Arrays.parallelSort(progress);
+        this.sortedFuel = fuel;
+        this.sortedProgress = progress;
+    }
+
+    public int getMissions() { return missions; }
+    public int getCompleted() { return completed; }
+
+    /** Fraction of missions that reached every destination. */
+    public double getSuccessRate() {
+        return missions == 0 ? 0.0 : (double) completed / missions;
+    }
+
+    /** Number of missions ending in each state. */
+    public Map<ShuttleState, Integer> getFinalStates() { return finalStates; }
+
+    /** Number of unfinished missions by the state they stopped in. */
+    public Map<ShuttleState, Integer> getAborts() { return aborts; }
+
+    /**
+     * Fuel left at the end of a mission, by percentile.
+     *
+     * @param percentile 0-100
+     * @return fuel level, or NaN if no missions ran
+     */
+    public double fuelPercentile(double percentile) {
+        return percentile(sortedFuel, percentile);
+    }
+
+    /**
+     * Distance travelled by the end of a mission, by percentile.
+     *
+     * @param percentile 0-100
+     * @return progress, or NaN if no missions ran
+     */
+    public double progressPercentile(double percentile) {
+        return percentile(sortedProgress, percentile);
+    }
+
+    /** Nearest-rank percentile of a sorted array. */
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(Math.max(rank - 1, 0), sorted.length - 1)];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Missions: %d, completed: %d (%.2f%%)%n",
+                                missions, completed, 100.0 * getSuccessRate()));
+        sb.append("Final states: ").append(finalStates).append(System.lineSeparator());
+        sb.append("Aborts by state: ").append(aborts).append(System.lineSeparator());
+        sb.append(String.format("%-10s %10s %10s %10s %10s %10s%n",
+                                "", "p0", "p10", "p50", "p90", "p100"));
+        sb.append(row("Fuel", sortedFuel));
+        sb.append(row("Progress", sortedProgress));
+        return sb.toString();
+    }
+
+    private static String row(String label, double[] sorted) {
+        return String.format("%-10s %10.2f %10.2f %10.2f %10.2f %10.2f%n", label,
+                             percentile(sorted, 0), percentile(sorted, 10),
+                             percentile(sorted, 50), percentile(sorted, 90),
+                             percentile(sorted, 100));
+    }
+}
@@ -0,0 +1,176 @@
+// MonteCarloRunner.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many independent missions over the same destinations and
+ * navigation mode, in parallel on a fork-join pool.
+ *
+ * The destinations are laid out once as a read-only BinaryCatalog that
+ * every mission shares. A mission gets its own SpaceShuttle, whose
+ * CatalogIndex keeps the mission's progress and observations in a small
+ * overlay, and its own MissionRandom split from the seed. The
+ * splits follow the fixed shape of the task tree, so a given seed
+ * reproduces the same report however the work is scheduled.
+ *
+ * Usage:
+ *   java MonteCarloRunner destinations.txt [mode] [missions] [seed]
+ *
+ * @author Nihat Masimli
+ */
+public class MonteCarloRunner {
+    private static final int MISSIONS_PER_TASK = 256;
+
+    private final BinaryCatalog catalog;
+    private final NavigationMode mode;
+    private final double maxFuel;
+
+    /**
+     * @param catalog destinations every mission starts from (copied once
+     *                into a shared catalog)
+     * @param mode    navigation mode used by every mission
+     * @param maxFuel maximum fuel capacity of each shuttle
+     * @throws UncheckedIOException if the catalog would exceed 2 GB
+     */
+    public MonteCarloRunner(List<Destination> catalog, NavigationMode mode,
+                            double maxFuel) {
+        try {
+            this.catalog = BinaryCatalog.of(catalog);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.mode = mode;
+        this.maxFuel = maxFuel;
+    }
+
+    /**
+     * Runs the missions on the common fork-join pool.
+     *
+     * @param missions number of independent missions
+     * @param seed     root seed; equal seeds give equal reports
+     * @return aggregated outcome of all missions
+     */
+    public MonteCarloReport run(int missions, long seed) {
+        return run(missions, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the missions on the given pool.
+     *
+     * @param missions number of independent missions
+     * @param seed     root seed; equal seeds give equal reports
+     * @param pool     pool executing the missions
+     * @return aggregated outcome of all missions
+     */
+    public MonteCarloReport run(int missions, long seed, ForkJoinPool pool) {
+        if (missions < 0) {
+            throw new IllegalArgumentException("missions must be >= 0");
+        }
+        Outcomes outcomes = new Outcomes(missions);
+        pool.invoke(new MissionTask(outcomes, 0, missions,
+                                    new MissionRandom(seed)));
+        return new MonteCarloReport(outcomes.completed, outcomes.states,
+                                    outcomes.fuel, outcomes.progress);
+    }
+
+    /** Flies one mission on a fresh shuttle and records its outcome. */
+    private void runMission(Outcomes outcomes, int i, MissionRandom random) {
+        SpaceShuttle shuttle = new SpaceShuttle(maxFuel);
+        shuttle.setNavigationMode(mode);
+        shuttle.getNavigationSystem().addCatalog(catalog);
+        Orbiter orbiter = new Orbiter(shuttle, random);
+        orbiter.setListener(NoOpMissionListener.INSTANCE);
+        orbiter.setEventDrivenCruise(true);
+        orbiter.startCourse();
+
+        outcomes.completed[i] = orbiter.isMissionComplete();
+        outcomes.states[i] = orbiter.getState();
+        outcomes.fuel[i] = shuttle.getFuelTank().getCurrentFuel();
+        outcomes.progress[i] = shuttle.getProgress();
+    }
+
+    /** Per-mission results; each task writes only its own index range. */
+    private static final class Outcomes {
+        final boolean[] completed;
+        final ShuttleState[] states;
+        final double[] fuel;
+        final double[] progress;
+
+        Outcomes(int missions) {
+            this.completed = new boolean[missions];
+            this.states = new ShuttleState[missions];
+            this.fuel = new double[missions];
+            this.progress = new double[missions];
+        }
+    }
+
+    /** Splits the mission range and its random source in halves. */
+    private final class MissionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Outcomes outcomes;
+        private final int from;
+        private final int to;
+        private final MissionRandom random;
+
+        MissionTask(Outcomes outcomes, int from, int to, MissionRandom random) {
+            this.outcomes = outcomes;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MISSIONS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    runMission(outcomes, i, random.split());
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MissionTask(outcomes, from, mid, random.split()),
+                      new MissionTask(outcomes, mid, to, random));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+              "Usage: java MonteCarloRunner destinations.txt [mode] [missions] [seed]"
+            );
+            return;
+        }
+        SpaceShuttle loader = new SpaceShuttle(1000.0);
+        try {
+            loader.loadDestinationFromFile(args[0]);
+        } catch (IOException e) {
+            System.err.println("Failed to load " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        NavigationMode mode = NavigationMode.STANDARD;
+        if (args.length > 1) {
+            try {
+                mode = NavigationMode.valueOf(args[1].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown mode '" + args[1] + "'. Using STANDARD.");
+            }
+        }
+        int missions = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+
+        MonteCarloRunner runner = new MonteCarloRunner(
+            loader.getNavigationSystem().getDestinations(), mode, 1000.0);
+        long start = System.nanoTime();
+        MonteCarloReport report = runner.run(missions, seed);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println(report);
+        System.out.printf("Ran %d missions in %d ms (seed %d)%n", missions, millis, seed);
+    }
+}
@@ -9,5 +9,7 @@
 public enum NavigationMode {
     STANDARD,
     EFFICIENT,
-    EXPLORATION
+    EXPLORATION,
+    /** Plans the whole route; see RoutePlanner. */
+    OPTIMAL
 }
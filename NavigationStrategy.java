@@ -1,11 +1,14 @@
 /**
  * @author Nihat Masimli
  */
+import java.util.ArrayList;
 import java.util.List;
 
 
 /**
- * Strategy for selecting the next destination.
+ * Strategy for selecting the next destination. Strategies only read the
+ * destinations, so one catalog can be shared by many missions; the
+ * index refreshes the progress of the destination chosen.
  */
 public interface NavigationStrategy {
     /**
@@ -16,4 +19,98 @@ public interface NavigationStrategy {
      * @return the chosen Destination, or null if none remain
      */
     Destination selectNext(List<Destination> destinations, double currentProgress);
+
+    /**
+     * Chooses the next destination among the rows of a column store.
+     * This default runs the list version over the row views; the
+     * built-in strategies scan the primitive columns instead.
+     *
+     * @param store           remaining destinations as columns
+     * @param currentProgress shuttle's current travelled distance
+     * @return id of the chosen row, or -1 if none remain
+     */
+    default int selectNext(DestinationStore store, double currentProgress) {
+        Destination best = selectNext(store.views(), currentProgress);
+        return best == null ? -1 : store.idOf(best);
+    }
+
+    /**
+     * Whether this strategy scores destinations, so that topK() can rank
+     * them in one pass. The built-in strategies all do; a strategy
+     * overriding score() should return true here as well.
+     *
+     * @return true if score() is implemented
+     */
+    default boolean scores() {
+        return false;
+    }
+
+    /**
+     * How good a destination is as the next one, lower being better;
+     * selectNext picks the first destination with the lowest score.
+     * Only called when scores() is true.
+     *
+     * @param destination     a remaining destination
+     * @param currentProgress shuttle's current travelled distance
+     * @return the score, or NaN if the destination cannot be chosen
+     * @throws UnsupportedOperationException if this strategy does not score
+     */
+    default double score(Destination destination, double currentProgress) {
+        throw new UnsupportedOperationException(
+            getClass().getSimpleName() + " does not score destinations");
+    }
+
+    /**
+     * The k best destinations, the first one being the one selectNext
+     * picks. Scores are kept in a bounded heap, ties in list order:
+     * O(n log k) for n destinations. A strategy that does not score is
+     * asked k times instead, without the destinations it already
+     * chose: O(k n).
+     *
+     * @param destinations    remaining destinations
+     * @param k               most candidates returned
+     * @param currentProgress shuttle's current travelled distance
+     * @return up to k destinations, best first
+     */
+    default List<Destination> topK(List<Destination> destinations, int k,
+                                   double currentProgress) {
+        if (!scores()) {
+            List<Destination> left = new ArrayList<>(destinations);
+            List<Destination> ranked = new ArrayList<>();
+            while (ranked.size() < k) {
+                Destination best = selectNext(left, currentProgress);
+                if (best == null) {
+                    break;
+                }
+                ranked.add(best);
+                left.remove(best);
+            }
+            return ranked;
+        }
+        CandidateHeap heap = new CandidateHeap(k);
+        long order = 0;
+        for (Destination d : destinations) {
+            heap.offer(d, score(d, currentProgress), order++);
+        }
+        return heap.ranked();
+    }
+
+    /**
+     * The built-in strategy choosing as a mode's index does; OPTIMAL
+     * ranks as STANDARD, its index before any route plan.
+     *
+     * @param mode navigation mode
+     * @return a new strategy for that mode
+     */
+    static NavigationStrategy forMode(NavigationMode mode) {
+        switch (mode) {
+            case EFFICIENT:
+                return new EfficientNavigationStrategy();
+            case EXPLORATION:
+                return new ExplorationNavigationStrategy();
+            case STANDARD:
+            default:
+                return new StandardNavigationStrategy();
+        }
+    }
 }
@@ -2,49 +2,217 @@
 /**
  * @author Nihat Masimli
  */
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Maintains a list of destinations and applies a navigation strategy.
+ * Maintains the destinations in an index ordered for the current
+ * navigation mode, so choosing the next one and dropping reached ones
+ * take logarithmic time instead of a scan over the whole list.
  * Default mode is STANDARD.
  * 
  * @author Nihat Masimli DNGKKG
  */
 public class NavigationSystem {
-    private final List<Destination> destinations;
+    private NavigationMode mode;
+    private DestinationIndex index;
     private NavigationStrategy strategy;
+    private boolean columnStore;
+    private boolean spatial;
+    private RoutePlanner planner = new RoutePlanner();
+    private FuelTank fuelTank;
+    private MissionParameters parameters = MissionParameters.DEFAULT;
 
     /**
-     * Starts with an empty list and standard strategy.
+     * Starts with an empty index and standard mode.
      */
     public NavigationSystem() {
-        this.destinations = new ArrayList<>();
-        this.strategy = new StandardNavigationStrategy();
+        this.mode = NavigationMode.STANDARD;
+        this.index = DestinationIndex.forMode(mode);
     }
 
     /**
-     * Sets the navigation mode, switching strategy.
+     * Sets the navigation mode, re-indexing the destinations for it.
+     * Replaces a custom strategy.
      *
      * @param mode chosen NavigationMode
      */
     public void setMode(NavigationMode mode) {
-        switch (mode) {
-            case STANDARD:
-                this.strategy = new StandardNavigationStrategy();
-                break;
-            case EFFICIENT:
-                this.strategy = new EfficientNavigationStrategy();
-                break;
-            case EXPLORATION:
-                this.strategy = new ExplorationNavigationStrategy();
-                break;
+        if (mode == this.mode && strategy == null) {
+            return;
         }
+        this.mode = mode;
+        this.strategy = null;
+        // OPTIMAL plans over, and ranks as, an index in STANDARD order
+        this.index = planned(index.reindex(mode));
+    }
+
+    /**
+     * Navigates with a custom strategy instead of the mode's index; each
+     * selection then scans the remaining destinations. Not available
+     * with a column store, and not kept by a MissionCheckpoint.
+     *
+     * @param strategy chooses the next destination
+     * @throws IllegalStateException if a column store or spatial index is in use
+     */
+    public void setStrategy(NavigationStrategy strategy) {
+        if (columnStore || spatial) {
+            throw new IllegalStateException("a custom strategy needs the list index");
+        }
+        this.strategy = strategy;
+        this.index = new StrategyIndex(strategy, index.destinations());
+    }
+
+    /**
+     * Navigates with a strategy whose selections are split over the
+     * common fork-join pool once at least {@code threshold} destinations
+     * remain; see ParallelNavigationStrategy for which strategies give
+     * the same choices that way.
+     *
+     * @param strategy  chooses the first best destination
+     * @param threshold fewest destinations selected in parallel
+     * @throws IllegalStateException if a column store or spatial index is in use
+     */
+    public void setParallelStrategy(NavigationStrategy strategy, int threshold) {
+        setStrategy(new ParallelNavigationStrategy(strategy, threshold,
+                                                   ForkJoinPool.commonPool()));
+    }
+
+    /** The custom strategy set by setStrategy(), or null. */
+    public NavigationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /** Puts a route plan over the index if the mode is OPTIMAL. */
+    private DestinationIndex planned(DestinationIndex destinations) {
+        return mode == NavigationMode.OPTIMAL && !spatial
+               ? new RouteIndex(destinations, planner, fuelTank, parameters)
+               : destinations;
+    }
+
+    /**
+     * Sets the planner used by OPTIMAL mode; takes effect the next time
+     * that mode is chosen.
+     *
+     * @param planner route planner
+     */
+    public void setRoutePlanner(RoutePlanner planner) {
+        this.planner = planner;
+    }
+
+    /**
+     * Lets OPTIMAL mode plan with the fuel actually left in this tank
+     * instead of a full one.
+     *
+     * @param fuelTank the shuttle's tank
+     */
+    public void setFuelTank(FuelTank fuelTank) {
+        this.fuelTank = fuelTank;
+    }
+
+    /**
+     * Lets OPTIMAL mode plan with the costs of the mission being flown
+     * instead of the default ones; takes effect the next time that mode
+     * is chosen.
+     *
+     * @param parameters the shuttle's mission parameters
+     */
+    public void setMissionParameters(MissionParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    /**
+     * The route OPTIMAL mode is following, planned now if needed.
+     *
+     * @param currProgress shuttle's current travelled distance
+     * @return the plan, or null in any other mode
+     */
+    public RoutePlan getRoutePlan(double currProgress) {
+        return index instanceof RouteIndex ? ((RouteIndex) index).plan(currProgress) : null;
+    }
+
+    /**
+     * Keeps the destinations in primitive columns instead of ordered
+     * trees. Uses less memory per destination; selections scan the
+     * columns until a long mission makes sorting them worthwhile, and
+     * then stay incremental from leg to leg.
+     * Destinations already added are copied over; from then on the
+     * system hands out views of their rows.
+     *
+     * @throws IllegalStateException if a custom strategy or the spatial
+     *                               index is in use
+     */
+    public void useColumnStore() {
+        if (columnStore) {
+            return;
+        }
+        if (strategy != null || spatial) {
+            throw new IllegalStateException("the column store needs the mode's index");
+        }
+        DestinationIndex columns = new ColumnDestinationIndex(mode);
+        columns.addAll(index.destinations());
+        this.index = planned(columns);
+        this.columnStore = true;
+    }
+
+    /** True once useColumnStore() has been called. */
+    public boolean usesColumnStore() {
+        return columnStore;
+    }
+
+    /**
+     * Navigates in three dimensions: each leg flies straight from the
+     * shuttle's position to the destination chosen by a k-d tree, the
+     * nearest one in STANDARD mode. Plain destinations are put on the x
+     * axis; add SpatialDestinations to use real positions. OPTIMAL mode
+     * picks as STANDARD, and a spatial mission is not checkpointed.
+     *
+     * @throws IllegalStateException if a column store or custom strategy
+     *                               is in use
+     */
+    public void useSpatialIndex() {
+        if (spatial) {
+            return;
+        }
+        if (columnStore || strategy != null) {
+            throw new IllegalStateException("the spatial index replaces the mode's index");
+        }
+        this.spatial = true;
+        this.index = new SpatialIndex(mode, index.destinations());
+    }
+
+    /** True once useSpatialIndex() has been called. */
+    public boolean usesSpatialIndex() {
+        return spatial;
     }
 
     /** Add a new destination. */
     public void addDestination(Destination dest) {
-        destinations.add(dest);
+        index.add(dest);
+    }
+
+    /**
+     * Add many destinations at once, in list order.
+     *
+     * @param dests destinations to add
+     */
+    public void addDestinations(List<Destination> dests) {
+        index.addAll(dests);
+    }
+
+    /**
+     * Adds every destination of a binary catalog. Into an empty system
+     * with the mode's own index the catalog is navigated in place,
+     * without copying its records.
+     *
+     * @param catalog mapped catalog
+     */
+    public void addCatalog(BinaryCatalog catalog) {
+        if (index.isEmpty() && !columnStore && strategy == null && !spatial) {
+            index = planned(new CatalogIndex(catalog, mode));
+        } else {
+            index.addAll(catalog.toDestinations());
+        }
     }
 
     /**
@@ -53,32 +221,68 @@ public class NavigationSystem {
      * @param currProgress shuttle's current progress
      */
     public void removeReachedDestinations(double currProgress) {
-        for (Destination d : destinations) {
-            d.updateProgress(currProgress);
-        }
-        destinations.removeIf(Destination::isReached);
+        index.removeReached(currProgress);
     }
 
     /**
-     * Chooses the next destination by delegating to the current strategy.
+     * Chooses the next destination from the index of the current mode.
      *
      * @param currProgress shuttle's current travelled distance
      * @return next Destination, or null if none
      */
     public Destination getNextDestination(double currProgress) {
-        return strategy.selectNext(destinations, currProgress);
+        return index.next(currProgress);
+    }
+
+    /**
+     * Ranks the candidates for the next destination without choosing
+     * one: the first is what getNextDestination would return, then the
+     * next best by the same criterion. OPTIMAL mode ranks as STANDARD,
+     * whatever its route plan would choose.
+     * Costs O(n log k) at most; nearest or most valuable first take
+     * O(k log n) with the mode's own index, and the spatial index prunes
+     * its tree as it does to choose. A custom strategy whose scores()
+     * is false is asked k times: O(k n).
+     *
+     * @param k            most candidates returned
+     * @param currProgress shuttle's current travelled distance
+     * @return up to k destinations, best first
+     */
+    public List<Destination> topK(int k, double currProgress) {
+        return index.topK(k, currProgress);
+    }
+
+    /** Remaining destinations in the order they were added. */
+    public List<Destination> getDestinations() {
+        return index.destinations();
+    }
+
+    /**
+     * Remaining destinations whose distance from Earth lies in a range.
+     *
+     * @param from lowest distance, inclusive
+     * @param to   highest distance, inclusive
+     * @return the destinations by distance, then in the order they were added
+     */
+    public List<Destination> getDestinationsWithin(double from, double to) {
+        return index.within(from, to);
     }
 
     /** True if no destinations remain. */
     public boolean isEmpty() {
-        return destinations.isEmpty();
+        return index.isEmpty();
+    }
+
+    /** The current navigation mode. */
+    public NavigationMode getMode() {
+        return mode;
     }
 
     @Override
     public String toString() {
         return "NavigationSystem{" +
-               "mode=" + strategy.getClass().getSimpleName() +
-               ", destinations=" + destinations +
+               "mode=" + mode +
+               ", destinations=" + index.destinations() +
                '}';
     }
 }
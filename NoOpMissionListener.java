@@ -0,0 +1,15 @@
+// NoOpMissionListener.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * Discards every mission event, for batch and benchmark runs.
+ */
+public final class NoOpMissionListener implements MissionListener {
+    /** Shared instance; the listener has no state. */
+    public static final NoOpMissionListener INSTANCE = new NoOpMissionListener();
+
+    private NoOpMissionListener() {
+    }
+}
@@ -0,0 +1,154 @@
+// OrbitScheduler.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Chooses what an orbit observes besides its target: destinations the
+ * shuttle has come within a window of, which would otherwise be dropped
+ * unobserved once it moves on. The Orbiter then interleaves the
+ * observation steps of the whole batch, so they share one arrival
+ * instead of each costing a leg of its own.
+ *
+ * Only destinations already reached or passed can join. One ahead would
+ * be observed now and arrived at again later, and no index can drop a
+ * destination before the shuttle reaches it. In space nothing is passed
+ * on the way to a target, so spatial missions always observe alone.
+ *
+ * A batch keeps the target and adds the others by ascending fuel per
+ * unit of scientific value, as long as each one lowers the fuel per
+ * unit of value of the whole leg: the cruise to the target and every
+ * observation in its orbit. The cruise is paid once however many join,
+ * so the longer the leg, the more of them are worth observing.
+ *
+ * The steps are interleaved in turns: each turn observes the members
+ * the fuel left can complete before it runs low, the target always in
+ * the first. A failed emergency refuel then ends the orbit before any
+ * later member has risked the target's observation.
+ *
+ * @author Nihat Masimli
+ */
+public final class OrbitScheduler {
+    private final double window;
+    private final int maxBatch;
+
+    /**
+     * Scheduler with no limit on the batch size.
+     *
+     * @param window distance behind the shuttle a destination may be at
+     */
+    public OrbitScheduler(double window) {
+        this(window, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param window   distance behind the shuttle a destination may be at
+     * @param maxBatch most destinations observed in one orbit, the target
+     *                 included
+     */
+    public OrbitScheduler(double window, int maxBatch) {
+        if (!(window >= 0.0)) {
+            throw new IllegalArgumentException("window must be >= 0: " + window);
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be >= 1: " + maxBatch);
+        }
+        this.window = window;
+        this.maxBatch = maxBatch;
+    }
+
+    public double getWindow() { return window; }
+    public int getMaxBatch() { return maxBatch; }
+
+    /**
+     * The destinations to observe in the orbit around a target.
+     *
+     * @param shuttle shuttle just arrived, holding the candidates
+     * @param target  destination arrived at; always first
+     * @param leg     distance cruised to the target
+     * @return the batch, the target first and the others in the order
+     *         they were chosen
+     */
+    public List<Destination> batch(SpaceShuttle shuttle, Destination target, double leg) {
+        List<Destination> batch = new ArrayList<>();
+        batch.add(target);
+        if (maxBatch == 1) {
+            return batch;
+        }
+        double progress = shuttle.getProgress();
+        List<Destination> candidates = new ArrayList<>();
+        for (Destination d : shuttle.getNavigationSystem()
+                                    .getDestinationsWithin(progress - window, progress)) {
+            if (d != target && !d.isObservationComplete() && d.getScientificValue() > 0) {
+                candidates.add(d);
+            }
+        }
+        MissionParameters p = shuttle.getParameters();
+        double step = p.getObservationStep();
+        candidates.sort(Comparator.comparingDouble(
+            d -> stepsToComplete(d, step) / d.getScientificValue())); // stable: ties by distance
+        double fuel = Math.ceil(Math.max(leg, 0.0) / p.getThrustProgress())
+                      * p.getThrustFuel()
+                      + stepsToComplete(target, step) * p.getObservationFuel();
+        double value = Math.max(target.getScientificValue(), 0.0);
+        for (Destination d : candidates) {
+            if (batch.size() == maxBatch) {
+                break;
+            }
+            double cost = stepsToComplete(d, step) * p.getObservationFuel();
+            // cost / value(d) < fuel / value, without dividing by zero
+            if (value > 0 && cost * value >= fuel * d.getScientificValue()) {
+                break;
+            }
+            batch.add(d);
+            fuel += cost;
+            value += d.getScientificValue();
+        }
+        return batch;
+    }
+
+    /**
+     * The members of a batch to observe in the next turn: the first one
+     * still waiting, then in batch order those the fuel left can also
+     * complete before it runs low.
+     *
+     * @param waiting members not observed yet, in batch order
+     * @param tank    the shuttle's tank
+     * @return the members of the turn, in batch order
+     */
+    static List<Destination> turn(List<Destination> waiting, FuelTank tank) {
+        return turn(waiting, tank, MissionParameters.DEFAULT);
+    }
+
+    /**
+     * The next turn of a batch, with the observation costs of a mission.
+     *
+     * @param waiting    members not observed yet, in batch order
+     * @param tank       the shuttle's tank
+     * @param parameters fuel and completion per observation step
+     * @return the members of the turn, in batch order
+     */
+    static List<Destination> turn(List<Destination> waiting, FuelTank tank,
+                                  MissionParameters parameters) {
+        List<Destination> turn = new ArrayList<>();
+        double step = parameters.getObservationStep();
+        // steps before the one that leaves the fuel low
+        long spare = (long) tank.burnsUntilLow(parameters.getObservationFuel()) - 1;
+        for (Destination d : waiting) {
+            int steps = stepsToComplete(d, step);
+            if (turn.isEmpty() || steps <= spare) {
+                turn.add(d);
+                spare -= steps;
+            }
+        }
+        return turn;
+    }
+
+    /** Observation steps of a given size left until a destination is complete. */
+    static int stepsToComplete(Destination d, double step) {
+        return (int) Math.ceil((100.0 - d.getObservationCompletion()) / step);
+    }
+}
@@ -2,7 +2,9 @@
 /**
  * @author Nihat Masimli
  */
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
 
 /**
  * Controls the shuttle's voyage, handling state transitions
@@ -11,131 +13,417 @@ import java.util.Random;
  * @author Nihat Masimli DNGKKG
  */
 public class Orbiter {
+    /** Percent of the max fuel used per observation step by default. */
+    static final double OBSERVATION_FUEL = 3.0;
+    /** Observation completion gained per step by default, in percent. */
+    static final double OBSERVATION_STEP = 5.0;
+
+    private final double observationFuel;
+    private final double observationStep;
     private Destination currentDestination;
     private Destination nextDestination;
     private final SpaceShuttle shuttle;
-    private final Random random;
+    private final RandomGenerator random;
     private ShuttleState state;
+    private boolean eventDrivenCruise;
+    private MissionListener listener;
+    private boolean started;
+    private boolean ended;
+    private DestinationFeed feed;
+    private MissionMetrics metrics;
+    private OrbitScheduler scheduler;
+    /** Fuel burnt in the current leg, tracked only with metrics. */
+    private double legFuel;
 
     /**
-     * Binds this orbiter to the shuttle; starts docked at Earth.
+     * Binds this orbiter to the shuttle with an unseeded MissionRandom;
+     * starts docked at Earth.
      *
      * @param shuttle the SpaceShuttle being controlled
      */
     public Orbiter(SpaceShuttle shuttle) {
+        this(shuttle, new MissionRandom());
+    }
+
+    /**
+     * Binds this orbiter to the shuttle with the given source for the
+     * emergency-refuel coin flip; starts docked at Earth.
+     *
+     * @param shuttle the SpaceShuttle being controlled
+     * @param random  random source owned by this orbiter
+     */
+    public Orbiter(SpaceShuttle shuttle, RandomGenerator random) {
         this.shuttle = shuttle;
-        this.random = new Random();
+        this.random = random;
+        this.observationFuel = shuttle.getParameters().getObservationFuel();
+        this.observationStep = shuttle.getParameters().getObservationStep();
+        this.listener = new ConsoleMissionListener();
+        this.metrics = MissionMetrics.current();
         this.state = ShuttleState.DOCKED;
         this.currentDestination = new Destination("Earth", 0, 0, 0);
-        this.nextDestination = shuttle.getNavigationSystem()
-                                      .getNextDestination(0.0);
+        this.nextDestination = selectNext();
+    }
+
+    /** Rebuilds an orbiter in the middle of a mission, see MissionCheckpoint. */
+    Orbiter(SpaceShuttle shuttle, RandomGenerator random, ShuttleState state,
+            Destination currentDestination, Destination nextDestination,
+            boolean started, boolean ended) {
+        this.shuttle = shuttle;
+        this.random = random;
+        this.observationFuel = shuttle.getParameters().getObservationFuel();
+        this.observationStep = shuttle.getParameters().getObservationStep();
+        this.listener = new ConsoleMissionListener();
+        this.metrics = MissionMetrics.current();
+        this.state = state;
+        this.currentDestination = currentDestination;
+        this.nextDestination = nextDestination;
+        this.started = started;
+        this.ended = ended;
+    }
+
+    /**
+     * Chooses how cruising is simulated. Event-driven cruising jumps from
+     * one event (arrival or low fuel) to the next instead of stepping
+     * thrust by thrust; the resulting state is the same.
+     *
+     * @param eventDriven true to fast-forward between events
+     */
+    public void setEventDrivenCruise(boolean eventDriven) {
+        this.eventDrivenCruise = eventDriven;
+    }
+
+    /**
+     * Sets who receives the mission events; the console by default.
+     *
+     * @param listener event sink, e.g. NoOpMissionListener.INSTANCE
+     */
+    public void setListener(MissionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Merges destinations from a feed between legs; the mission then
+     * lasts until the feed is finished and every destination visited.
+     *
+     * @param feed destinations arriving during the mission, or null
+     */
+    public void setFeed(DestinationFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Sets where this orbiter records its metrics; the installed
+     * MissionMetrics by default, if any.
+     *
+     * @param metrics metrics to record into, or null for none
+     */
+    public void setMetrics(MissionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Lets each orbit also observe destinations the shuttle has passed
+     * within the scheduler's window, interleaving their observation
+     * steps; without one, an orbit observes only its target.
+     *
+     * @param scheduler chooses what each orbit observes, or null
+     */
+    public void setOrbitScheduler(OrbitScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /** The current operational state. */
+    public ShuttleState getState() {
+        return state;
+    }
+
+    /** The shuttle being controlled. */
+    public SpaceShuttle getShuttle() {
+        return shuttle;
+    }
+
+    /**
+     * Snapshots the mission so it can be resumed later; call it between
+     * ticks. Copies the state into arrays and returns, so it can be
+     * written while the mission goes on.
+     *
+     * @return the checkpoint
+     * @throws IllegalStateException if the mission navigates in space
+     */
+    public MissionCheckpoint checkpoint() {
+        return MissionCheckpoint.capture(shuttle, random, state, currentDestination,
+                                         nextDestination, started, ended,
+                                         eventDrivenCruise);
+    }
+
+    /** True once every destination has been reached and observed. */
+    public boolean isMissionComplete() {
+        return nextDestination == null;
     }
 
     /** Begins the expedition through all remaining destinations. */
     public void startCourse() {
-        System.out.println("Initial state: " + state);
-        while (nextDestination != null) {
-            System.out.println("\nHeading to " + nextDestination.getName());
-            dockedActions();
-            if (state == ShuttleState.DOCKED) {
-                System.out.println("Stuck docked. Aborting mission.");
-                return;
-            }
-            cruiseToDestination();
-            if (state == ShuttleState.EMERGENCY && 
-                shuttle.getFuelTank().getCurrentFuel() <= 0) {
-                return; // cannot continue
+        while (tick()) {
+            // one leg per tick
+        }
+    }
+
+    /**
+     * Flies one leg of the expedition: from docked or orbiting to the
+     * next stop, or to the end of the mission. Lets a scheduler run many
+     * orbiters interleaved; startCourse() is ticking until this returns
+     * false.
+     *
+     * @return true if the mission goes on after this leg
+     */
+    public boolean tick() {
+        if (ended) {
+            return false;
+        }
+        if (!started) {
+            started = true;
+            listener.missionStarted(state);
+        }
+        if (feed != null && !mergeFeed()) {
+            return end(false); // interrupted while waiting for the feed
+        }
+        if (nextDestination == null) {
+            return end(true);
+        }
+        listener.legStarted(nextDestination);
+        legFuel = 0.0;
+        dockedActions();
+        if (state == ShuttleState.DOCKED) {
+            return end(false);
+        }
+        long start = metrics != null ? System.nanoTime() : 0L;
+        cruiseToDestination();
+        if (metrics != null) {
+            metrics.cruised(System.nanoTime() - start);
+        }
+        if (state == ShuttleState.EMERGENCY && 
+            shuttle.getFuelTank().getCurrentFuel() <= 0) {
+            legFlown();
+            return end(false); // cannot continue
+        }
+        if (state == ShuttleState.ORBITING) {
+            start = metrics != null ? System.nanoTime() : 0L;
+            orbitAndObserve();
+            if (metrics != null) {
+                metrics.orbited(System.nanoTime() - start);
             }
-            if (state == ShuttleState.ORBITING) {
-                orbitAndObserve();
-                // Remove and update targets
-                shuttle.getNavigationSystem()
-                       .removeReachedDestinations(shuttle.getProgress());
-                currentDestination = nextDestination;
-                nextDestination = shuttle.getNavigationSystem()
-                                         .getNextDestination(shuttle.getProgress());
+            // Remove and update targets
+            shuttle.getNavigationSystem()
+                   .removeReachedDestinations(shuttle.getProgress());
+            currentDestination = nextDestination;
+            nextDestination = selectNext();
+        }
+        legFlown();
+        return nextDestination != null || (feed != null && !feed.isFinished())
+               || end(true);
+    }
+
+    /**
+     * Adds what the feed has delivered, waiting for it if nothing is left
+     * to visit, and chooses the next destination again if any came.
+     *
+     * @return false if interrupted while waiting
+     */
+    private boolean mergeFeed() {
+        try {
+            if (nextDestination == null && !feed.awaitMore()) {
+                return true;
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        NavigationSystem navigation = shuttle.getNavigationSystem();
+        if (feed.drainTo(navigation) > 0) {
+            nextDestination = selectNext();
+        }
+        return true;
+    }
+
+    /** Asks the navigation for the next destination, timing it for the metrics. */
+    private Destination selectNext() {
+        NavigationSystem navigation = shuttle.getNavigationSystem();
+        if (metrics == null) {
+            return navigation.getNextDestination(shuttle.getProgress());
+        }
+        long start = System.nanoTime();
+        Destination next = navigation.getNextDestination(shuttle.getProgress());
+        metrics.selected(System.nanoTime() - start);
+        return next;
+    }
+
+    private void legFlown() {
+        if (metrics != null) {
+            metrics.leg(100.0 * legFuel / shuttle.getFuelTank().getMaxFuel());
+        }
+    }
+
+    /** Adds the fuel burnt since the level was {@code before} to the leg. */
+    private void burnt(double before) {
+        legFuel += before - shuttle.getFuelTank().getCurrentFuel();
+    }
+
+    /** Tells the listener the mission is over; always false. */
+    private boolean end(boolean complete) {
+        ended = true;
+        if (metrics != null) {
+            metrics.missionEnded(complete);
         }
-        System.out.println("\nAll destinations reached. Mission complete!");
+        listener.missionEnded(complete, state);
+        return false;
     }
 
     /** In DOCKED state: refuel if needed, then launch engine to cruise. */
     private void dockedActions() {
         if (shuttle.getFuelTank().isLowFuel()) {
-            System.out.println("Docked: refueling...");
             shuttle.getFuelTank().refuel();
+            if (metrics != null) {
+                metrics.dockedRefuel();
+            }
+            listener.refuel(false, true, shuttle.getFuelTank().getCurrentFuel());
         }
         shuttle.getEngine().start();
-        state = ShuttleState.CRUISING;
+        setState(ShuttleState.CRUISING);
     }
 
     /** In CRUISING state: thrust until arrival or emergency. */
     private void cruiseToDestination() {
-        state = ShuttleState.CRUISING;
+        setState(ShuttleState.CRUISING);
         shuttle.getEngine().start();
         while (state == ShuttleState.CRUISING) {
-            double progInc = shuttle.getEngine()
-                                    .thrust(shuttle.getFuelTank());
-            shuttle.incrementProgress(progInc);
+            int thrusts = 1;
+            double before = metrics != null ? shuttle.getFuelTank().getCurrentFuel() : 0.0;
+            if (eventDrivenCruise) {
+                // thrusts until the next event: arrival or low fuel, each
+                // added to the progress in turn as a single thrust would be
+                Engine engine = shuttle.getEngine();
+                thrusts = Math.min(
+                    engine.thrustsToReach(shuttle.getProgress(),
+                                          nextDestination.getDistanceFromEarth()),
+                    engine.thrustsUntilLowFuel(shuttle.getFuelTank()));
+                engine.thrust(shuttle.getFuelTank(), thrusts);
+                shuttle.incrementProgress(engine.getProgressPerThrust(), thrusts);
+            } else {
+                shuttle.incrementProgress(shuttle.getEngine()
+                                                 .thrust(shuttle.getFuelTank()));
+            }
+            if (metrics != null) {
+                metrics.thrusts(thrusts);
+                burnt(before);
+            }
             nextDestination.updateProgress(shuttle.getProgress());
-            System.out.printf(
-                "Travel: %.2f/%.2f to %s%n",
-                nextDestination.getProgress(),
-                nextDestination.getDistanceFromEarth(),
-                nextDestination.getName()
-            );
+            listener.thrust(nextDestination, thrusts, shuttle.getProgress(),
+                            shuttle.getFuelTank().getCurrentFuel());
             if (nextDestination.isReached()) {
-                System.out.println("Arrived at " + nextDestination.getName());
+                listener.arrival(nextDestination);
                 shuttle.getEngine().stop();
-                state = ShuttleState.ORBITING;
+                setState(ShuttleState.ORBITING);
                 break;
             }
             if (shuttle.getFuelTank().isLowFuel()) {
-                System.out.println("Fuel critical—entering EMERGENCY.");
+                listener.emergency(nextDestination, false,
+                                   shuttle.getFuelTank().getCurrentFuel());
                 shuttle.getEngine().stop();
-                state = ShuttleState.EMERGENCY;
-                emergencyProcedure();
+                setState(ShuttleState.EMERGENCY);
+                emergencyProcedure(false);
             }
         }
     }
 
-    /** In ORBITING state: perform observations until complete or emergency. */
+    /**
+     * In ORBITING state: observe the target, and whatever the scheduler
+     * batches with it, one step each in turn until complete or emergency.
+     */
     private void orbitAndObserve() {
-        System.out.println("Orbiting and observing " + nextDestination.getName());
-        state = ShuttleState.ORBITING;
-        while (!nextDestination.isObservationComplete()) {
-            shuttle.getFuelTank().useFuel(3.0); // reduced consumption
-            nextDestination.updateObservation(5.0);
-            System.out.printf(
-                "Observation: %.2f%% complete%n",
-                nextDestination.getObservationCompletion()
-            );
-            if (shuttle.getFuelTank().isLowFuel()) {
-                System.out.println("Fuel critical during observation—EMERGENCY.");
-                state = ShuttleState.EMERGENCY;
-                emergencyProcedure();
-                if (state != ShuttleState.CRUISING) {
-                    return;
+        List<Destination> waiting = new ArrayList<>(batch());
+        for (Destination d : waiting) {
+            listener.observationStarted(d, false);
+        }
+        setState(ShuttleState.ORBITING);
+        List<Destination> turn = new ArrayList<>();
+        for (int i = 0; !waiting.isEmpty(); ) {
+            if (turn.isEmpty()) {
+                // alone, the target is stepped until done, as without a scheduler
+                turn = waiting.size() == 1
+                       ? new ArrayList<>(waiting)
+                       : OrbitScheduler.turn(waiting, shuttle.getFuelTank(),
+                                             shuttle.getParameters());
+                i = 0;
+            }
+            Destination d = turn.get(i);
+            if (!d.isObservationComplete()) {
+                double before = metrics != null ? shuttle.getFuelTank().getCurrentFuel() : 0.0;
+                shuttle.getFuelTank().useFuel(observationFuel); // reduced consumption
+                if (metrics != null) {
+                    metrics.observationStep();
+                    burnt(before);
+                }
+                d.updateObservation(observationStep);
+                listener.observationStep(d, shuttle.getFuelTank().getCurrentFuel());
+                if (shuttle.getFuelTank().isLowFuel()) {
+                    listener.emergency(d, true, shuttle.getFuelTank().getCurrentFuel());
+                    setState(ShuttleState.EMERGENCY);
+                    emergencyProcedure(true);
+                    if (state != ShuttleState.CRUISING) {
+                        return;
+                    }
+                    for (Destination resumed : waiting) {
+                        listener.observationStarted(resumed, true);
+                    }
                 }
-                System.out.println("Resuming observations...");
             }
+            if (d.isObservationComplete()) {
+                listener.observationComplete(d);
+                turn.remove(i);
+                waiting.remove(d);
+            } else {
+                i++;
+            }
+            if (i >= turn.size()) {
+                i = 0;
+            }
+        }
+    }
+
+    /** What this orbit observes: the target first. */
+    private List<Destination> batch() {
+        if (scheduler == null) {
+            return List.of(nextDestination);
         }
-        System.out.println("Observations complete at " + nextDestination.getName());
+        double leg = shuttle.getProgress() - currentDestination.getDistanceFromEarth();
+        return scheduler.batch(shuttle, nextDestination, leg);
     }
 
     /** Handles low-fuel emergencies: attempt refuel, then either resume or dock. */
-    private void emergencyProcedure() {
-        System.out.println("Attempting emergency refuel...");
-        if (random.nextDouble() < 0.5) {
+    private void emergencyProcedure(boolean inOrbit) {
+        boolean refuelled = random.nextDouble() < 0.5;
+        if (metrics != null) {
+            metrics.emergency(inOrbit, refuelled);
+        }
+        if (refuelled) {
             shuttle.getFuelTank().refuel();
-            System.out.println("Emergency refuel succeeded.");
+            listener.refuel(true, true, shuttle.getFuelTank().getCurrentFuel());
             // resume cruising
             shuttle.getEngine().start();
-            state = ShuttleState.CRUISING;
+            setState(ShuttleState.CRUISING);
         } else {
-            System.out.println("Emergency refuel failed. Docking shuttle.");
-            state = ShuttleState.DOCKED;
+            listener.refuel(true, false, shuttle.getFuelTank().getCurrentFuel());
+            setState(ShuttleState.DOCKED);
             shuttle.getEngine().stop();
         }
     }
+
+    /** Switches state, telling the listener if it changed. */
+    private void setState(ShuttleState next) {
+        if (next != state) {
+            ShuttleState previous = state;
+            state = next;
+            listener.stateChanged(previous, next);
+        }
+    }
 }
@@ -3,9 +3,32 @@ import org.junit.Test;
 import org.junit.Before;
 import static org.junit.Assert.*;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
 
 /**
  * JUnit4 tests for the Orion Expedition project.
@@ -81,6 +104,43 @@ public class OrionExpeditionTest {
         assertEquals(1000.0, tank.getCurrentFuel(), 0.0001);
     }
 
+    @Test
+    public void testSharedTankLosesNoUpdates() throws InterruptedException {
+        ConcurrentFuelTank depot = new ConcurrentFuelTank(1000.0);
+        int[] reserved = new int[4];
+        Thread[] shuttles = new Thread[reserved.length];
+        for (int t = 0; t < shuttles.length; t++) {
+            int id = t;
+            shuttles[t] = new Thread(() -> {
+                for (int i = 0; i < 400; i++) {
+                    if (depot.tryUseFuel(0.1)) {   // one unit
+                        reserved[id]++;
+                    }
+                }
+            });
+            shuttles[t].start();
+        }
+        for (Thread t : shuttles) {
+            t.join();
+        }
+        // 1600 attempts on 1000 units: exactly 1000 succeed
+        assertEquals(1000, reserved[0] + reserved[1] + reserved[2] + reserved[3]);
+        assertEquals(0.0, depot.getCurrentFuel(), 0.0);
+        assertTrue(depot.isLowFuel());
+
+        Engine engine = new Engine();
+        engine.start();
+        assertEquals(0.0, engine.tryThrust(depot), 0.0);
+        depot.refuel();
+        assertEquals(5.0, engine.tryThrust(depot), 0.0);
+        assertEquals(900.0, depot.getCurrentFuel(), 0.0);
+
+        FuelTank plain = new FuelTank(1000.0);
+        assertTrue(plain.tryUseFuel(95.0));
+        assertFalse(plain.tryUseFuel(10.0));
+        assertEquals(50.0, plain.getCurrentFuel(), 0.0001);
+    }
+
     // ---- Engine tests ----
 
     @Test
@@ -102,6 +162,121 @@ public class OrionExpeditionTest {
         assertEquals(0.0, engine.thrust(tank), 0.0001);
     }
 
+    @Test
+    public void testBatchedThrustMatchesSingleThrusts() {
+        engine.start();
+        // 1000 → 100 after nine thrusts, first below 15% of capacity
+        assertEquals(9, engine.thrustsUntilLowFuel(tank));
+        assertEquals(3, engine.thrustsToReach(0.0, 12.0));
+
+        FuelTank stepped = new FuelTank(777.0);
+        FuelTank batched = new FuelTank(777.0);
+        int thrusts = engine.thrustsUntilLowFuel(stepped);
+        double progress = 0.0;
+        for (int i = 0; i < thrusts; i++) {
+            progress += engine.thrust(stepped);
+        }
+        assertTrue(stepped.isLowFuel());
+        assertEquals(progress, engine.thrust(batched, thrusts), 0.0);
+        assertEquals(stepped.getCurrentFuel(), batched.getCurrentFuel(), 0.0);
+
+        Engine fractional = new Engine(3.3, 0.7);
+        fractional.start();
+        progress = 0.0;
+        for (int i = 0; i < 40; i++) {
+            progress += fractional.thrust(stepped);
+        }
+        assertEquals(progress, fractional.thrust(batched, 40), 0.0);
+        assertEquals(stepped.getCurrentFuel(), batched.getCurrentFuel(), 0.0);
+    }
+
+    @Test(timeout = 1000)
+    public void testBurnsUntilLowMatchesBurningStepByStep() {
+        // fractional amounts count exactly as useFuel subtracts them
+        double max = 50.626329136831075;
+        double[][] cases = { { 37.97, 0.1 * max, 0.15 * max },
+                             { 3.9, 0.39, 0.585 },
+                             { 1000.5, 33.3, 150.0 } };
+        for (double[] c : cases) {
+            double fuel = c[0];
+            int steps = 0;
+            do {
+                fuel = FuelTank.afterBurns(fuel, c[1], 1);
+                steps++;
+            } while (fuel >= c[2]);
+            assertEquals(steps, FuelTank.burnsUntilLow(c[0], c[1], c[2]));
+        }
+        assertEquals(Integer.MAX_VALUE, FuelTank.burnsUntilLow(1000.5, 0.3, 0.0));
+        assertEquals(Integer.MAX_VALUE, FuelTank.burnsUntilLow(1000.5, 0.0, 150.0));
+        assertEquals(1, FuelTank.burnsUntilLow(100.0, 0.0, 150.0));
+        assertEquals(1, FuelTank.burnsUntilLow(100.0, 10.0, 150.0));
+        // whole units land exactly on the threshold: the burn after it is low
+        assertEquals(10, FuelTank.burnsUntilLow(1000.0, 95.0, 145.0));
+    }
+
+    @Test
+    public void testEventDrivenCruiseReachesSameState() {
+        SpaceShuttle stepping = new SpaceShuttle(1000.0);
+        SpaceShuttle eventDriven = new SpaceShuttle(1000.0);
+        stepping.addDestination("Moon", 5, 1.0, 10.0);
+        eventDriven.addDestination("Moon", 5, 1.0, 10.0);
+        eventDriven.setEventDrivenCruise(true);
+
+        stepping.launch();
+        eventDriven.launch();
+        assertEquals(stepping.getProgress(), eventDriven.getProgress(), 0.0);
+        assertEquals(stepping.getFuelTank().getCurrentFuel(),
+                     eventDriven.getFuelTank().getCurrentFuel(), 0.0);
+        assertTrue(eventDriven.getNavigationSystem().isEmpty());
+    }
+
+    @Test
+    public void testEventDrivenCruiseMatchesSteppingOnFractionalCapacity() {
+        SpaceShuttle stepping = flySample(new SpaceShuttle(3.9), false);
+        SpaceShuttle eventDriven = flySample(new SpaceShuttle(3.9), true);
+        assertEquals(stepping.getProgress(), eventDriven.getProgress(), 0.0);
+        assertEquals(stepping.getFuelTank().getCurrentFuel(),
+                     eventDriven.getFuelTank().getCurrentFuel(), 0.0);
+        assertEquals(stepping.getNavigationSystem().getDestinations().size(),
+                     eventDriven.getNavigationSystem().getDestinations().size());
+
+        // fractional progress per thrust adds up as thrust by thrust
+        MissionParameters params = MissionParameters.DEFAULT.withMaxFuel(977.3)
+            .withThrustFuel(3.3).withThrustProgress(0.7).withLowFuelFraction(0.2);
+        stepping = flySample(new SpaceShuttle(params), false);
+        eventDriven = flySample(new SpaceShuttle(params), true);
+        assertEquals(stepping.getProgress(), eventDriven.getProgress(), 0.0);
+        assertEquals(stepping.getFuelTank().getCurrentFuel(),
+                     eventDriven.getFuelTank().getCurrentFuel(), 0.0);
+        assertTrue(eventDriven.getNavigationSystem().isEmpty());
+
+        Engine fractional = new Engine(3.3, 0.1);
+        fractional.start();
+        double progress = 7.0;
+        int thrusts = 0;
+        while (progress < 12.3) {
+            progress += fractional.getProgressPerThrust();
+            thrusts++;
+        }
+        assertEquals(thrusts, fractional.thrustsToReach(7.0, 12.3));
+        assertEquals(progress, fractional.progressAfter(7.0, thrusts), 0.0);
+        assertEquals(1, fractional.thrustsToReach(12.3, 12.3));
+    }
+
+    /** Flies the Simulation sample catalog with a fixed seed. */
+    private static SpaceShuttle flySample(SpaceShuttle s, boolean eventDriven) {
+        s.addDestination("Mercury", 100, 7.5, 10.0);
+        s.addDestination("Jupiter", 1000, 9.2, 12.0);
+        s.addDestination("Saturn", 500, 8.1, 11.0);
+        s.addDestination("Neptune", 200, 9.8, 9.0);
+        s.addDestination("Mars", 4000, 8.7, 13.0);
+        s.setEventDrivenCruise(eventDriven);
+        s.setRandom(new MissionRandom(1));
+        s.setListener(NoOpMissionListener.INSTANCE);
+        s.launch();
+        return s;
+    }
+
     // ---- NavigationSystem (STANDARD) tests ----
 
     @Test
@@ -137,6 +312,436 @@ public class OrionExpeditionTest {
         assertEquals("B", next.getName());
     }
 
+    @Test
+    public void testNavigationIndexAfterRemovingReached() {
+        nav.setMode(NavigationMode.EFFICIENT);
+        // at 0: A=10/100=0.1, B=2/300≈0.0067, C=4/400=0.01 → B
+        nav.addDestination(new Destination("A", 100, 1.0, 10.0));
+        nav.addDestination(new Destination("B", 300, 1.0, 2.0));
+        nav.addDestination(new Destination("C", 400, 1.0, 4.0));
+        assertEquals("B", nav.getNextDestination(0.0).getName());
+
+        // at 300: A and B are passed, only C remains
+        nav.removeReachedDestinations(300.0);
+        Destination next = nav.getNextDestination(300.0);
+        assertEquals("C", next.getName());
+        assertEquals(300.0, next.getProgress(), 0.0001);
+
+        // switching mode keeps the remaining destinations
+        nav.setMode(NavigationMode.STANDARD);
+        assertEquals("C", nav.getNextDestination(300.0).getName());
+        nav.removeReachedDestinations(400.0);
+        assertTrue(nav.isEmpty());
+        assertNull(nav.getNextDestination(400.0));
+    }
+
+    @Test
+    public void testOptimalRanksAsStandardAfterAnyMode() {
+        for (NavigationMode before : NavigationMode.values()) {
+            for (boolean columns : new boolean[] {false, true}) {
+                NavigationSystem system = new NavigationSystem();
+                if (columns) {
+                    system.useColumnStore();
+                }
+                system.addDestination(new Destination("Far", 500, 1.0, 1.0));
+                system.addDestination(new Destination("Near", 100, 1.0, 10.0));
+                system.setMode(before);
+                system.setMode(NavigationMode.OPTIMAL);
+                List<String> names = new ArrayList<>();
+                for (Destination d : system.topK(2, 0.0)) {
+                    names.add(d.getName());
+                }
+                assertEquals(before + " then OPTIMAL", Arrays.asList("Near", "Far"), names);
+            }
+        }
+    }
+
+    @Test
+    public void testSortedViewRangesFollowTheArray() {
+        SortedSet<Integer> view = TreeDestinationIndex.sortedView(
+            new Integer[] {1, 3, 5, 7, 9}, Integer::compare);
+        assertTrue(view.contains(5));
+        assertFalse(view.contains(4));
+        assertEquals(Arrays.asList(3, 5), new ArrayList<>(view.subSet(2, 7)));
+        assertEquals(Arrays.asList(1, 3), new ArrayList<>(view.headSet(5)));
+        assertEquals(Arrays.asList(7, 9), new ArrayList<>(view.tailSet(6)));
+        SortedSet<Integer> tail = view.tailSet(3);
+        assertEquals(Integer.valueOf(5), tail.subSet(4, 9).first());
+        assertEquals(Integer.valueOf(7), tail.headSet(8).last());
+        assertTrue(view.subSet(4, 5).isEmpty());
+        assertEquals(new TreeSet<>(Arrays.asList(1, 3, 5, 7, 9)), view);
+    }
+
+    @Test
+    public void testColumnStoreSelectsLikeStrategies() {
+        nav.addDestination(new Destination("A", 100, 1.0, 10.0));
+        nav.useColumnStore();
+        nav.addDestination(new Destination("B", 300, 9.0, 2.0));
+        nav.addDestination(new Destination("C", 400, 1.0, 4.0));
+        Destination a = nav.getNextDestination(0.0);
+        assertEquals("A", a.getName());
+        assertSame(a, nav.getNextDestination(50.0));
+        assertEquals(50.0, a.getProgress(), 0.0);
+        a.updateObservation(30.0);
+
+        nav.setMode(NavigationMode.EFFICIENT);
+        assertEquals("B", nav.getNextDestination(0.0).getName());
+        nav.setMode(NavigationMode.EXPLORATION);
+        assertEquals("B", nav.getNextDestination(0.0).getName());
+
+        // a removed row keeps its values in the view
+        nav.removeReachedDestinations(150.0);
+        assertTrue(a.isReached());
+        assertEquals(30.0, a.getObservationCompletion(), 0.0);
+        assertEquals(2, nav.getDestinations().size());
+        nav.setMode(NavigationMode.STANDARD);
+        Destination b = nav.getNextDestination(150.0);
+        assertEquals("B", b.getName());
+        assertEquals(150.0, b.distanceRemaining(), 0.0);
+    }
+
+    @Test
+    public void testColumnStoreStaysLikeStrategiesOnLongMissions() {
+        for (NavigationMode mode : new NavigationMode[] {
+                NavigationMode.STANDARD, NavigationMode.EFFICIENT, NavigationMode.EXPLORATION}) {
+            NavigationSystem trees = new NavigationSystem();
+            NavigationSystem columns = new NavigationSystem();
+            columns.useColumnStore();
+            trees.setMode(mode);
+            columns.setMode(mode);
+            for (int i = 0; i < 200; i++) {
+                double distance = 10 + (i * 37) % 1000;
+                double value = (i * 13) % 10;
+                double rate = 1 + (i * 7) % 20;
+                trees.addDestination(new Destination("D" + i, distance, value, rate));
+                columns.addDestination(new Destination("D" + i, distance, value, rate));
+            }
+            // enough repeated selections that the orderings get built
+            for (int i = 0; i < 100; i++) {
+                columns.getNextDestination(0.0);
+            }
+            double progress = 0.0;
+            for (int leg = 0; !trees.isEmpty(); leg++) {
+                if (leg == 20) {
+                    Destination late = new Destination("late", progress + 5, 10.0, 1.0);
+                    trees.addDestination(late);
+                    columns.addDestination(new Destination("late", progress + 5, 10.0, 1.0));
+                }
+                Destination expected = trees.getNextDestination(progress);
+                assertEquals(mode + " leg " + leg, expected.getName(),
+                             columns.getNextDestination(progress).getName());
+                progress = Math.max(progress, expected.getDistanceFromEarth());
+                trees.removeReachedDestinations(progress);
+                columns.removeReachedDestinations(progress);
+                assertEquals(trees.getDestinations().size(), columns.getDestinations().size());
+            }
+            assertTrue(columns.isEmpty());
+        }
+    }
+
+    @Test
+    public void testParallelSelectionPicksLikeSequential() {
+        Random random = new Random(21);
+        List<Destination> dests = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            // whole numbers, so that many destinations tie
+            dests.add(new Destination("D" + i, 1 + random.nextInt(500),
+                                      random.nextInt(20), 1 + random.nextInt(10)));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (NavigationStrategy strategy : new NavigationStrategy[] {
+                     new StandardNavigationStrategy(), new EfficientNavigationStrategy(),
+                     new ExplorationNavigationStrategy() }) {
+                NavigationStrategy parallel =
+                    new ParallelNavigationStrategy(strategy, 64, pool);
+                for (double progress : new double[] { 0.0, 123.0, 250.5, 499.0 }) {
+                    assertSame(strategy.selectNext(dests, progress),
+                               parallel.selectNext(dests, progress));
+                    List<Destination> few = dests.subList(0, 63);
+                    assertSame(strategy.selectNext(few, progress),
+                               parallel.selectNext(few, progress));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        NavigationSystem sequential = new NavigationSystem();
+        sequential.setStrategy(new EfficientNavigationStrategy());
+        nav.setParallelStrategy(new EfficientNavigationStrategy(), 64);
+        sequential.addDestinations(dests);
+        nav.addDestinations(dests);
+        double progress = 0.0;
+        for (Destination d = nav.getNextDestination(progress); d != null;
+             d = nav.getNextDestination(progress)) {
+            assertSame(sequential.getNextDestination(progress), d);
+            progress = d.getDistanceFromEarth();
+            sequential.removeReachedDestinations(progress);
+            nav.removeReachedDestinations(progress);
+        }
+        assertTrue(sequential.isEmpty());
+    }
+
+    @Test
+    public void testTopKRanksLikeRepeatedSelection() throws IOException {
+        Random random = new Random(22);
+        List<Destination> dests = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            dests.add(new Destination("D" + i, 1 + random.nextInt(500),
+                                      random.nextInt(20), random.nextInt(10)));
+        }
+        BinaryCatalog catalog = BinaryCatalog.of(dests);
+        for (NavigationMode mode : new NavigationMode[] {
+                 NavigationMode.STANDARD, NavigationMode.EFFICIENT, NavigationMode.EXPLORATION }) {
+            NavigationStrategy strategy = NavigationStrategy.forMode(mode);
+            for (double progress : new double[] { 0.0, 37.0, 250.5 }) {
+                // what K full scans would pick, removing each pick
+                List<String> expected = new ArrayList<>();
+                List<Destination> left = new ArrayList<>(dests);
+                for (int k = 0; k < 25; k++) {
+                    Destination best = strategy.selectNext(left, progress);
+                    expected.add(best.getName());
+                    left.remove(best);
+                }
+                NavigationSystem trees = new NavigationSystem();
+                NavigationSystem columns = new NavigationSystem();
+                NavigationSystem mapped = new NavigationSystem();
+                for (NavigationSystem system : new NavigationSystem[] { trees, columns, mapped }) {
+                    system.setMode(mode);
+                }
+                columns.useColumnStore();
+                trees.addDestinations(dests);
+                columns.addDestinations(dests);
+                mapped.addCatalog(catalog);
+                for (NavigationSystem system : new NavigationSystem[] { trees, columns, mapped }) {
+                    List<String> names = new ArrayList<>();
+                    for (Destination d : system.topK(25, progress)) {
+                        names.add(d.getName());
+                    }
+                    assertEquals(mode + " at " + progress, expected, names);
+                }
+            }
+        }
+
+        WeightedNavigationStrategy weighted = new WeightedNavigationStrategy(0.1, 1.0, 2.0);
+        nav.setStrategy(weighted);
+        nav.addDestinations(dests);
+        List<Destination> ranked = nav.topK(10, 100.0);
+        assertEquals(10, ranked.size());
+        assertSame(weighted.selectNext(dests, 100.0), ranked.get(0));
+        for (int i = 1; i < ranked.size(); i++) {
+            assertTrue(weighted.score(ranked.get(i - 1), 100.0)
+                       <= weighted.score(ranked.get(i), 100.0));
+        }
+        assertSame(new StandardNavigationStrategy().selectNext(dests, 100.0),
+                   new WeightedNavigationStrategy(1.0, 0.0, 0.0).selectNext(dests, 100.0));
+
+        // a strategy that only chooses is ranked by choosing repeatedly
+        NavigationStrategy lastAdded = (list, progress) ->
+            list.isEmpty() ? null : list.get(list.size() - 1);
+        NavigationSystem custom = new NavigationSystem();
+        custom.setStrategy(lastAdded);
+        custom.addDestinations(dests.subList(0, 5));
+        assertEquals(Arrays.asList(dests.get(4), dests.get(3), dests.get(2)),
+                     custom.topK(3, 0.0));
+        assertEquals(5, custom.topK(10, 0.0).size());
+        assertFalse(lastAdded.scores());
+        assertTrue(weighted.scores());
+        assertTrue(new ParallelNavigationStrategy(weighted).scores());
+
+        // a failure inside score() is not mistaken for a strategy that cannot score
+        NavigationStrategy broken = new StandardNavigationStrategy() {
+            @Override
+            public double score(Destination destination, double currentProgress) {
+                throw new UnsupportedOperationException("broken");
+            }
+        };
+        try {
+            broken.topK(dests, 3, 0.0);
+            fail("score() failure swallowed");
+        } catch (UnsupportedOperationException expected) {
+            assertEquals("broken", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testEfficientTiesKeepInsertionOrderAfterModeChange() {
+        Destination far = new Destination("Far", 300, 1, 0);
+        Destination near = new Destination("Near", 100, 1, 0);
+        nav.addDestination(far);
+        nav.addDestination(near);
+        nav.setMode(NavigationMode.EFFICIENT);
+        assertSame(far, nav.getNextDestination(0));
+        assertSame(far, nav.topK(1, 0).get(0));
+        assertSame(far, new EfficientNavigationStrategy()
+                            .selectNext(Arrays.asList(far, near), 0));
+    }
+
+    @Test
+    public void testSpatialIndexPicksLikeAScanFromThePosition() {
+        Random random = new Random(19);
+        for (NavigationMode mode : new NavigationMode[] {NavigationMode.STANDARD,
+                NavigationMode.EFFICIENT, NavigationMode.EXPLORATION}) {
+            NavigationSystem space = new NavigationSystem();
+            space.setMode(mode);
+            space.useSpatialIndex();
+            List<SpatialDestination> all = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                // a coarse grid and few rates and values, so ties happen
+                SpatialDestination d = new SpatialDestination("S" + i,
+                    random.nextInt(20), random.nextInt(20), random.nextInt(20),
+                    random.nextInt(8), 1 + random.nextInt(4));
+                all.add(d);
+                if (i < 400) {
+                    space.addDestination(d);
+                }
+            }
+            List<SpatialDestination> remaining = new ArrayList<>(all.subList(0, 400));
+            double x = 0, y = 0, z = 0, progress = 0;
+            for (int leg = 0; !remaining.isEmpty(); leg++) {
+                if (leg == 50 || leg == 100) {
+                    // a few are scanned next to the tree, many rebuild it
+                    List<SpatialDestination> late = leg == 50 ? all.subList(400, 420)
+                                                              : all.subList(420, 600);
+                    space.addDestinations(new ArrayList<>(late));
+                    remaining.addAll(late);
+                }
+                SpatialDestination expected = null;
+                double bestKey = Double.POSITIVE_INFINITY;
+                for (SpatialDestination d : remaining) {
+                    double dist = d.distanceTo(x, y, z);
+                    double key = mode == NavigationMode.STANDARD ? dist
+                               : mode == NavigationMode.EXPLORATION ? -d.getScientificValue()
+                               : dist > 0 ? d.getConsumptionRate() / dist : Double.NaN;
+                    if (key < bestKey) {
+                        bestKey = key;
+                        expected = d;
+                    }
+                }
+                if (leg % 25 == 0) {
+                    // the top ten from here, as a sort of the scan's keys
+                    double px = x, py = y, pz = z;
+                    List<SpatialDestination> ranked = new ArrayList<>();
+                    for (SpatialDestination d : remaining) {
+                        if (mode != NavigationMode.EFFICIENT || d.distanceTo(px, py, pz) > 0) {
+                            ranked.add(d);
+                        }
+                    }
+                    ToDoubleFunction<SpatialDestination> key = d ->
+                        mode == NavigationMode.STANDARD ? d.distanceTo(px, py, pz)
+                        : mode == NavigationMode.EXPLORATION ? -d.getScientificValue()
+                        : d.getConsumptionRate() / d.distanceTo(px, py, pz);
+                    ranked.sort(Comparator.comparingDouble(key)
+                                    .thenComparingInt(all::indexOf));
+                    assertEquals(mode + " top at leg " + leg,
+                                 ranked.subList(0, Math.min(10, ranked.size())),
+                                 space.topK(10, progress));
+                }
+                Destination next = space.getNextDestination(progress);
+                if (expected == null) {
+                    assertNull(next);  // efficient: only points at the position left
+                    break;
+                }
+                assertSame(mode + " leg " + leg, expected, next);
+                assertEquals(progress + expected.distanceTo(x, y, z),
+                             next.getDistanceFromEarth(), 1e-9);
+                progress = next.getDistanceFromEarth();
+                space.removeReachedDestinations(progress);
+                remaining.remove(expected);
+                x = expected.getX();
+                y = expected.getY();
+                z = expected.getZ();
+                assertEquals(remaining.size(), space.getDestinations().size());
+            }
+        }
+    }
+
+    @Test
+    public void testSpatialMissionVisitsEveryDestination() throws IOException {
+        File tmp = File.createTempFile("space", ".txt");
+        tmp.deleteOnExit();
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(tmp))) {
+            w.write("Far 300 -400 0 1.0 10.0\n");    // 500 from Earth
+            w.write("Near 30 40 0 2.0 10.0\n");      // 50 from Earth
+            w.write("Line 70\n");                    // on the x axis
+        }
+        shuttle.loadDestinationFromFile(tmp.getPath());
+        shuttle.getNavigationSystem().useSpatialIndex();
+        shuttle.setListener(NoOpMissionListener.INSTANCE);
+        Orbiter orbiter = new Orbiter(shuttle, new MissionRandom(1L));
+        orbiter.setListener(NoOpMissionListener.INSTANCE);
+        orbiter.startCourse();
+        assertTrue(orbiter.isMissionComplete());
+        assertTrue(shuttle.getNavigationSystem().isEmpty());
+        // Near, then Line on the x axis, then Far, each in a straight line
+        assertTrue(shuttle.getProgress()
+                   >= 50 + Math.hypot(40, 40) + Math.hypot(230, 400));
+        try {
+            orbiter.checkpoint();
+            fail("spatial missions are not checkpointed");
+        } catch (IllegalStateException expected) {
+            // positions are not in the checkpoint format
+        }
+    }
+
+    @Test
+    public void testOptimalModeSkipsWorthlessObservation() {
+        // Observing A leaves 30% fuel, so B's observation would hit an
+        // emergency refuel that fails half of the time. Going straight
+        // to B arrives with 90% and observes it in full.
+        Destination a = new Destination("A", 5, 0.0, 10.0);
+        Destination b = new Destination("B", 50, 9.0, 10.0);
+        shuttle.getNavigationSystem().addDestination(a);
+        shuttle.getNavigationSystem().addDestination(b);
+        shuttle.setNavigationMode(NavigationMode.OPTIMAL);
+
+        RoutePlan plan = shuttle.getNavigationSystem().getRoutePlan(0.0);
+        assertTrue(plan.isExact());
+        assertEquals(List.of(b), plan.route(100.0));
+        assertEquals(9.0, plan.getExpectedScience(), 1e-9);
+        assertEquals(1.0, plan.getExpectedEmergencies(), 1e-9);
+
+        shuttle.setListener(NoOpMissionListener.INSTANCE);
+        shuttle.launch();
+        assertEquals(0.0, a.getObservationCompletion(), 0.0);
+        assertTrue(b.isObservationComplete());
+        assertTrue(shuttle.getNavigationSystem().isEmpty());
+    }
+
+    @Test
+    public void testOptimalModePlansWithTheMissionParameters() {
+        // never low on fuel: stopping at A costs nothing, unlike by default
+        Destination a = new Destination("A", 5, 5.0, 10.0);
+        Destination b = new Destination("B", 500, 9.0, 10.0);
+        SpaceShuttle relaxed = new SpaceShuttle(
+            MissionParameters.DEFAULT.withLowFuelFraction(0.0));
+        relaxed.getNavigationSystem().addDestination(a);
+        relaxed.getNavigationSystem().addDestination(b);
+        relaxed.setNavigationMode(NavigationMode.OPTIMAL);
+        RoutePlan plan = relaxed.getNavigationSystem().getRoutePlan(0.0);
+        assertEquals(List.of(a, b), plan.route(100.0));
+        assertEquals(14.0, plan.getExpectedScience(), 1e-9);
+        assertEquals(0.0, plan.getExpectedEmergencies(), 0.0);
+
+        // fractional progress per thrust, no cruise long enough to run low:
+        // each stop, 28 = 40 * 0.7 too, is on the plan made at launch
+        MissionParameters params = MissionParameters.DEFAULT.withThrustProgress(0.7)
+            .withThrustFuel(1.0).withLowFuelFraction(0.05);
+        SpaceShuttle s = new SpaceShuttle(params);
+        for (int i = 0; i < 12; i++) {
+            s.addDestination("D" + i, 3 + 5 * i, i % 5, 10.0);
+        }
+        s.setNavigationMode(NavigationMode.OPTIMAL);
+        RoutePlan launched = s.getNavigationSystem().getRoutePlan(0.0);
+        Orbiter orbiter = new Orbiter(s, new MissionRandom(3));
+        orbiter.setListener(NoOpMissionListener.INSTANCE);
+        while (orbiter.tick()) {
+            assertSame(launched, s.getNavigationSystem().getRoutePlan(s.getProgress()));
+        }
+        assertTrue(s.getNavigationSystem().isEmpty());
+    }
+
     // ---- SpaceShuttle file loading & mode tests ----
 
     @Test
@@ -174,6 +779,657 @@ public class OrionExpeditionTest {
         assertEquals("X", nextEff.getName());
     }
 
+    @Test
+    public void testFeedMergesDestinationsDuringMission() throws InterruptedException {
+        DestinationFeed feed = new DestinationFeed(4);
+        shuttle.addDestination("First", 10, 1.0, 10.0);
+        shuttle.setListener(NoOpMissionListener.INSTANCE);
+        shuttle.setRandom(new MissionRandom(3L));
+        shuttle.setEventDrivenCruise(true);
+        shuttle.setFeed(feed);
+        Thread survey = new Thread(() -> {
+            try {
+                for (int i = 0; i < 50; i++) {
+                    feed.put(new Destination("S" + i, 20 + 10 * i, 1.0, 10.0));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            feed.close();
+        });
+        survey.start();
+        shuttle.launch();
+        survey.join();
+        assertEquals(50, feed.getAcceptedCount());
+        assertEquals(50, feed.getDeliveredCount());
+        assertTrue(feed.isFinished());
+        assertTrue(shuttle.getNavigationSystem().isEmpty());
+        assertEquals(510.0, shuttle.getProgress(), 0.0);
+    }
+
+    @Test
+    public void testFollowedStreamIsParsedLikeAFile() throws InterruptedException {
+        byte[] input = "A 100\nB 200 1.5 5\r\nbad line here\nC 3".getBytes(StandardCharsets.UTF_8);
+        DestinationFeed feed = DestinationFeed.follow(new ByteArrayInputStream(input), 1);
+        NavigationSystem streamed = new NavigationSystem();
+        while (feed.awaitMore()) {
+            feed.drainTo(streamed);
+        }
+        assertTrue(feed.isFinished());
+        assertNull(feed.getFailure());
+        List<Destination> got = streamed.getDestinations();
+        assertEquals(3, got.size());
+        assertEquals("A", got.get(0).getName());
+        assertEquals(10.0, got.get(0).getConsumptionRate(), 0.0);
+        assertEquals(1.5, got.get(1).getScientificValue(), 0.0);
+        assertEquals(3.0, got.get(2).getDistanceFromEarth(), 0.0);
+    }
+
+    // ---- MissionListener tests ----
+
+    @Test
+    public void testListenerReceivesMissionEvents() {
+        int[] counts = new int[3];
+        shuttle.addDestination("Moon", 10, 1.0, 10.0);
+        shuttle.setListener(new MissionListener() {
+            @Override
+            public void thrust(Destination target, int thrusts,
+                               double progress, double fuel) {
+                counts[0] += thrusts;
+            }
+            @Override
+            public void observationStep(Destination target, double fuel) {
+                counts[1]++;
+            }
+            @Override
+            public void missionEnded(boolean complete, ShuttleState state) {
+                counts[2] = complete ? 1 : -1;
+            }
+        });
+        shuttle.launch();
+        assertEquals(2, counts[0]);   // 10 units at 5 per thrust
+        assertEquals(20, counts[1]);  // 5% per observation step
+        assertEquals(1, counts[2]);
+    }
+
+    @Test
+    public void testAsyncListenerPrintsSameLogAsConsole() {
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        ByteArrayOutputStream async = new ByteArrayOutputStream();
+        SpaceShuttle other = new SpaceShuttle(1000.0);
+        shuttle.addDestination("Moon", 5, 1.0, 10.0);
+        other.addDestination("Moon", 5, 1.0, 10.0);
+
+        shuttle.setListener(new ConsoleMissionListener(new PrintStream(direct)));
+        shuttle.launch();
+        try (AsyncMissionListener listener =
+                 new AsyncMissionListener(new PrintStream(async), 4)) {
+            other.setListener(listener);
+            other.launch();
+        }
+        assertTrue(direct.size() > 0);
+        assertEquals(direct.toString(), async.toString());
+    }
+
+    @Test
+    public void testJournalReplaysMissionWithoutFlyingIt() throws IOException {
+        File file = File.createTempFile("mission", ".orjn");
+        file.deleteOnExit();
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        Orbiter printed = new Orbiter(checkpointMission(), new MissionRandom(3L));
+        printed.setListener(new ConsoleMissionListener(new PrintStream(direct)));
+        printed.startCourse();
+        MissionReplay.Snapshot live = new MissionReplay.Snapshot();
+        Orbiter followed = new Orbiter(checkpointMission(), new MissionRandom(3L));
+        followed.setListener(live);
+        followed.startCourse();
+        Orbiter journaled = new Orbiter(checkpointMission(), new MissionRandom(3L));
+        // a small buffer hands many batches to the writer
+        try (MissionJournal journal = new MissionJournal(file.getAbsolutePath(), 256)) {
+            journaled.setListener(journal);
+            journaled.startCourse();
+            assertEquals(live.getEvents(), journal.getEventCount());
+        }
+
+        MissionReplay replay = MissionReplay.open(file.getAbsolutePath());
+        ByteArrayOutputStream replayed = new ByteArrayOutputStream();
+        assertEquals(replay.getEventCount(),
+                     replay.replay(new ConsoleMissionListener(new PrintStream(replayed))));
+        assertEquals(direct.toString(), replayed.toString());
+
+        MissionReplay.Snapshot end = replay.finalState();
+        assertEquals(live.toString(), end.toString());
+        assertTrue(end.isEnded());
+        assertTrue(end.getEmergencies() > 0);
+        assertEquals(journaled.getShuttle().getProgress(), end.getProgress(), 0.0);
+        assertEquals(journaled.getShuttle().getFuelTank().getCurrentFuel(), end.getFuel(), 0.0);
+        assertNull(replay.stateAt(0).getTarget());
+        MissionReplay.Snapshot half = replay.stateAt(replay.getEventCount() / 2);
+        assertEquals(replay.getEventCount() / 2, half.getEvents());
+        assertFalse(half.isEnded());
+        assertTrue(half.getLegs() <= end.getLegs());
+
+        // a journal cut short reads up to its last whole record
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertEquals(replay.getEventCount() - 1,
+                     MissionReplay.open(file.getAbsolutePath()).getEventCount());
+    }
+
+    @Test
+    public void testOrbitSchedulerObservesPassedDestinations() {
+        List<List<String>> observed = new ArrayList<>();
+        for (OrbitScheduler scheduler : new OrbitScheduler[] { null, new OrbitScheduler(15.0) }) {
+            SpaceShuttle other = new SpaceShuttle(1000.0);
+            other.addDestination("Far", 20, 6.0, 10.0);
+            other.addDestination("Near", 10, 5.0, 10.0);
+            other.addDestination("Dim", 12, 1.0, 10.0);
+            other.setNavigationMode(NavigationMode.EXPLORATION);
+            List<String> complete = new ArrayList<>();
+            other.setListener(new MissionListener() {
+                @Override
+                public void observationComplete(Destination target) {
+                    complete.add(target.getName());
+                }
+            });
+            other.setRandom(new MissionRandom(3L));
+            other.setOrbitScheduler(scheduler);
+            other.launch();
+            observed.add(complete);
+        }
+        assertEquals(Arrays.asList("Far"), observed.get(0));
+        // Near lowers the fuel per value of the 20-unit leg, Dim would not
+        assertEquals(Arrays.asList("Far", "Near"), observed.get(1));
+
+        Destination target = new Destination("Target", 20, 6.0, 10.0);
+        Destination partial = new Destination("Partial", 10, 1.0, 10.0);
+        partial.updateObservation(90.0);
+        FuelTank full = new FuelTank(1000.0);
+        // 28 steps before the tank runs low: the target's 20 and Partial's 2
+        assertEquals(Arrays.asList(target, partial),
+                     OrbitScheduler.turn(Arrays.asList(target, partial), full));
+        full.useFuel(20.0);
+        assertEquals(Arrays.asList(target),
+                     OrbitScheduler.turn(Arrays.asList(target, partial), full));
+    }
+
+    @Test
+    public void testMetricsCountOneLeg() throws Exception {
+        MissionMetrics metrics = new MissionMetrics();
+        shuttle.addDestination("Near", 10, 1.0, 10.0);
+        Orbiter orbiter = new Orbiter(shuttle, new MissionRandom(1L));
+        orbiter.setListener(NoOpMissionListener.INSTANCE);
+        orbiter.setEventDrivenCruise(true);
+        orbiter.setMetrics(metrics);
+        orbiter.startCourse();
+
+        assertEquals(1, metrics.getMissionsCompleted());
+        assertEquals(1, metrics.getLegs());
+        assertEquals(2, metrics.getThrusts());
+        assertEquals(20, metrics.getObservationSteps());
+        assertEquals(0, metrics.getCruiseEmergencies() + metrics.getOrbitEmergencies());
+        // 2 thrusts at 10% and 20 steps at 3%
+        assertEquals(80.0, metrics.getLegFuelPercentP50(), 80.0 / 8);
+        assertTrue(metrics.getCruiseMicrosP50() >= 0);
+
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        ObjectName name = new ObjectName(MissionMetrics.OBJECT_NAME);
+        server.registerMBean(metrics, name);
+        assertEquals(2L, server.getAttribute(name, "Thrusts"));
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, metrics.getThrusts());
+        assertTrue(Double.isNaN(metrics.getSelectMicrosP50()));
+    }
+
+    // ---- MonteCarloRunner tests ----
+
+    @Test
+    public void testMonteCarloRunIsReproducible() {
+        nav.addDestination(new Destination("Mercury", 100, 7.5, 10.0));
+        nav.addDestination(new Destination("Mars", 400, 8.7, 13.0));
+        MonteCarloRunner runner = new MonteCarloRunner(
+            nav.getDestinations(), NavigationMode.STANDARD, 1000.0);
+
+        MonteCarloReport first = runner.run(2000, 42L);
+        MonteCarloReport second = runner.run(2000, 42L);
+        assertEquals(2000, first.getMissions());
+        assertEquals(first.getCompleted(), second.getCompleted());
+        assertEquals(first.getFinalStates(), second.getFinalStates());
+        assertEquals(first.fuelPercentile(50), second.fuelPercentile(50), 0.0);
+        assertEquals(400.0, first.progressPercentile(50), 0.0001);
+        // the catalog itself is never flown
+        assertEquals(0.0, nav.getDestinations().get(1).getProgress(), 0.0);
+    }
+
+    @Test
+    public void testFleetOutcomesDoNotDependOnScheduling() throws IOException {
+        nav.addDestination(new Destination("Mercury", 100, 7.5, 10.0));
+        nav.addDestination(new Destination("Mars", 400, 8.7, 13.0));
+        FleetRunner runner = new FleetRunner(
+            nav.getDestinations(), NavigationMode.STANDARD, 1000.0);
+
+        FleetReport fair = runner.run(1000, 42L);
+        ForkJoinPool lifo = new ForkJoinPool(3);
+        FleetReport stacked = runner.run(1000, 42L, lifo);
+        lifo.shutdown();
+        MonteCarloReport a = fair.getOutcomes();
+        MonteCarloReport b = stacked.getOutcomes();
+        assertEquals(1000, a.getMissions());
+        assertEquals(a.getCompleted(), b.getCompleted());
+        assertEquals(a.getFinalStates(), b.getFinalStates());
+        assertEquals(a.fuelPercentile(50), b.fuelPercentile(50), 0.0);
+        assertEquals(400.0, a.progressPercentile(50), 0.0001);
+        assertEquals(fair.getTicks(), stacked.getTicks());
+        assertTrue(fair.getTicks() >= 2L * a.getCompleted());
+        assertTrue(fair.tickLatencyPercentile(50) <= fair.tickLatencyPercentile(100));
+        // the shared catalog is never flown
+        assertEquals(0.0, nav.getDestinations().get(1).getProgress(), 0.0);
+    }
+
+    @Test
+    public void testMissionsOverOneCatalogDoNotInterfere() throws IOException {
+        SpaceShuttle copied = checkpointMission();
+        List<Destination> list = copied.getNavigationSystem().getDestinations();
+        BinaryCatalog catalog = BinaryCatalog.of(list);
+        // strategies only read what they are given
+        assertNotNull(new StandardNavigationStrategy().selectNext(list, 1e9));
+        assertNotNull(new EfficientNavigationStrategy().selectNext(list, 100.0));
+        assertNotNull(new ExplorationNavigationStrategy().selectNext(list, 100.0));
+        for (Destination d : list) {
+            assertEquals(0.0, d.getProgress(), 0.0);
+        }
+
+        Orbiter[] shared = new Orbiter[2];
+        for (int i = 0; i < shared.length; i++) {
+            SpaceShuttle s = new SpaceShuttle(1000.0);
+            s.setNavigationMode(NavigationMode.EFFICIENT);
+            s.getNavigationSystem().addCatalog(catalog);
+            shared[i] = new Orbiter(s, new MissionRandom(3L));
+            shared[i].setListener(NoOpMissionListener.INSTANCE);
+        }
+        boolean flying = true;
+        while (flying) {
+            flying = shared[0].tick() | shared[1].tick();
+        }
+        Orbiter alone = new Orbiter(copied, new MissionRandom(3L));
+        alone.setListener(NoOpMissionListener.INSTANCE);
+        alone.startCourse();
+        for (Orbiter o : shared) {
+            assertEquals(copied.getProgress(), o.getShuttle().getProgress(), 0.0);
+            assertEquals(copied.getFuelTank().getCurrentFuel(),
+                         o.getShuttle().getFuelTank().getCurrentFuel(), 0.0);
+            assertEquals(copied.getNavigationSystem().getDestinations().size(),
+                         o.getShuttle().getNavigationSystem().getDestinations().size());
+        }
+
+        NavigationSystem fresh = new NavigationSystem();
+        fresh.addCatalog(catalog);
+        Destination first = fresh.getNextDestination(0.0);
+        first.updateObservation(40.0);
+        assertSame(first, fresh.getNextDestination(0.0));
+        assertEquals(40.0, fresh.getNextDestination(0.0).getObservationCompletion(), 0.0);
+        assertEquals(list.size(), fresh.getDestinations().size());
+    }
+
+    @Test
+    public void testModeComparisonMatchesSeparateRuns() throws IOException {
+        List<Destination> catalog =
+            checkpointMission().getNavigationSystem().getDestinations();
+        ModeComparison comparison = new ModeComparison(catalog, 1000.0)
+            .addStrategy("custom", new StandardNavigationStrategy());
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        List<ModeComparison.Row> rows = comparison.run(8, 5L, pool);
+        pool.shutdown();
+        assertEquals(NavigationMode.values().length + 1, rows.size());
+        ModeComparison.Row standard = rows.get(NavigationMode.STANDARD.ordinal());
+        ModeComparison.Row custom = rows.get(rows.size() - 1);
+        assertEquals("custom", custom.getName());
+        // a list strategy flies the same routes as its mode's index
+        assertEquals(standard.getLegs(), custom.getLegs(), 1e-9);
+        assertEquals(standard.getFuelUsedPercent(), custom.getFuelUsedPercent(), 1e-9);
+        assertEquals(standard.getScience(), custom.getScience(), 1e-9);
+        assertEquals(standard.getEmergencies(), custom.getEmergencies(), 1e-9);
+
+        List<ModeComparison.Row> again = comparison.run(8, 5L);
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(rows.get(i).getLegs(), again.get(i).getLegs(), 1e-9);
+            assertEquals(rows.get(i).getScience(), again.get(i).getScience(), 1e-9);
+            assertEquals(8, rows.get(i).getMissions());
+            assertTrue(rows.get(i).getFuelUsedPercent() > 0.0);
+        }
+        assertTrue(ModeComparison.table(rows).contains("EXPLORATION"));
+        // the catalog itself is never flown
+        assertEquals(0.0, catalog.get(0).getProgress(), 0.0);
+    }
+
+    @Test
+    public void testMissionRandomMatchesSplittableRandom() {
+        SplittableRandom expected = new SplittableRandom(42L);
+        MissionRandom actual = new MissionRandom(42L);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), actual.nextLong());
+            assertEquals(expected.nextDouble(), actual.nextDouble(), 0.0);
+            expected = expected.split();
+            actual = actual.split();
+        }
+    }
+
+    @Test
+    public void testSeededLaunchesAreReproducible() {
+        SpaceShuttle[] runs = new SpaceShuttle[2];
+        for (int r = 0; r < runs.length; r++) {
+            runs[r] = checkpointMission();
+            runs[r].setListener(NoOpMissionListener.INSTANCE);
+            runs[r].setRandom(new MissionRandom(11L));
+            runs[r].launch();
+        }
+        assertEquals(runs[0].getProgress(), runs[1].getProgress(), 0.0);
+        assertEquals(runs[0].getFuelTank().getCurrentFuel(),
+                     runs[1].getFuelTank().getCurrentFuel(), 0.0);
+        assertEquals(runs[0].getNavigationSystem().getDestinations().size(),
+                     runs[1].getNavigationSystem().getDestinations().size());
+        // the default source can be carried by a checkpoint too
+        assertTrue(new Orbiter(checkpointMission()).checkpoint().hasRandom());
+    }
+
+    @Test
+    public void testParallelLoaderMatchesLineFormats() throws IOException {
+        File tmp = File.createTempFile("dest", ".txt");
+        tmp.deleteOnExit();
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(tmp))) {
+            w.write("\n");                         // blank
+            w.write("  A\t100  \r\n");             // 2 columns, CRLF
+            w.write("B 1e3 2.5 -7\n");             // exponent, negative
+            w.write("C 1 2\n");                    // 3 columns: ignored
+            for (int i = 0; i < 500; i++) {
+                w.write("N" + i + " " + (i + 0.125) + " 0.1 12.75\n");
+            }
+            w.write("Last 9.000000000000000000000001 0 0");  // no newline
+        }
+        try (FileChannel channel = FileChannel.open(tmp.toPath())) {
+            // many small chunks to exercise the line-boundary split
+            List<Destination> loaded = DestinationFileLoader.load(channel, 13);
+            assertEquals(503, loaded.size());
+            assertEquals("A", loaded.get(0).getName());
+            assertEquals(100.0, loaded.get(0).getDistanceFromEarth(), 0.0);
+            assertEquals(0.0, loaded.get(0).getScientificValue(), 0.0);
+            assertEquals(10.0, loaded.get(0).getConsumptionRate(), 0.0);
+            assertEquals(1000.0, loaded.get(1).getDistanceFromEarth(), 0.0);
+            assertEquals(-7.0, loaded.get(1).getConsumptionRate(), 0.0);
+            for (int i = 0; i < 500; i++) {
+                Destination d = loaded.get(i + 2);
+                assertEquals("N" + i, d.getName());
+                assertEquals(i + 0.125, d.getDistanceFromEarth(), 0.0);
+                assertEquals(0.1, d.getScientificValue(), 0.0);
+            }
+            assertEquals(Double.parseDouble("9.000000000000000000000001"),
+                         loaded.get(502).getDistanceFromEarth(), 0.0);
+        }
+    }
+
+    @Test
+    public void testBinaryCatalogNavigatesLikeTextFile() throws IOException {
+        File txt = File.createTempFile("dest", ".txt");
+        File bin = File.createTempFile("dest", ".orbc");
+        txt.deleteOnExit();
+        bin.deleteOnExit();
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(txt))) {
+            w.write("X 300\n");
+            w.write("Y 200 8.0 20.0\n");
+            w.write("Z 200 8.0 20.0\n");   // ties Y, loses on file order
+            w.write("O 500 3.0 0\n");      // zero rate
+        }
+        BinaryCatalog.convert(txt.getAbsolutePath(), bin.getAbsolutePath());
+        assertTrue(BinaryCatalog.isCatalog(bin.getAbsolutePath()));
+        assertFalse(BinaryCatalog.isCatalog(txt.getAbsolutePath()));
+
+        shuttle.loadDestinationFromFile(bin.getAbsolutePath());
+        NavigationSystem nav = shuttle.getNavigationSystem();
+        assertEquals(4, nav.getDestinations().size());
+        assertEquals("O", nav.getDestinations().get(3).getName());
+
+        Destination y = nav.getNextDestination(0.0);
+        assertEquals("Y", y.getName());
+        assertSame(y, nav.getNextDestination(0.0));
+        shuttle.setNavigationMode(NavigationMode.EFFICIENT);
+        assertEquals("O", nav.getNextDestination(0.0).getName());
+        shuttle.setNavigationMode(NavigationMode.EXPLORATION);
+        assertSame(y, nav.getNextDestination(0.0));
+
+        // added destinations are navigated alongside the catalog
+        nav.addDestination(new Destination("W", 250, 9.0, 10.0));
+        nav.removeReachedDestinations(200.0);
+        assertTrue(y.isReached());
+        assertEquals("W", nav.getNextDestination(200.0).getName());
+        shuttle.setNavigationMode(NavigationMode.STANDARD);
+        assertEquals("W", nav.getNextDestination(200.0).getName());
+        assertEquals(3, nav.getDestinations().size());
+    }
+
+    @Test
+    public void testMissionCacheReturnsStoredResults() throws IOException {
+        List<Destination> list = checkpointMission().getNavigationSystem().getDestinations();
+        BinaryCatalog catalog = BinaryCatalog.of(list);
+        assertEquals(catalog.contentHash(), BinaryCatalog.of(list).contentHash());
+        long[] now = {1_000L};
+        MissionCache cache = new MissionCache(2, Duration.ofMillis(500),
+                                              () -> now[0]);
+
+        MissionResult first = cache.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 3L);
+        assertEquals(MissionResult.fly(catalog, NavigationMode.EFFICIENT, 1000.0, 3L), first);
+        assertSame(first, cache.launch(BinaryCatalog.of(list), NavigationMode.EFFICIENT,
+                                       1000.0, 3L));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // a different seed is a different mission; a third one evicts the eldest
+        cache.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 4L);
+        cache.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 3L);
+        cache.launch(catalog, NavigationMode.STANDARD, 1000.0, 3L);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.getHits());
+
+        File file = File.createTempFile("missions", ".ormc");
+        file.deleteOnExit();
+        cache.save(file.getAbsolutePath());
+        MissionCache restored = new MissionCache(4, Duration.ofMillis(500),
+                                                 () -> now[0]);
+        assertEquals(2, restored.load(file.getAbsolutePath()));
+        assertSame(restored.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 3L),
+                   restored.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 3L));
+        assertEquals(first, restored.launch(catalog, NavigationMode.EFFICIENT, 1000.0, 3L));
+        assertEquals(0, restored.getMisses());
+
+        now[0] += 501;
+        cache.launch(catalog, NavigationMode.STANDARD, 1000.0, 3L);
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, restored.load(file.getAbsolutePath()));
+    }
+
+    @Test
+    public void testParameterSweepFliesEachConfiguration() throws IOException {
+        MissionParameters custom = MissionParameters.DEFAULT.withThrustFuel(4.0)
+            .withThrustProgress(8.0).withObservationFuel(2.0).withLowFuelFraction(0.3);
+        SpaceShuttle shuttle = new SpaceShuttle(custom);
+        shuttle.getEngine().start();
+        assertEquals(8.0, shuttle.getEngine().thrust(shuttle.getFuelTank()), 0.0);
+        assertEquals(960.0, shuttle.getFuelTank().getCurrentFuel(), 1e-9);
+        shuttle.getFuelTank().setCurrentFuel(299.0);
+        assertTrue(shuttle.getFuelTank().isLowFuel());
+
+        List<Destination> list = checkpointMission().getNavigationSystem().getDestinations();
+        BinaryCatalog catalog = BinaryCatalog.of(list);
+        assertEquals(MissionResult.fly(catalog, NavigationMode.EFFICIENT, 1000.0, 5L),
+                     MissionResult.fly(catalog, NavigationMode.EFFICIENT,
+                                       MissionParameters.DEFAULT, 5L));
+
+        Map<MissionParameters.Setting, double[]> axes =
+            new LinkedHashMap<>();
+        axes.put(MissionParameters.Setting.MAX_FUEL, new double[] {600, 1000, 1400});
+        axes.put(MissionParameters.Setting.THRUST_FUEL, new double[] {6, 12});
+        List<MissionParameters> grid = ParameterSweep.grid(MissionParameters.DEFAULT, axes);
+        assertEquals(6, grid.size());
+        assertEquals(MissionParameters.DEFAULT.withMaxFuel(1000).withThrustFuel(12),
+                     grid.get(3));
+
+        Map<MissionParameters.Setting, double[]> ranges =
+            new LinkedHashMap<>();
+        ranges.put(MissionParameters.Setting.OBSERVATION_FUEL, new double[] {1, 6});
+        ranges.put(MissionParameters.Setting.LOW_FUEL_FRACTION, new double[] {0.05, 0.3});
+        List<MissionParameters> sample =
+            ParameterSweep.latinHypercube(MissionParameters.DEFAULT, ranges, 10, 9L);
+        assertEquals(sample, ParameterSweep.latinHypercube(MissionParameters.DEFAULT,
+                                                           ranges, 10, 9L));
+        boolean[] strata = new boolean[10];
+        for (MissionParameters p : sample) {
+            int stratum = (int) ((p.getObservationFuel() - 1) / 5 * 10);
+            assertFalse(strata[stratum]);
+            strata[stratum] = true;
+            assertEquals(MissionParameters.DEFAULT.getMaxFuel(), p.getMaxFuel(), 0.0);
+        }
+
+        ParameterSweep sweep = new ParameterSweep(catalog, NavigationMode.EFFICIENT);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        ParameterSweep.Table table;
+        try {
+            table = sweep.run(grid, 4, 11L, pool);
+            assertArrayEquals(table.getScience(), sweep.run(grid, 4, 11L).getScience(), 0.0);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(6, table.size());
+        assertArrayEquals(new double[] {600, 600, 1000, 1000, 1400, 1400},
+                          table.column(MissionParameters.Setting.MAX_FUEL), 0.0);
+        long[] seeds = new long[4];
+        MissionRandom root = new MissionRandom(11L);
+        for (int i = 0; i < 4; i++) {
+            seeds[i] = root.nextLong();
+        }
+        int completed = 0;
+        double science = 0;
+        for (long s : seeds) {
+            MissionResult r = MissionResult.fly(catalog, NavigationMode.EFFICIENT, grid.get(5), s);
+            completed += r.isCompleted() ? 1 : 0;
+            science += r.getScience();
+        }
+        assertEquals(completed, table.getCompleted()[5]);
+        assertEquals(science / 4, table.getScience()[5], 1e-9);
+        assertEquals(7, table.toCsv().split(System.lineSeparator()).length);
+
+        // through a cache, a second sweep over the same grid flies nothing
+        MissionCache cache = new MissionCache(64, Duration.ofHours(1));
+        sweep.setCache(cache);
+        assertArrayEquals(table.getScience(), sweep.run(grid, 4, 11L).getScience(), 0.0);
+        assertEquals(24, cache.getMisses());
+        assertArrayEquals(table.getFuel(), sweep.run(grid, 4, 11L).getFuel(), 0.0);
+        assertEquals(24, cache.getMisses());
+        assertEquals(24, cache.getHits());
+        // the costs are part of the key, and of the saved file
+        MissionParameters costly = grid.get(0).withObservationFuel(4.0);
+        cache.launch(catalog, NavigationMode.EFFICIENT, costly, seeds[0]);
+        assertEquals(25, cache.getMisses());
+        File file = File.createTempFile("sweep", ".ormc");
+        file.deleteOnExit();
+        cache.save(file.getAbsolutePath());
+        MissionCache restored = new MissionCache(64, Duration.ofHours(1));
+        assertEquals(25, restored.load(file.getAbsolutePath()));
+        assertEquals(MissionResult.fly(catalog, NavigationMode.EFFICIENT, costly, seeds[0]),
+                     restored.launch(catalog, NavigationMode.EFFICIENT, costly, seeds[0]));
+        assertEquals(0, restored.getMisses());
+    }
+
+    @Test(timeout = 10000)
+    public void testMissionsWithoutLowFuelThresholdEnd() throws IOException {
+        MissionParameters never = MissionParameters.DEFAULT.withLowFuelFraction(0.0);
+        for (boolean eventDriven : new boolean[] {false, true}) {
+            SpaceShuttle s = new SpaceShuttle(never);
+            for (int i = 0; i < 30; i++) {
+                s.addDestination("D" + i, 20 + (i * 47) % 400, i % 7, 5 + i % 3);
+            }
+            s.setListener(NoOpMissionListener.INSTANCE);
+            s.setEventDrivenCruise(eventDriven);
+            s.launch();
+            assertTrue(s.getNavigationSystem().isEmpty());
+            assertFalse(s.getFuelTank().isLowFuel());
+        }
+        BinaryCatalog catalog = BinaryCatalog.of(
+            checkpointMission().getNavigationSystem().getDestinations());
+        MissionResult result = MissionResult.fly(catalog, NavigationMode.EFFICIENT, never, 1L);
+        assertTrue(result.isCompleted());
+        assertEquals(0, result.getEmergencies());
+    }
+
+    // ---- Checkpoint tests ----
+
+    private static SpaceShuttle checkpointMission() {
+        SpaceShuttle s = new SpaceShuttle(1000.0);
+        s.setNavigationMode(NavigationMode.EFFICIENT);
+        for (int i = 0; i < 30; i++) {
+            s.addDestination("D" + i, 20 + (i * 47) % 400, i % 7, 5 + i % 3);
+        }
+        return s;
+    }
+
+    @Test
+    public void testResumedMissionEndsLikeUninterrupted() throws IOException {
+        Orbiter original = new Orbiter(checkpointMission(), new Random(7));
+        original.setListener(NoOpMissionListener.INSTANCE);
+        for (int leg = 0; leg < 5; leg++) {
+            assertTrue(original.tick());
+        }
+        MissionCheckpoint checkpoint = original.checkpoint();
+        File file = File.createTempFile("mission", ".orck");
+        file.deleteOnExit();
+        checkpoint.write(file.getAbsolutePath());
+        original.startCourse();
+
+        MissionCheckpoint read = MissionCheckpoint.read(file.getAbsolutePath());
+        assertTrue(read.hasRandom());
+        assertEquals(MissionParameters.DEFAULT, read.getParameters());
+        assertEquals(checkpoint.getRemainingCount(), read.getRemainingCount());
+        assertEquals(checkpoint.getFuel(), read.getFuel(), 0.0);
+        Orbiter resumed = read.restore();
+        resumed.setListener(NoOpMissionListener.INSTANCE);
+        resumed.startCourse();
+
+        SpaceShuttle a = original.getShuttle();
+        SpaceShuttle b = resumed.getShuttle();
+        assertEquals(original.getState(), resumed.getState());
+        assertEquals(original.isMissionComplete(), resumed.isMissionComplete());
+        assertEquals(a.getProgress(), b.getProgress(), 0.0);
+        assertEquals(a.getFuelTank().getCurrentFuel(), b.getFuelTank().getCurrentFuel(), 0.0);
+        assertEquals(a.getNavigationSystem().getDestinations().size(),
+                     b.getNavigationSystem().getDestinations().size());
+    }
+
+    @Test
+    public void testCheckpointerLeavesFinalState() throws IOException {
+        File file = File.createTempFile("mission", ".orck");
+        file.deleteOnExit();
+        Orbiter orbiter = new Orbiter(checkpointMission(), new Random(7));
+        orbiter.setListener(NoOpMissionListener.INSTANCE);
+        try (MissionCheckpointer checkpointer =
+                 new MissionCheckpointer(file.getAbsolutePath(), 2)) {
+            checkpointer.run(orbiter);
+        }
+        MissionCheckpoint last = MissionCheckpoint.read(file.getAbsolutePath());
+        assertEquals(orbiter.getShuttle().getProgress(), last.getProgress(), 0.0);
+        assertEquals(orbiter.getState(), last.getState());
+        // an ended mission stays ended
+        assertFalse(last.restore().tick());
+
+        try {
+            MissionCheckpoint.fromBytes(ByteBuffer.wrap(new byte[8]));
+            fail("expected IOException");
+        } catch (IOException expected) {
+            // not a checkpoint
+        }
+    }
+
     @Test
     public void testLaunchWithNoDestinations() {
         // Should not throw and should not crash
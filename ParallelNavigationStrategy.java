@@ -0,0 +1,138 @@
+// ParallelNavigationStrategy.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs another strategy's selection over large lists in parallel: the
+ * list is halved into chunks, as its spliterator would split it, the
+ * strategy chooses in each chunk on a fork-join pool, and the chunk
+ * winners are reduced pairwise by asking it again, the earlier chunk's
+ * winner first. Chunks are subList views, so nothing is copied.
+ *
+ * That gives the sequential choice exactly, ties included, for any
+ * strategy that picks the first destination best by some order on
+ * single destinations, as the built-in ones do. Strategies that look
+ * at the list as a whole must not be wrapped.
+ *
+ * Lists below the threshold, and pools with a single worker, stay on
+ * the sequential path and pay no fork overhead.
+ *
+ * @author Nihat Masimli
+ */
+public final class ParallelNavigationStrategy implements NavigationStrategy {
+    /** Destinations below which one core scans faster than a fork. */
+    public static final int DEFAULT_THRESHOLD = 1 << 15;
+    /** Fewest destinations a chunk is split down to. */
+    private static final int MIN_CHUNK = 1 << 12;
+    /** Chunks per worker, so that stealing evens out slow ones. */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final NavigationStrategy strategy;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Parallel above DEFAULT_THRESHOLD destinations, on the common pool.
+     *
+     * @param strategy strategy choosing the first best destination
+     */
+    public ParallelNavigationStrategy(NavigationStrategy strategy) {
+        this(strategy, DEFAULT_THRESHOLD, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param strategy  strategy choosing the first best destination
+     * @param threshold fewest destinations selected in parallel
+     * @param pool      pool the chunks are selected on
+     */
+    public ParallelNavigationStrategy(NavigationStrategy strategy, int threshold,
+                                      ForkJoinPool pool) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be >= 2: " + threshold);
+        }
+        this.strategy = strategy;
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    @Override
+    public Destination selectNext(List<Destination> destinations, double currentProgress) {
+        int n = destinations.size();
+        if (n < threshold || pool.getParallelism() < 2) {
+            return strategy.selectNext(destinations, currentProgress);
+        }
+        List<Destination> list = destinations instanceof RandomAccess
+                                 ? destinations : new ArrayList<>(destinations);
+        int chunk = Math.max(MIN_CHUNK, n / (CHUNKS_PER_WORKER * pool.getParallelism()));
+        Select task = new Select(list, chunk, currentProgress);
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+
+    @Override
+    public int selectNext(DestinationStore store, double currentProgress) {
+        return strategy.selectNext(store, currentProgress);
+    }
+
+    @Override
+    public boolean scores() {
+        return strategy.scores();
+    }
+
+    @Override
+    public double score(Destination destination, double currentProgress) {
+        return strategy.score(destination, currentProgress);
+    }
+
+    /** The strategy run over each chunk. */
+    public NavigationStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /** Selects in one chunk, splitting it further while it is large. */
+    private final class Select extends RecursiveTask<Destination> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Destination> chunk;
+        private final int leaf;
+        private final double progress;
+
+        Select(List<Destination> chunk, int leaf, double progress) {
+            this.chunk = chunk;
+            this.leaf = leaf;
+            this.progress = progress;
+        }
+
+        @Override
+        protected Destination compute() {
+            int n = chunk.size();
+            if (n <= leaf) {
+                return strategy.selectNext(chunk, progress);
+            }
+            int mid = n >>> 1;
+            Select first = new Select(chunk.subList(0, mid), leaf, progress);
+            first.fork();
+            Destination second = new Select(chunk.subList(mid, n), leaf, progress).compute();
+            return better(first.join(), second);
+        }
+
+        /** The strategy's choice of two chunk winners, the earlier first. */
+        private Destination better(Destination first, Destination second) {
+            if (first == null || second == null) {
+                return first == null ? second : first;
+            }
+            return strategy.selectNext(Arrays.asList(first, second), progress);
+        }
+    }
+}
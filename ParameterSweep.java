@@ -0,0 +1,380 @@
+// ParameterSweep.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Flies the same catalog under many MissionParameters, to see how
+ * capacity, thrust and observation costs and the low-fuel threshold
+ * shape a mission: a full grid of chosen values, or a Latin-hypercube
+ * sample of ranges when a grid would be too large.
+ *
+ * The destinations are laid out once as a BinaryCatalog that every
+ * mission navigates without writing, as in MonteCarloRunner, and the
+ * configurations are split over a fork-join pool. Mission i of every
+ * configuration draws from the same MissionRandom seed, so two rows
+ * differ by their parameters and not by their luck with refuels.
+ *
+ * The results come back as a Table of columns, one value per
+ * configuration in each, ready to be plotted or written as CSV. With a
+ * MissionCache, missions already flown by an earlier sweep are looked
+ * up instead.
+ *
+ * Usage:
+ *   java ParameterSweep destinations.txt [mode] [samples] [missions] [seed]
+ * samples a Latin hypercube of every setting around the defaults and
+ * prints the table as CSV.
+ *
+ * @author Nihat Masimli
+ */
+public class ParameterSweep {
+    /** Missions flown by one task before it stops splitting. */
+    private static final int MISSIONS_PER_TASK = 256;
+
+    private final BinaryCatalog catalog;
+    private final NavigationMode mode;
+    private MissionCache cache;
+
+    /**
+     * @param catalog destinations every mission starts from (copied once
+     *                into a shared catalog)
+     * @param mode    navigation mode used by every mission
+     * @throws IOException if the catalog would exceed 2 GB
+     */
+    public ParameterSweep(List<Destination> catalog, NavigationMode mode) throws IOException {
+        this(BinaryCatalog.of(catalog), mode);
+    }
+
+    /**
+     * @param catalog shared catalog every mission starts from
+     * @param mode    navigation mode used by every mission
+     */
+    public ParameterSweep(BinaryCatalog catalog, NavigationMode mode) {
+        this.catalog = catalog;
+        this.mode = mode;
+    }
+
+    /**
+     * Flies missions through a cache, so that overlapping sweeps only
+     * fly the configurations that are new; null flies every one.
+     *
+     * @param cache cache shared by the sweep's workers, or null
+     * @return this sweep
+     */
+    public ParameterSweep setCache(MissionCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Every combination of the given values, the other settings taken
+     * from a base. The last setting of the map varies fastest.
+     *
+     * @param base   parameters of the settings not swept
+     * @param values values of each swept setting
+     * @return one configuration per combination
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public static List<MissionParameters> grid(MissionParameters base,
+                                               Map<MissionParameters.Setting, double[]> values) {
+        List<MissionParameters> configs = new ArrayList<>();
+        configs.add(base);
+        for (Map.Entry<MissionParameters.Setting, double[]> axis : values.entrySet()) {
+            List<MissionParameters> next = new ArrayList<>(configs.size() * axis.getValue().length);
+            for (MissionParameters p : configs) {
+                for (double v : axis.getValue()) {
+                    next.add(axis.getKey().with(p, v));
+                }
+            }
+            configs = next;
+        }
+        return configs;
+    }
+
+    /**
+     * A Latin-hypercube sample of ranges, the other settings taken from a
+     * base. Each range is cut into as many equal strata as samples, and
+     * every stratum of every setting is sampled exactly once, so a few
+     * hundred samples cover each setting evenly where a grid would need
+     * millions of points.
+     *
+     * @param base    parameters of the settings not swept
+     * @param ranges  lowest and highest value of each swept setting
+     * @param samples number of configurations
+     * @param seed    seed of the sample; equal seeds give equal samples
+     * @return the configurations
+     * @throws IllegalArgumentException if a range is not two ordered
+     *                                  values or holds values out of range
+     */
+    public static List<MissionParameters> latinHypercube(
+            MissionParameters base, Map<MissionParameters.Setting, double[]> ranges,
+            int samples, long seed) {
+        if (samples < 1) {
+            throw new IllegalArgumentException("samples must be >= 1");
+        }
+        MissionRandom random = new MissionRandom(seed);
+        MissionParameters[] configs = new MissionParameters[samples];
+        Arrays.fill(configs, base);
+        int[] strata = new int[samples];
+        for (Map.Entry<MissionParameters.Setting, double[]> range : ranges.entrySet()) {
+            double[] r = range.getValue();
+            if (r.length != 2 || !(r[0] <= r[1])) {
+                throw new IllegalArgumentException(
+                    range.getKey() + " range must be {low, high}");
+            }
+            for (int i = 0; i < samples; i++) {
+                strata[i] = i;
+            }
+            for (int i = samples - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int t = strata[i];
+                strata[i] = strata[j];
+                strata[j] = t;
+            }
+            for (int i = 0; i < samples; i++) {
+                double v = r[0] + (strata[i] + random.nextDouble()) / samples * (r[1] - r[0]);
+                configs[i] = range.getKey().with(configs[i], Math.min(v, r[1]));
+            }
+        }
+        return Arrays.asList(configs);
+    }
+
+    /**
+     * Runs the sweep on the common fork-join pool.
+     *
+     * @param configs  parameters to fly
+     * @param missions missions flown under each configuration
+     * @param seed     root seed; equal seeds give equal tables
+     * @return one row per configuration, in their order
+     */
+    public Table run(List<MissionParameters> configs, int missions, long seed) {
+        return run(configs, missions, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the sweep on the given pool.
+     *
+     * @param configs  parameters to fly
+     * @param missions missions flown under each configuration
+     * @param seed     root seed; equal seeds give equal tables
+     * @param pool     pool flying the missions
+     * @return one row per configuration, in their order
+     */
+    public Table run(List<MissionParameters> configs, int missions, long seed,
+                     ForkJoinPool pool) {
+        if (missions < 1) {
+            throw new IllegalArgumentException("missions must be >= 1");
+        }
+        MissionRandom root = new MissionRandom(seed);
+        long[] seeds = new long[missions];
+        for (int i = 0; i < missions; i++) {
+            seeds[i] = root.nextLong();
+        }
+        Table table = new Table(configs.toArray(new MissionParameters[0]), missions);
+        pool.invoke(new SweepTask(table, seeds, 0, table.size()));
+        return table;
+    }
+
+    /** Flies every mission of one configuration into its row. */
+    private void runConfig(Table table, long[] seeds, int row) {
+        MissionParameters p = table.configs[row];
+        int completed = 0;
+        double fuel = 0;
+        double progress = 0;
+        double science = 0;
+        double legs = 0;
+        double observations = 0;
+        double emergencies = 0;
+        for (long s : seeds) {
+            MissionResult r = cache != null ? cache.launch(catalog, mode, p, s)
+                                            : MissionResult.fly(catalog, mode, p, s);
+            completed += r.isCompleted() ? 1 : 0;
+            fuel += r.getFuel();
+            progress += r.getProgress();
+            science += r.getScience();
+            legs += r.getLegs();
+            observations += r.getObservations();
+            emergencies += r.getEmergencies();
+        }
+        int n = seeds.length;
+        table.completed[row] = completed;
+        table.fuel[row] = fuel / n;
+        table.progress[row] = progress / n;
+        table.science[row] = science / n;
+        table.legs[row] = legs / n;
+        table.observations[row] = observations / n;
+        table.emergencies[row] = emergencies / n;
+    }
+
+    /** Splits the configuration range in halves. */
+    private final class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Table table;
+        private final long[] seeds;
+        private final int from;
+        private final int to;
+
+        SweepTask(Table table, long[] seeds, int from, int to) {
+            this.table = table;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || (long) (to - from) * seeds.length <= MISSIONS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    runConfig(table, seeds, i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SweepTask(table, seeds, from, mid),
+                      new SweepTask(table, seeds, mid, to));
+        }
+    }
+
+    /**
+     * Outcome of a sweep, one row per configuration, stored by column.
+     * Each task of the sweep writes only its own rows; the column
+     * getters return copies.
+     */
+    public static final class Table {
+        private final MissionParameters[] configs;
+        private final int missions;
+        private final int[] completed;
+        private final double[] fuel;
+        private final double[] progress;
+        private final double[] science;
+        private final double[] legs;
+        private final double[] observations;
+        private final double[] emergencies;
+
+        Table(MissionParameters[] configs, int missions) {
+            int n = configs.length;
+            this.configs = configs;
+            this.missions = missions;
+            this.completed = new int[n];
+            this.fuel = new double[n];
+            this.progress = new double[n];
+            this.science = new double[n];
+            this.legs = new double[n];
+            this.observations = new double[n];
+            this.emergencies = new double[n];
+        }
+
+        /** Number of configurations. */
+        public int size() { return configs.length; }
+        /** Missions flown under each configuration. */
+        public int getMissions() { return missions; }
+        /** Parameters of one row. */
+        public MissionParameters getParameters(int row) { return configs[row]; }
+
+        /** Values of one setting, by row. */
+        public double[] column(MissionParameters.Setting setting) {
+            double[] values = new double[configs.length];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = setting.get(configs[i]);
+            }
+            return values;
+        }
+
+        /** Missions that visited every destination, by row. */
+        public int[] getCompleted() { return completed.clone(); }
+        /** Mean fuel left at the end, by row. */
+        public double[] getFuel() { return fuel.clone(); }
+        /** Mean distance travelled, by row. */
+        public double[] getProgress() { return progress.clone(); }
+        /** Mean scientific value of the completed observations, by row. */
+        public double[] getScience() { return science.clone(); }
+        public double[] getLegs() { return legs.clone(); }
+        public double[] getObservations() { return observations.clone(); }
+        public double[] getEmergencies() { return emergencies.clone(); }
+
+        /**
+         * The table as CSV: a header line, then one line per row with
+         * every setting and result.
+         */
+        public String toCsv() {
+            StringBuilder sb = new StringBuilder();
+            for (MissionParameters.Setting s : MissionParameters.Setting.values()) {
+                sb.append(s.name().toLowerCase()).append(',');
+            }
+            sb.append("completed,fuel,progress,science,legs,observations,emergencies")
+              .append(System.lineSeparator());
+            for (int i = 0; i < configs.length; i++) {
+                for (MissionParameters.Setting s : MissionParameters.Setting.values()) {
+                    sb.append(s.get(configs[i])).append(',');
+                }
+                sb.append(completed[i]).append(',').append(fuel[i]).append(',')
+                  .append(progress[i]).append(',').append(science[i]).append(',')
+                  .append(legs[i]).append(',').append(observations[i]).append(',')
+                  .append(emergencies[i]).append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ParameterSweep.Table{%d configurations x %d missions}",
+                                 configs.length, missions);
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println(
+              "Usage: java ParameterSweep destinations.txt [mode] [samples] [missions] [seed]"
+            );
+            return;
+        }
+        NavigationMode mode = NavigationMode.STANDARD;
+        if (args.length > 1) {
+            try {
+                mode = NavigationMode.valueOf(args[1].toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Unknown mode '" + args[1] + "'. Using STANDARD.");
+            }
+        }
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int missions = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        ParameterSweep sweep;
+        try {
+            sweep = BinaryCatalog.isCatalog(args[0])
+                ? new ParameterSweep(BinaryCatalog.open(args[0]), mode)
+                : new ParameterSweep(DestinationFileLoader.load(args[0]), mode);
+        } catch (IOException e) {
+            System.err.println("Failed to load " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        Map<MissionParameters.Setting, double[]> ranges =
+            new EnumMap<>(MissionParameters.Setting.class);
+        ranges.put(MissionParameters.Setting.MAX_FUEL, new double[] {500, 2000});
+        ranges.put(MissionParameters.Setting.THRUST_FUEL, new double[] {5, 15});
+        ranges.put(MissionParameters.Setting.THRUST_PROGRESS, new double[] {2.5, 10});
+        ranges.put(MissionParameters.Setting.OBSERVATION_FUEL, new double[] {1, 6});
+        ranges.put(MissionParameters.Setting.OBSERVATION_STEP, new double[] {2.5, 10});
+        ranges.put(MissionParameters.Setting.LOW_FUEL_FRACTION, new double[] {0.05, 0.3});
+        List<MissionParameters> configs =
+            latinHypercube(MissionParameters.DEFAULT, ranges, samples, seed);
+
+        long start = System.nanoTime();
+        Table table = sweep.run(configs, missions, seed);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.print(table.toCsv());
+        System.err.printf("Swept %d configurations x %d missions in %d ms (seed %d)%n",
+                          samples, missions, millis, seed);
+    }
+}
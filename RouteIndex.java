@@ -0,0 +1,122 @@
+// RouteIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Index for OPTIMAL mode: follows a RoutePlan over the destinations of
+ * another index, which keeps holding and dropping them.
+ * The plan is made on the first selection and made again whenever
+ * destinations were added or the shuttle is somewhere it did not plan.
+ */
+public class RouteIndex extends DestinationIndex {
+    private final DestinationIndex destinations;
+    private final RoutePlanner planner;
+    private final FuelTank tank;
+    private final MissionParameters parameters;
+    private RoutePlan plan;
+
+    /**
+     * @param destinations index holding the destinations
+     * @param planner      planner to use
+     * @param tank         tank to read the fuel level from, or null to
+     *                     plan with a full tank
+     */
+    public RouteIndex(DestinationIndex destinations, RoutePlanner planner, FuelTank tank) {
+        this(destinations, planner, tank, MissionParameters.DEFAULT);
+    }
+
+    /**
+     * @param destinations index holding the destinations
+     * @param planner      planner to use
+     * @param tank         tank to read the fuel level from, or null to
+     *                     plan with a full tank
+     * @param parameters   costs of the mission the plan is for
+     */
+    public RouteIndex(DestinationIndex destinations, RoutePlanner planner, FuelTank tank,
+                      MissionParameters parameters) {
+        this.destinations = destinations;
+        this.planner = planner;
+        this.tank = tank;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public void add(Destination dest) {
+        destinations.add(dest);
+        plan = null;
+    }
+
+    @Override
+    public void addAll(Collection<Destination> dests) {
+        destinations.addAll(dests);
+        plan = null;
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        destinations.removeReached(progress);
+    }
+
+    @Override
+    public Destination next(double progress) {
+        Destination best = plan(progress).next(progress, fuelPercent());
+        if (best != null) {
+            best.updateProgress(progress);
+        }
+        return best;
+    }
+
+    /**
+     * The plan being followed, made now if there is none for this
+     * progress.
+     *
+     * @param progress shuttle's current travelled distance
+     * @return plan covering the progress
+     */
+    public RoutePlan plan(double progress) {
+        if (plan == null || !plan.covers(progress)) {
+            plan = planner.plan(destinations.destinations(), progress, fuelPercent(),
+                                parameters);
+        }
+        return plan;
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        return mode == NavigationMode.OPTIMAL ? this : destinations.reindex(mode);
+    }
+
+    @Override
+    public List<Destination> within(double from, double to) {
+        return destinations.within(from, to);
+    }
+
+    /** Ranks as the index under the plan, i.e. as STANDARD. */
+    @Override
+    protected NavigationStrategy ranking() {
+        return destinations.ranking();
+    }
+
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        return destinations.topK(k, progress);
+    }
+
+    @Override
+    public int size() {
+        return destinations.size();
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        return destinations.destinations();
+    }
+
+    private double fuelPercent() {
+        return tank == null ? RoutePlanner.FULL
+                            : 100.0 * tank.getCurrentFuel() / tank.getMaxFuel();
+    }
+}
@@ -0,0 +1,130 @@
+// RoutePlan.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A route computed by RoutePlanner: for every stop on it and every fuel
+ * level, which destination to head for next.
+ *
+ * @author Nihat Masimli
+ */
+public final class RoutePlan {
+    private final RoutePlanner.Costs costs;
+    private final double origin;
+    private final long[] buckets;
+    private final Destination[] targets;
+    /** Next target per row and fuel level; the last row is the origin. */
+    private final int[][] choice;
+    private final double expectedScience;
+    private final double expectedEmergencies;
+    private final boolean exact;
+
+    RoutePlan(RoutePlanner.Costs costs, double origin, long[] buckets,
+              Destination[] targets, int[][] choice, double expectedScience,
+              double expectedEmergencies, boolean exact) {
+        this.costs = costs;
+        this.origin = origin;
+        this.buckets = buckets;
+        this.targets = targets;
+        this.choice = choice;
+        this.expectedScience = expectedScience;
+        this.expectedEmergencies = expectedEmergencies;
+        this.exact = exact;
+    }
+
+    /**
+     * True if the shuttle is at a point this plan knows: where it was
+     * made, or on arrival at one of its stops.
+     *
+     * @param progress shuttle's current travelled distance
+     */
+    public boolean covers(double progress) {
+        return row(progress) >= 0;
+    }
+
+    /**
+     * The destination to head for next.
+     *
+     * @param progress    shuttle's current travelled distance, which the
+     *                    plan must cover
+     * @param fuelPercent fuel left, in percent of the capacity
+     * @return next target, or null at the end of the route
+     */
+    public Destination next(double progress, double fuelPercent) {
+        int row = row(progress);
+        if (row < 0) {
+            throw new IllegalArgumentException("Progress " + progress + " is off the plan");
+        }
+        int next = choice[row][RoutePlanner.fuelLevel(fuelPercent)];
+        return next < 0 ? null : targets[next];
+    }
+
+    /**
+     * The stops in order if every emergency refuel succeeds.
+     *
+     * @param fuelPercent fuel left at the start, in percent of the capacity
+     * @return destinations to observe, nearest first
+     */
+    public List<Destination> route(double fuelPercent) {
+        List<Destination> route = new ArrayList<>();
+        int fuel = RoutePlanner.fuelLevel(fuelPercent);
+        int row = targets.length;
+        long bucket = 0;
+        while (choice[row][fuel] >= 0) {
+            int next = choice[row][fuel];
+            long cruise = costs.cruise(fuel, buckets[next] - bucket);
+            RoutePlanner.Observation o = costs.observe(RoutePlanner.arrivalFuel(cruise),
+                                                       Math.max(costs.steps(targets[next]), 0));
+            fuel = o.fuel[o.fuel.length - 1];
+            route.add(targets[next]);
+            row = next;
+            bucket = buckets[next];
+        }
+        return route;
+    }
+
+    /** Expected scientific value collected, from the planning fuel level. */
+    public double getExpectedScience() {
+        return expectedScience;
+    }
+
+    /** Expected number of low-fuel emergencies, from the planning fuel level. */
+    public double getExpectedEmergencies() {
+        return expectedEmergencies;
+    }
+
+    /** True if every destination ahead was considered as a stop. */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Row of the plan at a progress, or -1 if it is off the plan. The
+     * progress is reached thrust by thrust, so it may be off the exact
+     * multiple by the rounding of each addition.
+     */
+    private int row(double progress) {
+        double steps = (progress - origin) / costs.thrustProgress;
+        long bucket = Math.round(steps);
+        double rounding = Math.abs(bucket) * Math.ulp(progress) / costs.thrustProgress;
+        if (Math.abs(steps - bucket) > 1e-9 + rounding) {
+            return -1;
+        }
+        if (bucket == 0) {
+            return targets.length;
+        }
+        int row = Arrays.binarySearch(buckets, bucket);
+        return row >= 0 ? row : -1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "RoutePlan{stops=%d, exact=%b, expectedScience=%.2f, expectedEmergencies=%.2f}",
+            targets.length, exact, expectedScience, expectedEmergencies);
+    }
+}
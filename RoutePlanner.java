@@ -0,0 +1,585 @@
+// RoutePlanner.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Plans the whole route for OPTIMAL mode instead of only the next hop.
+ *
+ * Progress only ever grows, and every destination the shuttle passes on
+ * its way to a target is dropped unobserved, so a route is the set of
+ * targets it stops at, visited by distance. Cruising to the farthest
+ * destination costs the same on any route. What differs is the fuel
+ * spent observing and the low-fuel emergencies that follow. An emergency refuel fails half of the time; during an
+ * observation, that ends it early and its scientific value is lost.
+ *
+ * The planner maximises
+ *   expected science - emergencyPenalty * expected emergencies
+ *                    - fuelPenalty * expected tanks of fuel burned
+ * with a dynamic program over (arrival point, fuel level). Fuel levels
+ * are whole percents of the capacity, as every burn is with the default
+ * MissionParameters; other fuel costs and thresholds are rounded to
+ * whole percents. The result is a policy: the next target depends on
+ * the fuel actually left.
+ *
+ * Up to 128 stopping points are solved exactly. Beyond that, the
+ * farthest destination plus the most valuable others are solved, and
+ * the set is doubled while the time budget lasts. Rows of large tables
+ * are computed in parallel over the fuel levels.
+ *
+ * @author Nihat Masimli
+ */
+public final class RoutePlanner {
+    /** Fuel levels are whole percents of the capacity. */
+    static final int FULL = 100;
+    private static final int EXACT_LIMIT = 128;
+    private static final int MAX_STOPS = 4096;
+    private static final int PARALLEL_LIMIT = 512;
+
+    private final double emergencyPenalty;
+    private final double fuelPenalty;
+    private final long timeBudgetNanos;
+
+    /**
+     * Planner counting one expected emergency as much as one unit of
+     * scientific value, ignoring fuel, with a 100 ms budget.
+     */
+    public RoutePlanner() {
+        this(1.0, 0.0, 100);
+    }
+
+    /**
+     * @param emergencyPenalty scientific value given up to avoid one
+     *                         expected emergency
+     * @param fuelPenalty      scientific value given up to save one full
+     *                         tank of fuel
+     * @param timeBudgetMillis time allowed for improving a plan beyond
+     *                         the exact one over 128 stops
+     */
+    public RoutePlanner(double emergencyPenalty, double fuelPenalty,
+                        long timeBudgetMillis) {
+        this.emergencyPenalty = emergencyPenalty;
+        this.fuelPenalty = fuelPenalty;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    /**
+     * A mission's parameters on the planner's fuel levels: costs and the
+     * low-fuel threshold in whole percents, a positive one at least 1%.
+     */
+    static final class Costs {
+        final int low;
+        final int thrustFuel;
+        final int observationFuel;
+        /** Thrusts from a full tank until fuel is low. */
+        final int fromFull;
+        final double thrustProgress;
+        final double observationStep;
+
+        Costs(MissionParameters parameters) {
+            this.low = percent(parameters.getLowFuelFraction() * FULL);
+            this.thrustFuel = percent(parameters.getThrustFuel());
+            this.observationFuel = percent(parameters.getObservationFuel());
+            this.thrustProgress = parameters.getThrustProgress();
+            this.observationStep = parameters.getObservationStep();
+            this.fromFull = untilLow(FULL, thrustFuel);
+        }
+
+        private static int percent(double value) {
+            return value > 0 ? (int) Math.max(Math.round(value), 1) : 0;
+        }
+
+        /** Burns of a cost from a fuel level until it is low, or MAX_VALUE if never. */
+        int untilLow(int fuel, int cost) {
+            if (low == 0 || cost == 0) {
+                return Integer.MAX_VALUE;
+            }
+            return fuel < low ? 1 : (fuel - low) / cost + 1;
+        }
+
+        /**
+         * Thrusts from the origin until each destination is reached,
+         * with the progress added up thrust by thrust as a cruise adds
+         * it; 0 where a destination is not ahead or never reached. A
+         * fractional progress per thrust is walked through up to the
+         * farthest destination, as flying there would.
+         */
+        long[] arrivals(double origin, List<Destination> destinations) {
+            int n = destinations.size();
+            long[] thrusts = new long[n];
+            double[] ahead = new double[n];
+            List<Integer> walk = new ArrayList<>();
+            boolean whole = FuelTank.isWhole(origin) && FuelTank.isWhole(thrustProgress);
+            for (int i = 0; i < n; i++) {
+                ahead[i] = destinations.get(i).getDistanceFromEarth() - origin;
+                if (!(ahead[i] > 0) || Double.isInfinite(ahead[i])) {
+                    continue;
+                }
+                if (whole) {
+                    thrusts[i] = (long) Math.ceil(ahead[i] / thrustProgress);
+                } else {
+                    walk.add(i);
+                }
+            }
+            walk.sort((a, b) -> Double.compare(ahead[a], ahead[b]));
+            double progress = origin;
+            long count = 0;
+            for (int i : walk) {
+                double distance = destinations.get(i).getDistanceFromEarth();
+                while (count == 0 || progress < distance) {
+                    double next = progress + thrustProgress;
+                    if (next == progress) {
+                        return thrusts; // the progress no longer moves
+                    }
+                    progress = next;
+                    count++;
+                }
+                thrusts[i] = count;
+            }
+            return thrusts;
+        }
+
+        /** Observation steps a destination still needs. */
+        int steps(Destination d) {
+            return (int) Math.ceil((100.0 - d.getObservationCompletion()) / observationStep);
+        }
+
+        /**
+         * Cruising a number of thrusts, as Orbiter does: refuel first if
+         * docked low, then refuel after every thrust that leaves fuel low
+         * without arriving.
+         *
+         * @return fuel on arrival and emergencies on the way, packed; read
+         *         with arrivalFuel and emergencies
+         */
+        long cruise(int fuel, long thrusts) {
+            if (fuel < low) {
+                fuel = FULL;
+            }
+            long untilLow = untilLow(fuel, thrustFuel);
+            if (thrusts <= untilLow) {
+                return Math.max(fuel - thrustFuel * thrusts, 0);
+            }
+            long rest = thrusts - untilLow;
+            long more = (rest - 1) / fromFull;
+            long last = rest - fromFull * more;
+            return ((1 + more) << 7) | Math.max(FULL - thrustFuel * last, 0);
+        }
+
+        /** Observation outcomes of a number of steps, per arrival fuel level. */
+        Observation[] observations(int steps) {
+            Observation[] table = new Observation[FULL + 1];
+            for (int f = 0; f <= FULL; f++) {
+                table[f] = observe(f, steps);
+            }
+            return table;
+        }
+
+        /**
+         * Observing as Orbiter does: each step burns its fuel and, once
+         * fuel is low, triggers an emergency refuel. A failed one ends the
+         * observation, and the next leg refuels at dock.
+         */
+        Observation observe(int fuel, int steps) {
+            List<double[]> outcomes = new ArrayList<>();
+            double probability = 1.0;
+            double complete = 0.0;
+            double emergencies = 0.0;
+            double burnt = 0.0;
+            int remaining = steps;
+            int done = 0;
+            while (remaining > 0) {
+                int untilLow = untilLow(fuel, observationFuel);
+                if (untilLow > remaining) {
+                    break;
+                }
+                done += untilLow;
+                remaining -= untilLow;
+                double failed = probability / 2;
+                emergencies += probability;
+                // failure: stop here, low on fuel
+                outcomes.add(new double[] {failed,
+                    Math.max(fuel - observationFuel * untilLow, 0)});
+                burnt += failed * observationFuel * done;
+                if (remaining == 0) {
+                    complete += failed;
+                }
+                probability -= failed;
+                fuel = FULL;
+            }
+            burnt += probability * observationFuel * steps;
+            complete += probability;
+            outcomes.add(new double[] {probability,
+                Math.max(fuel - observationFuel * remaining, 0)});
+            double[] p = new double[outcomes.size()];
+            int[] f = new int[outcomes.size()];
+            for (int i = 0; i < p.length; i++) {
+                p[i] = outcomes.get(i)[0];
+                f[i] = (int) outcomes.get(i)[1];
+            }
+            return new Observation(p, f, complete, emergencies, burnt);
+        }
+    }
+
+    /** One possible stopping point: the best destination to observe there. */
+    private static final class Stop {
+        final Destination destination;
+        final long order;
+        final long bucket;
+        final double science;
+        final int steps;
+
+        Stop(Destination destination, long order, long bucket, double science,
+             int steps) {
+            this.destination = destination;
+            this.order = order;
+            this.bucket = bucket;
+            this.science = science;
+            this.steps = steps;
+        }
+
+        /** More valuable, or as valuable and added earlier. */
+        boolean beats(Stop other) {
+            return science > other.science
+                   || (science == other.science && order < other.order);
+        }
+    }
+
+    /** The stops worth considering: the farthest and the most valuable. */
+    private static final class Candidates {
+        Stop farthest;
+        /** Stops other than at the farthest point, most valuable first. */
+        Stop[] byScience;
+        /** False if some stopping points were left out. */
+        boolean complete;
+
+        /** The farthest stop and the k - 1 most valuable, by distance. */
+        Stop[] take(int k) {
+            List<Stop> taken = new ArrayList<>(Math.min(k, byScience.length + 1));
+            taken.add(farthest);
+            for (int i = 0; i < byScience.length && taken.size() < k; i++) {
+                taken.add(byScience[i]);
+            }
+            Stop[] stops = taken.toArray(new Stop[0]);
+            Arrays.sort(stops, (a, b) -> Long.compare(a.bucket, b.bucket));
+            return stops;
+        }
+
+        int size() {
+            return byScience.length + 1;
+        }
+    }
+
+    /**
+     * Plans the route through the destinations ahead with the default
+     * MissionParameters.
+     *
+     * @param destinations remaining destinations, in insertion order
+     * @param progress     shuttle's current travelled distance
+     * @param fuelPercent  fuel left, in percent of the capacity
+     * @return plan to follow from this progress
+     */
+    public RoutePlan plan(List<Destination> destinations, double progress,
+                          double fuelPercent) {
+        return plan(destinations, progress, fuelPercent, MissionParameters.DEFAULT);
+    }
+
+    /**
+     * Plans the route through the destinations ahead for a mission
+     * flown with the given parameters.
+     *
+     * @param destinations remaining destinations, in insertion order
+     * @param progress     shuttle's current travelled distance
+     * @param fuelPercent  fuel left, in percent of the capacity
+     * @param parameters   progress per thrust, fuel costs and low-fuel
+     *                     threshold of the mission
+     * @return plan to follow from this progress
+     */
+    public RoutePlan plan(List<Destination> destinations, double progress,
+                          double fuelPercent, MissionParameters parameters) {
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        Costs costs = new Costs(parameters);
+        int fuel = fuelLevel(fuelPercent);
+        Candidates candidates = candidates(destinations, progress, costs);
+        if (candidates == null) {
+            return solve(costs, new Stop[0], progress, fuel, Long.MAX_VALUE, true);
+        }
+        int k = Math.min(EXACT_LIMIT, candidates.size());
+        long started = System.nanoTime();
+        RoutePlan best = solve(costs, candidates.take(k), progress, fuel, Long.MAX_VALUE,
+                               candidates.complete && k == candidates.size());
+        long took = System.nanoTime() - started;
+        while (k < candidates.size()) {
+            // doubling the stops about quadruples the work
+            started = System.nanoTime();
+            if (started + 4 * took > deadline) {
+                break;
+            }
+            k = Math.min(2 * k, candidates.size());
+            RoutePlan better = solve(costs, candidates.take(k), progress, fuel, deadline,
+                                     candidates.complete && k == candidates.size());
+            if (better == null) {
+                break;
+            }
+            best = better;
+            took = System.nanoTime() - started;
+        }
+        return best;
+    }
+
+    /**
+     * Every destination arriving after the same number of thrusts ends
+     * at the same progress, so only the most valuable one there (the
+     * earliest added on a tie) is worth stopping for. One pass keeps the
+     * farthest stop and the MAX_STOPS most valuable others.
+     *
+     * @return the candidates, or null if no destination is ahead
+     */
+    private static Candidates candidates(List<Destination> destinations,
+                                         double progress, Costs costs) {
+        PriorityQueue<Stop> kept = new PriorityQueue<>(
+            (a, b) -> a.beats(b) ? 1 : b.beats(a) ? -1 : 0);
+        Map<Long, Stop> keptAt = new HashMap<>();
+        Candidates candidates = new Candidates();
+        candidates.complete = true;
+        long[] arrivals = costs.arrivals(progress, destinations);
+        long order = 0;
+        for (Destination d : destinations) {
+            long seq = order++;
+            long bucket = arrivals[(int) seq];
+            if (bucket == 0) {
+                continue;
+            }
+            int steps = costs.steps(d);
+            double science = steps > 0 && Double.isFinite(d.getScientificValue())
+                             ? d.getScientificValue() : 0.0;
+            Stop stop = new Stop(d, seq, bucket, science, Math.max(steps, 0));
+            Stop farthest = candidates.farthest;
+            if (farthest == null || bucket > farthest.bucket
+                    || (bucket == farthest.bucket && stop.beats(farthest))) {
+                candidates.farthest = stop;
+            }
+            if (kept.size() == MAX_STOPS && !stop.beats(kept.peek())) {
+                candidates.complete &= keptAt.containsKey(bucket);
+                continue;
+            }
+            Stop same = keptAt.get(bucket);
+            if (same != null) {
+                if (!stop.beats(same)) {
+                    continue;
+                }
+                kept.remove(same);
+            } else if (kept.size() == MAX_STOPS) {
+                keptAt.remove(kept.poll().bucket);
+                candidates.complete = false;
+            }
+            kept.add(stop);
+            keptAt.put(bucket, stop);
+        }
+        if (candidates.farthest == null) {
+            return null;
+        }
+        List<Stop> others = new ArrayList<>(kept.size());
+        for (Stop stop : kept) {
+            if (stop.bucket != candidates.farthest.bucket) {
+                others.add(stop);
+            }
+        }
+        others.sort((a, b) -> a.beats(b) ? -1 : b.beats(a) ? 1 : 0);
+        candidates.byScience = others.toArray(new Stop[0]);
+        return candidates;
+    }
+
+    /**
+     * Backward induction over the stops, farthest first.
+     *
+     * @param stops stops sorted by distance, the farthest last
+     * @return the plan, or null if the deadline passed
+     */
+    private RoutePlan solve(Costs costs, Stop[] stops, double origin, int fuel,
+                            long deadline, boolean exact) {
+        int m = stops.length;
+        long[] buckets = new long[m];
+        double[] sciences = new double[m];
+        Observation[][] observations = new Observation[m][];
+        Map<Integer, Observation[]> bySteps = new HashMap<>();
+        for (int i = 0; i < m; i++) {
+            buckets[i] = stops[i].bucket;
+            sciences[i] = stops[i].science;
+            observations[i] = bySteps.computeIfAbsent(stops[i].steps,
+                                                      costs::observations);
+        }
+        Table table = new Table(m);
+        // row i is standing at stop i after observing it; row m is the
+        // origin, solved last as it may go to any stop
+        for (int step = 0; step <= m; step++) {
+            if (System.nanoTime() > deadline) {
+                return null;
+            }
+            int row = step < m ? m - 1 - step : m;
+            table.allocate(row);
+            long bucket = row == m ? 0 : buckets[row];
+            int first = row == m ? 0 : row + 1;
+            if (first >= m) {
+                Arrays.fill(table.choice[row], -1); // farthest stop: mission over
+                continue;
+            }
+            long[] cruises = cruises(costs, buckets, bucket, first);
+            if (m - first >= PARALLEL_LIMIT) {
+                IntStream.rangeClosed(costs.low, FULL).parallel().forEach(f ->
+                    bestMove(costs, buckets, sciences, observations, table, cruises,
+                             row, bucket, first, f));
+            } else {
+                for (int f = costs.low; f <= FULL; f++) {
+                    bestMove(costs, buckets, sciences, observations, table, cruises,
+                             row, bucket, first, f);
+                }
+            }
+            // below the low level the shuttle refuels at dock before leaving
+            for (int f = 0; f < costs.low; f++) {
+                table.copy(row, FULL, f);
+            }
+        }
+        Destination[] targets = new Destination[m];
+        for (int i = 0; i < m; i++) {
+            targets[i] = stops[i].destination;
+        }
+        return new RoutePlan(costs, origin, buckets, targets, table.choice,
+                             table.science[m][fuel], table.emergencies[m][fuel], exact);
+    }
+
+    /** Per row and fuel level: objective, its parts, and the next stop. */
+    private static final class Table {
+        final double[][] value;
+        final double[][] science;
+        final double[][] emergencies;
+        final int[][] choice;
+
+        Table(int stops) {
+            value = new double[stops + 1][];
+            science = new double[stops + 1][];
+            emergencies = new double[stops + 1][];
+            choice = new int[stops + 1][];
+        }
+
+        void allocate(int row) {
+            value[row] = new double[FULL + 1];
+            science[row] = new double[FULL + 1];
+            emergencies[row] = new double[FULL + 1];
+            choice[row] = new int[FULL + 1];
+        }
+
+        void copy(int row, int from, int to) {
+            value[row][to] = value[row][from];
+            science[row][to] = science[row][from];
+            emergencies[row][to] = emergencies[row][from];
+            choice[row][to] = choice[row][from];
+        }
+    }
+
+    /**
+     * Cruise outcomes from a row to each later stop for every number of
+     * thrusts left before fuel runs low, at fromFull entries per stop.
+     * Only the first emergency depends on the fuel level at departure.
+     */
+    private static long[] cruises(Costs costs, long[] buckets, long bucket, int first) {
+        if (costs.fromFull == Integer.MAX_VALUE) {
+            return new long[0]; // fuel never runs low on a cruise
+        }
+        int fromFull = costs.fromFull;
+        long[] cruises = new long[(buckets.length - first) * fromFull];
+        for (int c = first; c < buckets.length; c++) {
+            for (int untilLow = 1; untilLow <= fromFull; untilLow++) {
+                cruises[(c - first) * fromFull + untilLow - 1] =
+                    costs.cruise(costs.low + costs.thrustFuel * (untilLow - 1),
+                                 buckets[c] - bucket);
+            }
+        }
+        return cruises;
+    }
+
+    /** Fills one cell: the best next stop from a row at a fuel level. */
+    private void bestMove(Costs costs, long[] buckets, double[] sciences,
+                          Observation[][] observations, Table table,
+                          long[] cruises, int row, long bucket, int first,
+                          int fuel) {
+        int untilLow = costs.untilLow(fuel, costs.thrustFuel);
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int best = -1;
+        double bestScience = 0.0;
+        double bestEmergencies = 0.0;
+        for (int c = first; c < buckets.length; c++) {
+            long thrusts = buckets[c] - bucket;
+            long cruise = thrusts <= untilLow
+                          ? Math.max(fuel - costs.thrustFuel * thrusts, 0)
+                          : cruises[(c - first) * costs.fromFull + untilLow - 1];
+            Observation o = observations[c][arrivalFuel(cruise)];
+            double sci = sciences[c] * o.complete;
+            double em = emergencies(cruise) + o.emergencies;
+            double v = sci - emergencyPenalty * em
+                       - fuelPenalty * ((double) costs.thrustFuel * thrusts + o.burnt) / FULL;
+            double[] nextValue = table.value[c];
+            for (int j = 0; j < o.probability.length; j++) {
+                v += o.probability[j] * nextValue[o.fuel[j]];
+            }
+            if (v > bestValue) {
+                bestValue = v;
+                best = c;
+                for (int j = 0; j < o.probability.length; j++) {
+                    sci += o.probability[j] * table.science[c][o.fuel[j]];
+                    em += o.probability[j] * table.emergencies[c][o.fuel[j]];
+                }
+                bestScience = sci;
+                bestEmergencies = em;
+            }
+        }
+        table.value[row][fuel] = bestValue;
+        table.science[row][fuel] = bestScience;
+        table.emergencies[row][fuel] = bestEmergencies;
+        table.choice[row][fuel] = best;
+    }
+
+    static int arrivalFuel(long cruise) {
+        return (int) (cruise & 0x7F);
+    }
+
+    static long emergencies(long cruise) {
+        return cruise >>> 7;
+    }
+
+    /** Outcomes of observing a destination, arriving with some fuel. */
+    static final class Observation {
+        /** Probability, fuel level after, per outcome. */
+        final double[] probability;
+        final int[] fuel;
+        /** Chance the observation completes. */
+        final double complete;
+        final double emergencies;
+        /** Expected fuel burned, in percent of the capacity. */
+        final double burnt;
+
+        Observation(double[] probability, int[] fuel, double complete,
+                    double emergencies, double burnt) {
+            this.probability = probability;
+            this.fuel = fuel;
+            this.complete = complete;
+            this.emergencies = emergencies;
+            this.burnt = burnt;
+        }
+    }
+
+    /** Fuel percent rounded to a table level. */
+    static int fuelLevel(double fuelPercent) {
+        if (!(fuelPercent > 0)) {
+            return 0;
+        }
+        return (int) Math.min(Math.round(fuelPercent), FULL);
+    }
+}
@@ -0,0 +1,82 @@
+// ScientificValueIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Index for EXPLORATION mode: destinations ordered by descending
+ * scientific value, so the most valuable one is always first.
+ */
+public class ScientificValueIndex extends TreeDestinationIndex {
+    private static final Comparator<Entry> BY_VALUE = (a, b) -> {
+        int c = Double.compare(b.destination.getScientificValue(),
+                               a.destination.getScientificValue());
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private static final NavigationStrategy RANKING = new ExplorationNavigationStrategy();
+
+    private final NavigableSet<Entry> byValue = new TreeSet<>(BY_VALUE);
+
+    @Override
+    protected void entryAdded(Entry e) {
+        // NaN and -Infinity never win a "greater than" comparison
+        if (e.destination.getScientificValue() > Double.NEGATIVE_INFINITY) {
+            byValue.add(e);
+        }
+    }
+
+    @Override
+    protected void entriesAdded(List<Entry> added) {
+        if (!byValue.isEmpty()) {
+            super.entriesAdded(added);
+            return;
+        }
+        List<Entry> ranked = new ArrayList<>(added.size());
+        for (Entry e : added) {
+            if (e.destination.getScientificValue() > Double.NEGATIVE_INFINITY) {
+                ranked.add(e);
+            }
+        }
+        Entry[] sorted = ranked.toArray(new Entry[0]);
+        Arrays.parallelSort(sorted, BY_VALUE);
+        byValue.addAll(sortedView(sorted, BY_VALUE));
+    }
+
+    @Override
+    protected void entryRemoved(Entry e) {
+        byValue.remove(e);
+    }
+
+    @Override
+    protected Entry select(double progress) {
+        return byValue.isEmpty() ? null : byValue.first();
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return RANKING;
+    }
+
+    /** The first k entries by value: O(k log n). */
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0: " + k);
+        }
+        List<Destination> ranked = new ArrayList<>(Math.min(k, byValue.size()));
+        for (Entry e : byValue) {
+            if (ranked.size() == k) {
+                break;
+            }
+            ranked.add(e.destination);
+        }
+        return ranked;
+    }
+}
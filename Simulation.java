@@ -2,20 +2,33 @@ import java.io.IOException;
 
 /**
  * Entry point. Usage:
- *   java Simulation [destinations.txt] [mode]
- * where mode is STANDARD, EFFICIENT, or EXPLORATION.
+ *   java Simulation [destinations.txt] [mode] [seed] [journal.orjn]
+ * where mode is STANDARD, EFFICIENT, EXPLORATION, or OPTIMAL; a seed
+ * makes the emergency refuels, and so the whole run, reproducible.
+ * With a journal file the mission is recorded there instead of printed;
+ * read it back with MissionReplay.
+ * With "-" as the file, destinations are read from standard input while
+ * the mission flies, and it ends when the input does. A file with
+ * positions (Name X Y Z SciValue Rate) is flown in three dimensions.
  * 
  * @author Nihat Masimli
  */
 public class Simulation {
     public static void main(String[] args) {
-        SpaceShuttle shuttle = new SpaceShuttle(1000.0);
+        SpaceShuttle shuttle = new SpaceShuttle(MissionParameters.DEFAULT);
 
         // Load destinations from file or add samples
-        if (args.length > 0) {
+        if (args.length > 0 && args[0].equals("-")) {
+            shuttle.setFeed(DestinationFeed.follow(System.in, 1024));
+        } else if (args.length > 0) {
             try {
                 // Correct method name:
                 shuttle.loadDestinationFromFile(args[0]);
+                NavigationSystem navigation = shuttle.getNavigationSystem();
+                if (navigation.getDestinations().stream()
+                              .anyMatch(d -> d instanceof SpatialDestination)) {
+                    navigation.useSpatialIndex();
+                }
             } catch (IOException e) {
                 System.err.println(
                   "Failed to load " + args[0] + ": " + e.getMessage()
@@ -44,6 +57,26 @@ public class Simulation {
             }
         }
 
+        if (args.length > 2) {
+            try {
+                shuttle.setRandom(new MissionRandom(Long.parseLong(args[2])));
+            } catch (NumberFormatException e) {
+                System.err.println(
+                  "Invalid seed '" + args[2] + "'. Using a random one."
+                );
+            }
+        }
+
+        if (args.length > 3) {
+            try (MissionJournal journal = new MissionJournal(args[3])) {
+                shuttle.setListener(journal);
+                shuttle.launch();
+            } catch (IOException e) {
+                System.err.println("Failed to write " + args[3] + ": " + e.getMessage());
+            }
+            return;
+        }
+
         shuttle.launch();
     }
 }
@@ -2,9 +2,8 @@
 /**
  * @author Nihat Masimli
  */
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.util.random.RandomGenerator;
 
 /**
  * Ties together navigation, engine, fuel tank, and orbiter.
@@ -14,19 +13,54 @@ import java.io.IOException;
  * @author Nihat Masimli DNGKKG
  */
 public class SpaceShuttle {
+    private final MissionParameters parameters;
     private final NavigationSystem navigation;
     private final FuelTank fuelTank;
     private final Engine engine;
     private Orbiter orbiter;
     private double progress;
+    private boolean eventDrivenCruise;
+    private MissionListener listener = new ConsoleMissionListener();
+    private RandomGenerator random;
+    private DestinationFeed feed;
+    private OrbitScheduler scheduler;
 
     /**
      * @param maxFuel maximum fuel capacity
      */
     public SpaceShuttle(double maxFuel) {
+        this(MissionParameters.DEFAULT.withMaxFuel(maxFuel));
+    }
+
+    /**
+     * Builds a shuttle whose tank, engine and observations follow the
+     * given parameters.
+     *
+     * @param parameters capacity, fuel costs and low-fuel threshold
+     */
+    public SpaceShuttle(MissionParameters parameters) {
+        this(parameters.newFuelTank(), parameters);
+    }
+
+    /**
+     * Builds a shuttle around an existing tank, e.g. a
+     * ConcurrentFuelTank shared with other shuttles; its capacity and
+     * low-fuel threshold replace those of the default parameters.
+     *
+     * @param fuelTank the shuttle's fuel supply
+     */
+    public SpaceShuttle(FuelTank fuelTank) {
+        this(fuelTank, MissionParameters.DEFAULT.withMaxFuel(fuelTank.getMaxFuel())
+                           .withLowFuelFraction(fuelTank.getLowFuelFraction()));
+    }
+
+    private SpaceShuttle(FuelTank fuelTank, MissionParameters parameters) {
+        this.parameters = parameters;
         this.navigation = new NavigationSystem();
-        this.fuelTank = new FuelTank(maxFuel);
-        this.engine = new Engine();
+        this.fuelTank = fuelTank;
+        this.navigation.setFuelTank(fuelTank);
+        this.navigation.setMissionParameters(parameters);
+        this.engine = parameters.newEngine();
         this.progress = 0.0;
     }
 
@@ -47,53 +81,100 @@ public class SpaceShuttle {
      *   Name Distance
      * or
      *   Name Distance SciValue ConsumptionRate
+     * The file is memory-mapped and parsed in parallel chunks by
+     * DestinationFileLoader; destinations are added in file order.
      * 
      * @param filename path to the file
      * @throws IOException if file read fails
      */
     public void loadDestinationFromFile(String filename) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.trim().split("\\s+");
-                if (parts.length == 2) {
-                    // old format: assign defaults
-                    String name = parts[0];
-                    double distance = Double.parseDouble(parts[1]);
-                    double defaultSciValue = 0.0;
-                    double defaultRate     = 10.0;
-                    addDestination(name, distance, defaultSciValue, defaultRate);
-                }
-                else if (parts.length == 4) {
-                    // new format
-                    String name = parts[0];
-                    double distance      = Double.parseDouble(parts[1]);
-                    double sciValue      = Double.parseDouble(parts[2]);
-                    double rate          = Double.parseDouble(parts[3]);
-                    addDestination(name, distance, sciValue, rate);
-                }
-                // ignore any lines that don’t match
-            }
+        if (BinaryCatalog.isCatalog(filename)) {
+            navigation.addCatalog(BinaryCatalog.open(filename));
+        } else {
+            navigation.addDestinations(DestinationFileLoader.load(filename));
         }
     }
 
-    /** Sets the navigation mode (STANDARD, EFFICIENT, or EXPLORATION). */
+    /** Sets the navigation mode (STANDARD, EFFICIENT, EXPLORATION or OPTIMAL). */
     public void setNavigationMode(NavigationMode mode) {
         navigation.setMode(mode);
     }
 
+    /**
+     * Makes the orbiter jump straight to the next arrival or low-fuel
+     * event while cruising instead of stepping one thrust at a time.
+     */
+    public void setEventDrivenCruise(boolean eventDriven) {
+        this.eventDrivenCruise = eventDriven;
+    }
+
+    /**
+     * Sets who receives the mission events; the console by default.
+     *
+     * @param listener event sink, e.g. NoOpMissionListener.INSTANCE
+     */
+    public void setListener(MissionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the random source of the next launch, e.g. a seeded
+     * MissionRandom to make the mission reproducible; unseeded by default.
+     *
+     * @param random random source owned by this shuttle's mission
+     */
+    public void setRandom(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * Lets destinations arrive while the mission is in flight; they are
+     * merged between legs and the mission waits for the feed to finish.
+     *
+     * @param feed e.g. DestinationFeed.follow(System.in, 1024)
+     */
+    public void setFeed(DestinationFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Lets each orbit of the next launch also observe destinations passed
+     * within the scheduler's window.
+     *
+     * @param scheduler chooses what each orbit observes, or null
+     */
+    public void setOrbitScheduler(OrbitScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
     public void incrementProgress(double amount) {
         this.progress += amount;
     }
+
+    /**
+     * Adds the same amount several times, with the result of calling
+     * incrementProgress(amount) that many times.
+     *
+     * @param amount progress added each time
+     * @param times  number of additions
+     */
+    public void incrementProgress(double amount, int times) {
+        this.progress = Engine.advance(progress, amount, times);
+    }
     public double getProgress() { return progress; }
     public NavigationSystem getNavigationSystem() { return navigation; }
     public FuelTank getFuelTank() { return fuelTank; }
     public Engine getEngine() { return engine; }
+    public MissionParameters getParameters() { return parameters; }
 
     /** Creates the orbiter and kicks off the expedition. */
     public void launch() {
-        System.out.println("Launching Orion Expedition...");
-        this.orbiter = new Orbiter(this);
+        listener.launched();
+        this.orbiter = random != null ? new Orbiter(this, random) : new Orbiter(this);
+        orbiter.setListener(listener);
+        orbiter.setEventDrivenCruise(eventDrivenCruise);
+        orbiter.setFeed(feed);
+        orbiter.setOrbitScheduler(scheduler);
         orbiter.startCourse();
     }
 }
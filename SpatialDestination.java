@@ -0,0 +1,68 @@
+// SpatialDestination.java
+/**
+ * @author Nihat Masimli
+ */
+
+/**
+ * A destination at a point in space, with Earth at the origin.
+ *
+ * Its distance from Earth is the straight-line one until a SpatialIndex
+ * picks it as the next target. From then on it is the odometer reading
+ * at which the shuttle arrives, i.e. the shuttle's travelled distance
+ * plus the straight line from where it is. The cruise keeps working on
+ * one travelled distance either way.
+ *
+ * @author Nihat Masimli
+ */
+public class SpatialDestination extends Destination {
+    private final double x;
+    private final double y;
+    private final double z;
+    private double arrival;
+
+    /**
+     * @param name            the name of the destination
+     * @param x               position, with Earth at the origin
+     * @param y               position, with Earth at the origin
+     * @param z               position, with Earth at the origin
+     * @param scientificValue a metric of the scientific interest
+     * @param consumptionRate percentage of max fuel consumed per thrust toward this destination
+     */
+    public SpatialDestination(String name, double x, double y, double z,
+                              double scientificValue, double consumptionRate) {
+        super(name, Math.sqrt(x * x + y * y + z * z), scientificValue, consumptionRate);
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.arrival = super.getDistanceFromEarth();
+    }
+
+    /** Sets the travelled distance at which the shuttle arrives here. */
+    void aim(double arrival) {
+        this.arrival = arrival;
+    }
+
+    @Override
+    public double getDistanceFromEarth() { return arrival; }
+
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
+
+    /** Straight-line distance to a point. */
+    public double distanceTo(double px, double py, double pz) {
+        double dx = x - px;
+        double dy = y - py;
+        double dz = z - pz;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "SpatialDestination{name='%s', at=(%.2f, %.2f, %.2f), prog=%.2f, obs=%.2f%%, sci=%.2f, rate=%.2f%%}",
+            getName(), x, y, z, getProgress(), getObservationCompletion(),
+            getScientificValue(), getConsumptionRate()
+        );
+    }
+}
@@ -0,0 +1,555 @@
+// SpatialIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index over destinations in space: a k-d tree answering "next" from the
+ * shuttle's position instead of along one line.
+ *
+ * STANDARD picks the nearest destination, EFFICIENT the lowest
+ * consumption rate per unit of straight-line distance, and EXPLORATION
+ * the highest scientific value; OPTIMAL plans along one line and picks
+ * as STANDARD here. Every node keeps the bounding box, live count,
+ * lowest rate and highest value of its subtree, so each query is a
+ * branch and bound that only opens the subtrees that can still win,
+ * about O(log n) per leg. Ties are broken by insertion order.
+ *
+ * The shuttle flies a straight line to the destination chosen, which
+ * is told the travelled distance at which it arrives (see
+ * SpatialDestination). Only that destination is reached on the way;
+ * the shuttle's position is then its position. Plain destinations are
+ * put on the x axis at their distance from Earth.
+ *
+ * Destinations added after the tree was built are scanned next to it
+ * until they are a fair share of it; then the tree is built again
+ * without the reached ones.
+ *
+ * @author Nihat Masimli
+ */
+public class SpatialIndex extends DestinationIndex {
+    /** Added destinations scanned before the tree is rebuilt. */
+    private static final int PENDING_LIMIT = 32;
+
+    private final NavigationMode mode;
+    private final Space space;
+
+    /**
+     * Creates an index over some destinations; the tree is built on the
+     * first selection.
+     *
+     * @param mode  chosen NavigationMode
+     * @param dests destinations to start with, in order
+     */
+    public SpatialIndex(NavigationMode mode, Collection<Destination> dests) {
+        this(mode, new Space());
+        addAll(dests);
+    }
+
+    private SpatialIndex(NavigationMode mode, Space space) {
+        this.mode = mode;
+        this.space = space;
+    }
+
+    @Override
+    public void add(Destination dest) {
+        SpatialDestination d;
+        if (dest instanceof SpatialDestination) {
+            d = (SpatialDestination) dest;
+        } else {
+            d = new SpatialDestination(dest.getName(), dest.getDistanceFromEarth(), 0, 0,
+                                       dest.getScientificValue(), dest.getConsumptionRate());
+            d.updateObservation(dest.getObservationCompletion());
+        }
+        space.pending.add(new Entry(d, space.added++));
+        space.live++;
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        Entry target = space.target;
+        if (target == null || progress < target.d.getDistanceFromEarth()) {
+            return;
+        }
+        target.d.updateProgress(progress);
+        space.remove(target);
+        space.x = target.d.getX();
+        space.y = target.d.getY();
+        space.z = target.d.getZ();
+        space.departure = progress;
+        space.target = null;
+    }
+
+    @Override
+    public Destination next(double progress) {
+        Space s = space;
+        if (s.live == 0) {
+            return null;
+        }
+        Query q = search(new Query(mode, position(progress)));
+        if (q.best == null) {
+            return null;
+        }
+        SpatialDestination d = q.best.d;
+        s.x = q.x;
+        s.y = q.y;
+        s.z = q.z;
+        s.departure = progress;
+        s.legLength = d.distanceTo(q.x, q.y, q.z);
+        s.target = q.best;
+        d.aim(progress + s.legLength);
+        d.updateProgress(progress);
+        return d;
+    }
+
+    /**
+     * The k destinations next() would choose first from here, by the
+     * same branch and bound with a bounded heap of candidates in place
+     * of the single best: a subtree is only opened while it can still
+     * beat the worst of k.
+     */
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        TopQuery q = new TopQuery(mode, position(progress), k);
+        if (space.live > 0) {
+            search(q);
+        }
+        return q.heap.ranked();
+    }
+
+    /** Where the shuttle is on its way to the current target. */
+    private double[] position(double progress) {
+        Space s = space;
+        double[] p = {s.x, s.y, s.z};
+        if (s.target != null && s.legLength > 0) {
+            double f = Math.min(Math.max((progress - s.departure) / s.legLength, 0.0), 1.0);
+            p[0] += f * (s.target.d.getX() - p[0]);
+            p[1] += f * (s.target.d.getY() - p[1]);
+            p[2] += f * (s.target.d.getZ() - p[2]);
+        }
+        return p;
+    }
+
+    /** Runs a query over the tree, rebuilt first if due, and the pending entries. */
+    private <Q extends Query> Q search(Q q) {
+        Space s = space;
+        if (s.pending.size() > Math.max(PENDING_LIMIT, s.n / 8) || s.dead > s.n / 2) {
+            s.rebuild();
+        }
+        if (s.n > 0) {
+            q.visit(s, 0, s.n);
+        }
+        for (Entry e : s.pending) {
+            q.consider(e);
+        }
+        return q;
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        return new SpatialIndex(mode, space);
+    }
+
+    /**
+     * Spatial choices depend on the position, not on one score per
+     * destination, so this index ranks by its own topK(); along one
+     * line it would rank as the mode's strategy.
+     */
+    @Override
+    protected NavigationStrategy ranking() {
+        return NavigationStrategy.forMode(mode);
+    }
+
+    /** None: in space only the target is reached, nothing is passed. */
+    @Override
+    public List<Destination> within(double from, double to) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int size() {
+        return space.live;
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        List<Entry> entries = new ArrayList<>(space.live);
+        for (int i = 0; i < space.n; i++) {
+            if (!space.tree[i].removed) {
+                entries.add(space.tree[i]);
+            }
+        }
+        entries.addAll(space.pending);
+        entries.sort(Comparator.comparingLong(e -> e.seq));
+        List<Destination> list = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            list.add(e.d);
+        }
+        return list;
+    }
+
+    /** A destination with its insertion number. */
+    private static final class Entry {
+        final SpatialDestination d;
+        final long seq;
+        /** Position in the tree, or -1 while pending. */
+        int at = -1;
+        boolean removed;
+
+        Entry(SpatialDestination d, long seq) {
+            this.d = d;
+            this.seq = seq;
+        }
+
+        double coordinate(int axis) {
+            return axis == 0 ? d.getX() : axis == 1 ? d.getY() : d.getZ();
+        }
+    }
+
+    /**
+     * State shared by the indexes of every mode: the tree, stored as an
+     * implicit binary tree where the node of range [lo, hi) sits at its
+     * middle, the destinations added since, and the shuttle's position.
+     */
+    private static final class Space {
+        Entry[] tree = new Entry[0];
+        int n;
+        int dead;
+        byte[] axis;
+        /** Bounding box of each subtree: min x, y, z then max x, y, z. */
+        double[] box;
+        int[] liveBelow;
+        double[] minRate;
+        double[] maxValue;
+        final List<Entry> pending = new ArrayList<>();
+        long added;
+        int live;
+
+        /** Start of the current leg, and the travelled distance there. */
+        double x;
+        double y;
+        double z;
+        double departure;
+        double legLength;
+        Entry target;
+
+        void remove(Entry e) {
+            e.removed = true;
+            live--;
+            if (e.at < 0) {
+                pending.remove(e);
+            } else {
+                dead++;
+                refreshPath(e.at);
+            }
+        }
+
+        /** Builds the tree again from every live destination. */
+        void rebuild() {
+            List<Entry> entries = new ArrayList<>(live);
+            for (int i = 0; i < n; i++) {
+                if (!tree[i].removed) {
+                    entries.add(tree[i]);
+                }
+            }
+            entries.addAll(pending);
+            pending.clear();
+            tree = entries.toArray(new Entry[0]);
+            n = tree.length;
+            dead = 0;
+            axis = new byte[n];
+            box = new double[6 * n];
+            liveBelow = new int[n];
+            minRate = new double[n];
+            maxValue = new double[n];
+            build(0, n);
+            for (int i = 0; i < n; i++) {
+                tree[i].at = i;
+            }
+        }
+
+        private void build(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            int split = widestAxis(lo, hi);
+            select(lo, hi, mid, split);
+            axis[mid] = (byte) split;
+            build(lo, mid);
+            build(mid + 1, hi);
+            aggregate(lo, mid, hi);
+            Entry e = tree[mid];
+            for (int k = 0; k < 3; k++) {
+                box[6 * mid + k] = e.coordinate(k);
+                box[6 * mid + 3 + k] = e.coordinate(k);
+            }
+            if (lo < mid) {
+                enclose(mid, (lo + mid) >>> 1);
+            }
+            if (mid + 1 < hi) {
+                enclose(mid, (mid + 1 + hi) >>> 1);
+            }
+        }
+
+        /** Grows the box of a node around the box of its child. */
+        private void enclose(int node, int child) {
+            for (int k = 0; k < 3; k++) {
+                box[6 * node + k] = Math.min(box[6 * node + k], box[6 * child + k]);
+                box[6 * node + 3 + k] = Math.max(box[6 * node + 3 + k], box[6 * child + 3 + k]);
+            }
+        }
+
+        private int widestAxis(int lo, int hi) {
+            double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                            Double.POSITIVE_INFINITY};
+            double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                            Double.NEGATIVE_INFINITY};
+            for (int i = lo; i < hi; i++) {
+                for (int k = 0; k < 3; k++) {
+                    double c = tree[i].coordinate(k);
+                    min[k] = Math.min(min[k], c);
+                    max[k] = Math.max(max[k], c);
+                }
+            }
+            int widest = 0;
+            for (int k = 1; k < 3; k++) {
+                if (max[k] - min[k] > max[widest] - min[widest]) {
+                    widest = k;
+                }
+            }
+            return widest;
+        }
+
+        /** Quickselect: puts the k-th smallest coordinate at k. */
+        private void select(int lo, int hi, int k, int axis) {
+            hi--;
+            while (hi > lo) {
+                double pivot = tree[(lo + hi) >>> 1].coordinate(axis);
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (tree[i].coordinate(axis) < pivot) {
+                        i++;
+                    }
+                    while (tree[j].coordinate(axis) > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        Entry t = tree[i];
+                        tree[i] = tree[j];
+                        tree[j] = t;
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    hi = j;
+                } else if (k >= i) {
+                    lo = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /** Live count, lowest rate and highest value of the node's subtree. */
+        private void aggregate(int lo, int mid, int hi) {
+            Entry e = tree[mid];
+            int count = 0;
+            double rate = Double.POSITIVE_INFINITY;
+            double value = Double.NEGATIVE_INFINITY;
+            if (!e.removed) {
+                count = 1;
+                // NaN never wins, so it does not count
+                if (e.d.getConsumptionRate() < rate) {
+                    rate = e.d.getConsumptionRate();
+                }
+                if (e.d.getScientificValue() > value) {
+                    value = e.d.getScientificValue();
+                }
+            }
+            if (lo < mid) {
+                int left = (lo + mid) >>> 1;
+                count += liveBelow[left];
+                rate = Math.min(rate, minRate[left]);
+                value = Math.max(value, maxValue[left]);
+            }
+            if (mid + 1 < hi) {
+                int right = (mid + 1 + hi) >>> 1;
+                count += liveBelow[right];
+                rate = Math.min(rate, minRate[right]);
+                value = Math.max(value, maxValue[right]);
+            }
+            liveBelow[mid] = count;
+            minRate[mid] = rate;
+            maxValue[mid] = value;
+        }
+
+        /** Updates the aggregates from a removed node up to the root. */
+        private void refreshPath(int at) {
+            int[] los = new int[64];
+            int[] his = new int[64];
+            int depth = 0;
+            int lo = 0;
+            int hi = n;
+            while (true) {
+                los[depth] = lo;
+                his[depth] = hi;
+                depth++;
+                int mid = (lo + hi) >>> 1;
+                if (mid == at) {
+                    break;
+                }
+                if (at < mid) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            for (int d = depth - 1; d >= 0; d--) {
+                aggregate(los[d], (los[d] + his[d]) >>> 1, his[d]);
+            }
+        }
+    }
+
+    /** Branch and bound for one selection from a position. */
+    private static class Query {
+        final NavigationMode mode;
+        final double x;
+        final double y;
+        final double z;
+        Entry best;
+        /** Distance, ratio or negated value of the best; lower is better. */
+        double bestKey = Double.POSITIVE_INFINITY;
+
+        Query(NavigationMode mode, double[] position) {
+            this.mode = mode;
+            this.x = position[0];
+            this.y = position[1];
+            this.z = position[2];
+        }
+
+        void visit(Space s, int lo, int hi) {
+            int mid = (lo + hi) >>> 1;
+            if (s.liveBelow[mid] == 0 || beyond(bound(s, mid))) {
+                return;
+            }
+            Entry e = s.tree[mid];
+            if (!e.removed) {
+                consider(e);
+            }
+            // the half holding the position first
+            int a = s.axis[mid];
+            double here = a == 0 ? x : a == 1 ? y : z;
+            boolean leftFirst = here < e.coordinate(a);
+            if (leftFirst) {
+                if (lo < mid) visit(s, lo, mid);
+                if (mid + 1 < hi) visit(s, mid + 1, hi);
+            } else {
+                if (mid + 1 < hi) visit(s, mid + 1, hi);
+                if (lo < mid) visit(s, lo, mid);
+            }
+        }
+
+        /** True if no key from this bound on can be kept. */
+        boolean beyond(double bound) {
+            return bound > bestKey;
+        }
+
+        void consider(Entry e) {
+            double key;
+            switch (mode) {
+                case EFFICIENT: {
+                    // as the linear strategy: ahead, and better than MAX_VALUE
+                    double rem = e.d.distanceTo(x, y, z);
+                    key = rem > 0 ? e.d.getConsumptionRate() / rem : Double.NaN;
+                    if (!(key < Double.MAX_VALUE)) {
+                        return;
+                    }
+                    break;
+                }
+                case EXPLORATION:
+                    if (!(e.d.getScientificValue() > Double.NEGATIVE_INFINITY)) {
+                        return;
+                    }
+                    key = -e.d.getScientificValue();
+                    break;
+                case STANDARD:
+                case OPTIMAL:
+                default:
+                    key = e.d.distanceTo(x, y, z);
+                    if (!(key < Double.MAX_VALUE)) {
+                        return;
+                    }
+                    break;
+            }
+            keep(e, key);
+        }
+
+        void keep(Entry e, double key) {
+            if (best == null || key < bestKey || (key == bestKey && e.seq < best.seq)) {
+                best = e;
+                bestKey = key;
+            }
+        }
+
+        /** Lowest key any destination of the subtree can have. */
+        private double bound(Space s, int node) {
+            double[] b = s.box;
+            int at = 6 * node;
+            switch (mode) {
+                case EFFICIENT: {
+                    double rate = s.minRate[node];
+                    if (rate < 0) {
+                        return Double.NEGATIVE_INFINITY;
+                    }
+                    double far = 0;
+                    for (int k = 0; k < 3; k++) {
+                        double c = k == 0 ? x : k == 1 ? y : z;
+                        double d = Math.max(Math.abs(c - b[at + k]), Math.abs(c - b[at + 3 + k]));
+                        far += d * d;
+                    }
+                    return far > 0 ? rate / Math.sqrt(far) : Double.POSITIVE_INFINITY;
+                }
+                case EXPLORATION:
+                    return -s.maxValue[node];
+                case STANDARD:
+                case OPTIMAL:
+                default: {
+                    double near = 0;
+                    for (int k = 0; k < 3; k++) {
+                        double c = k == 0 ? x : k == 1 ? y : z;
+                        double d = Math.max(Math.max(b[at + k] - c, c - b[at + 3 + k]), 0);
+                        near += d * d;
+                    }
+                    return Math.sqrt(near);
+                }
+            }
+        }
+    }
+
+    /** Branch and bound keeping the k best in a bounded heap. */
+    private static final class TopQuery extends Query {
+        final CandidateHeap heap;
+
+        TopQuery(NavigationMode mode, double[] position, int k) {
+            super(mode, position);
+            this.heap = new CandidateHeap(k);
+        }
+
+        @Override
+        boolean beyond(double bound) {
+            return heap.isFullBelow(bound);
+        }
+
+        @Override
+        void keep(Entry e, double key) {
+            heap.offer(e.d, key, e.seq);
+        }
+    }
+}
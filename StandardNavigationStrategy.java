@@ -13,8 +13,7 @@ public class StandardNavigationStrategy implements NavigationStrategy {
         Destination best = null;
         double bestDist = Double.MAX_VALUE;
         for (Destination d : destinations) {
-            d.updateProgress(currentProgress);
-            double rem = d.distanceRemaining();
+            double rem = d.distanceRemaining(currentProgress);
             if (rem < bestDist) {
                 bestDist = rem;
                 best = d;
@@ -22,4 +21,35 @@ public class StandardNavigationStrategy implements NavigationStrategy {
         }
         return best;
     }
+
+    @Override
+    public boolean scores() {
+        return true;
+    }
+
+    @Override
+    public double score(Destination destination, double currentProgress) {
+        double rem = destination.distanceRemaining(currentProgress);
+        return rem < Double.MAX_VALUE ? rem : Double.NaN;
+    }
+
+    @Override
+    public int selectNext(DestinationStore store, double currentProgress) {
+        double[] distances = store.distances();
+        int n = store.size();
+        int best = -1;
+        double bestDist = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            double d = distances[i];
+            // same value as distanceRemaining(currentProgress)
+            double rem = d > currentProgress
+                         ? d - currentProgress
+                         : Math.max(d - Math.min(currentProgress, d), 0.0);
+            if (rem < bestDist) {
+                bestDist = rem;
+                best = i;
+            }
+        }
+        return best;
+    }
 }
@@ -0,0 +1,82 @@
+// StrategyIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index for a custom NavigationStrategy: keeps the destinations in a
+ * list in insertion order and asks the strategy on every selection, so
+ * any strategy can be flown, at the cost of a scan per leg.
+ */
+public class StrategyIndex extends DestinationIndex {
+    private final NavigationStrategy strategy;
+    private final List<Destination> destinations = new ArrayList<>();
+
+    /**
+     * @param strategy chooses the next destination
+     * @param dests    destinations to start with, in order
+     */
+    public StrategyIndex(NavigationStrategy strategy, List<Destination> dests) {
+        this.strategy = strategy;
+        this.destinations.addAll(dests);
+    }
+
+    @Override
+    public void add(Destination dest) {
+        destinations.add(dest);
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        destinations.removeIf(d -> {
+            if (d.getDistanceFromEarth() > progress) {
+                return false;
+            }
+            d.updateProgress(progress);
+            return true;
+        });
+    }
+
+    @Override
+    public Destination next(double progress) {
+        Destination best = strategy.selectNext(destinations, progress);
+        if (best != null) {
+            best.updateProgress(progress);
+        }
+        return best;
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        DestinationIndex index = DestinationIndex.forMode(mode);
+        index.addAll(destinations);
+        return index;
+    }
+
+    @Override
+    public int size() {
+        return destinations.size();
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        return new ArrayList<>(destinations);
+    }
+
+    @Override
+    protected NavigationStrategy ranking() {
+        return strategy;
+    }
+
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        return strategy.topK(destinations, k, progress);
+    }
+
+    /** The strategy choosing the next destination. */
+    public NavigationStrategy getStrategy() {
+        return strategy;
+    }
+}
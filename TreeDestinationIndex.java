@@ -0,0 +1,337 @@
+// TreeDestinationIndex.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Destination index held in balanced trees.
+ * Entries are always kept sorted by distance from Earth, so reached
+ * destinations can be dropped as a range; subclasses add the ordering
+ * their navigation mode selects by and answer "next" from it.
+ *
+ * Ties are broken by insertion order, as in the linear strategies.
+ */
+public abstract class TreeDestinationIndex extends DestinationIndex {
+
+    /** A destination together with its insertion sequence number. */
+    protected static final class Entry {
+        final Destination destination;
+        final double distance;
+        final long seq;
+        boolean removed;
+
+        Entry(Destination destination, double distance, long seq) {
+            this.destination = destination;
+            this.distance = distance;
+            this.seq = seq;
+        }
+    }
+
+    private static final Comparator<Entry> BY_DISTANCE = (a, b) -> {
+        int c = Double.compare(a.distance, b.distance);
+        return c != 0 ? c : Long.compare(a.seq, b.seq);
+    };
+
+    private final NavigableSet<Entry> byDistance = new TreeSet<>(BY_DISTANCE);
+    private long nextSeq;
+
+    /**
+     * Creates the tree index matching a navigation mode.
+     *
+     * @param mode chosen NavigationMode
+     * @return an empty index for that mode
+     */
+    public static TreeDestinationIndex create(NavigationMode mode) {
+        switch (mode) {
+            case EFFICIENT:
+                return new ConsumptionRatioIndex();
+            case EXPLORATION:
+                return new ScientificValueIndex();
+            case STANDARD:
+            default:
+                return new DistanceIndex();
+        }
+    }
+
+    @Override
+    public void add(Destination dest) {
+        Entry e = new Entry(dest, dest.getDistanceFromEarth(), nextSeq++);
+        byDistance.add(e);
+        entryAdded(e);
+    }
+
+    /**
+     * Adds many destinations at once, in list order. Into an empty
+     * index they are sorted once and the tree is built in linear time.
+     *
+     * @param dests destinations to add
+     */
+    @Override
+    public void addAll(Collection<Destination> dests) {
+        if (!byDistance.isEmpty()) {
+            for (Destination d : dests) {
+                add(d);
+            }
+            return;
+        }
+        Entry[] entries = new Entry[dests.size()];
+        int i = 0;
+        for (Destination d : dests) {
+            entries[i++] = new Entry(d, d.getDistanceFromEarth(), nextSeq++);
+        }
+        List<Entry> added = Arrays.asList(entries.clone());
+        Arrays.parallelSort(entries, BY_DISTANCE);
+        byDistance.addAll(sortedView(entries, BY_DISTANCE));
+        entriesAdded(added);
+    }
+
+    @Override
+    public DestinationIndex reindex(NavigationMode mode) {
+        TreeDestinationIndex reindexed = create(mode);
+        reindexed.takeOver(this);
+        return reindexed;
+    }
+
+    /**
+     * Moves every entry of another index into this one, keeping
+     * their insertion order.
+     *
+     * @param other index being replaced
+     */
+    private void takeOver(TreeDestinationIndex other) {
+        for (Entry e : other.byDistance) {
+            byDistance.add(e);
+            entryAdded(e);
+        }
+        this.nextSeq = other.nextSeq;
+    }
+
+    @Override
+    public void removeReached(double progress) {
+        NavigableSet<Entry> reached =
+            byDistance.headSet(probe(progress), true);
+        for (Entry e : reached) {
+            e.destination.updateProgress(progress);
+            e.removed = true;
+            entryRemoved(e);
+        }
+        reached.clear();
+    }
+
+    @Override
+    public Destination next(double progress) {
+        if (byDistance.isEmpty()) {
+            return null;
+        }
+        Entry best = select(progress);
+        if (best == null) {
+            return null;
+        }
+        best.destination.updateProgress(progress);
+        return best.destination;
+    }
+
+    @Override
+    public int size() {
+        return byDistance.size();
+    }
+
+    @Override
+    public List<Destination> destinations() {
+        List<Entry> entries = new ArrayList<>(byDistance);
+        entries.sort((a, b) -> Long.compare(a.seq, b.seq));
+        List<Destination> list = new ArrayList<>(entries.size());
+        for (Entry e : entries) {
+            list.add(e.destination);
+        }
+        return list;
+    }
+
+    /** Entries sorted by distance from Earth, then insertion order. */
+    protected NavigableSet<Entry> byDistance() {
+        return byDistance;
+    }
+
+    /**
+     * Entries whose distance is at most the given progress.
+     *
+     * @param progress shuttle's current travelled distance
+     * @return view of the passed entries, nearest first
+     */
+    protected NavigableSet<Entry> passed(double progress) {
+        return byDistance.headSet(probe(progress), true);
+    }
+
+    /** Called after an entry was added. */
+    protected abstract void entryAdded(Entry e);
+
+    /**
+     * Called after a bulk add into an empty index.
+     *
+     * @param added the new entries in insertion order
+     */
+    protected void entriesAdded(List<Entry> added) {
+        for (Entry e : added) {
+            entryAdded(e);
+        }
+    }
+
+    /** Called before an entry is dropped. */
+    protected abstract void entryRemoved(Entry e);
+
+    /**
+     * Mode-specific selection over a non-empty index.
+     *
+     * @param progress shuttle's current travelled distance
+     * @return best entry, or null if none qualifies
+     */
+    protected abstract Entry select(double progress);
+
+    @Override
+    public List<Destination> within(double from, double to) {
+        List<Destination> found = new ArrayList<>();
+        if (!(from <= to)) {
+            return found;
+        }
+        for (Entry e : byDistance.subSet(new Entry(null, from, Long.MIN_VALUE), true,
+                                         probe(to), true)) {
+            found.add(e.destination);
+        }
+        return found;
+    }
+
+    /** Ranks every entry in a bounded heap, without sorting them by insertion. */
+    @Override
+    public List<Destination> topK(int k, double progress) {
+        NavigationStrategy ranking = ranking();
+        CandidateHeap heap = new CandidateHeap(k);
+        for (Entry e : byDistance) {
+            heap.offer(e.destination, ranking.score(e.destination, progress), e.seq);
+        }
+        return heap.ranked();
+    }
+
+    private static Entry probe(double distance) {
+        return new Entry(null, distance, Long.MAX_VALUE);
+    }
+
+    /**
+     * Presents an already sorted array as a SortedSet, which lets
+     * TreeSet.addAll build its tree directly from it in linear time.
+     *
+     * @param sorted     elements in comparator order, without duplicates
+     * @param comparator the order of the array and of the target TreeSet
+     * @return read-only view for TreeSet.addAll
+     */
+    protected static <T> SortedSet<T> sortedView(T[] sorted, Comparator<? super T> comparator) {
+        return new SortedArrayView<>(sorted, comparator);
+    }
+
+    /**
+     * Read-only SortedSet over a slice of a sorted array. Ranges are
+     * found by binary search and share the array; bounds outside a
+     * slice are clamped to it.
+     */
+    private static final class SortedArrayView<T> extends AbstractSet<T>
+                                                  implements SortedSet<T> {
+        private final T[] elements;
+        private final Comparator<? super T> comparator;
+        private final int from;
+        private final int to;
+
+        SortedArrayView(T[] elements, Comparator<? super T> comparator) {
+            this(elements, comparator, 0, elements.length);
+        }
+
+        private SortedArrayView(T[] elements, Comparator<? super T> comparator,
+                                int from, int to) {
+            this.elements = elements;
+            this.comparator = comparator;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Arrays.asList(elements).subList(from, to).iterator();
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            int i = ceiling((T) o);
+            return i < to && comparator.compare(elements[i], (T) o) == 0;
+        }
+
+        @Override
+        public Comparator<? super T> comparator() {
+            return comparator;
+        }
+
+        @Override
+        public T first() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return elements[from];
+        }
+
+        @Override
+        public T last() {
+            if (from == to) {
+                throw new NoSuchElementException();
+            }
+            return elements[to - 1];
+        }
+
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement) {
+            if (comparator.compare(fromElement, toElement) > 0) {
+                throw new IllegalArgumentException("fromElement > toElement");
+            }
+            return new SortedArrayView<>(elements, comparator,
+                                         ceiling(fromElement), ceiling(toElement));
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement) {
+            return new SortedArrayView<>(elements, comparator, from, ceiling(toElement));
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement) {
+            return new SortedArrayView<>(elements, comparator, ceiling(fromElement), to);
+        }
+
+        /** Index of the first element not below a key, within the slice. */
+        private int ceiling(T key) {
+            int lo = from;
+            int hi = to;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (comparator.compare(elements[mid], key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
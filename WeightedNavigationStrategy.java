@@ -0,0 +1,74 @@
+// WeightedNavigationStrategy.java
+/**
+ * @author Nihat Masimli
+ */
+import java.util.List;
+
+/**
+ * Chooses the destination minimizing a weighted sum of the criteria of
+ * the single-criterion modes:
+ *   distanceWeight * remainingDistance + rateWeight * consumptionRate
+ *                                      - valueWeight * scientificValue
+ * Weights of (1, 0, 0) choose as STANDARD does, and (0, 0, 1) as
+ * EXPLORATION. Ties go to the destination earlier in the list.
+ */
+public class WeightedNavigationStrategy implements NavigationStrategy {
+    private final double distanceWeight;
+    private final double rateWeight;
+    private final double valueWeight;
+
+    /**
+     * @param distanceWeight cost of one unit of distance still to travel
+     * @param rateWeight     cost of one percent of fuel per thrust
+     * @param valueWeight    gain of one unit of scientific value
+     */
+    public WeightedNavigationStrategy(double distanceWeight, double rateWeight,
+                                      double valueWeight) {
+        if (!Double.isFinite(distanceWeight) || !Double.isFinite(rateWeight)
+            || !Double.isFinite(valueWeight)) {
+            throw new IllegalArgumentException("weights must be finite");
+        }
+        this.distanceWeight = distanceWeight;
+        this.rateWeight = rateWeight;
+        this.valueWeight = valueWeight;
+    }
+
+    @Override
+    public Destination selectNext(List<Destination> destinations, double currentProgress) {
+        Destination best = null;
+        double bestScore = Double.NaN;
+        for (Destination d : destinations) {
+            double score = score(d, currentProgress);
+            if (score < bestScore || (best == null && !Double.isNaN(score))) {
+                bestScore = score;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public boolean scores() {
+        return true;
+    }
+
+    @Override
+    public double score(Destination destination, double currentProgress) {
+        // a zero weight ignores its criterion, even an infinite one
+        double score = 0.0;
+        if (distanceWeight != 0) {
+            score += distanceWeight * destination.distanceRemaining(currentProgress);
+        }
+        if (rateWeight != 0) {
+            score += rateWeight * destination.getConsumptionRate();
+        }
+        if (valueWeight != 0) {
+            score -= valueWeight * destination.getScientificValue();
+        }
+        return score;
+    }
+
+    public double getDistanceWeight() { return distanceWeight; }
+    public double getRateWeight() { return rateWeight; }
+    public double getValueWeight() { return valueWeight; }
+}
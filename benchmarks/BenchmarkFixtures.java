@@ -0,0 +1,223 @@
+// BenchmarkFixtures.java
+/**
+ * @author Nihat Masimli
+ */
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleFunction;
+
+/**
+ * Builds the workloads measured by the benchmarks in package bench.
+ *
+ * JMH only accepts benchmark classes in a named package, and a named
+ * package cannot refer to the classes of this project, which live in the
+ * default package. The benchmarks therefore look this class up once per
+ * trial and get plain java.util.function objects back; the measured call
+ * is a direct interface call into project code.
+ *
+ * @author Nihat Masimli
+ */
+public final class BenchmarkFixtures {
+    private static final long SEED = 42L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A linear strategy scan over a list of destinations.
+     *
+     * @param mode STANDARD, EFFICIENT or EXPLORATION
+     * @param size number of destinations
+     * @return progress -> selected destination
+     */
+    public static DoubleFunction<Object> strategyScan(String mode, int size) {
+        List<Destination> destinations = catalog(size, 1_000_000.0);
+        NavigationStrategy strategy;
+        switch (NavigationMode.valueOf(mode)) {
+            case EFFICIENT:
+                strategy = new EfficientNavigationStrategy();
+                break;
+            case EXPLORATION:
+                strategy = new ExplorationNavigationStrategy();
+                break;
+            case STANDARD:
+            default:
+                strategy = new StandardNavigationStrategy();
+                break;
+        }
+        return progress -> strategy.selectNext(destinations, progress);
+    }
+
+    /**
+     * NavigationSystem's indexed selection over the same destinations.
+     *
+     * @param mode STANDARD, EFFICIENT or EXPLORATION
+     * @param size number of destinations
+     * @return progress -> selected destination
+     */
+    public static DoubleFunction<Object> indexedNext(String mode, int size) {
+        NavigationSystem nav = new NavigationSystem();
+        nav.setMode(NavigationMode.valueOf(mode));
+        for (Destination d : catalog(size, 1_000_000.0)) {
+            nav.addDestination(d);
+        }
+        return nav::getNextDestination;
+    }
+
+    /**
+     * NavigationSystem's column store: a strategy scan over primitive
+     * arrays.
+     *
+     * @param mode STANDARD, EFFICIENT or EXPLORATION
+     * @param size number of destinations
+     * @return progress -> selected destination
+     */
+    public static DoubleFunction<Object> columnNext(String mode, int size) {
+        NavigationSystem nav = new NavigationSystem();
+        nav.setMode(NavigationMode.valueOf(mode));
+        nav.useColumnStore();
+        nav.addDestinations(catalog(size, 1_000_000.0));
+        return nav::getNextDestination;
+    }
+
+    /**
+     * Writes a 4-column destination file of the given size.
+     *
+     * @param lines number of destinations
+     * @return the temporary file, deleted on exit
+     */
+    public static File destinationFile(int lines) throws IOException {
+        File file = File.createTempFile("destinations-" + lines + "-", ".txt");
+        file.deleteOnExit();
+        try (BufferedWriter w = new BufferedWriter(new FileWriter(file))) {
+            for (Destination d : catalog(lines, 1_000_000.0)) {
+                w.write(d.getName() + " " + d.getDistanceFromEarth() + " "
+                        + d.getScientificValue() + " " + d.getConsumptionRate());
+                w.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Loads a destination file into a fresh shuttle.
+     *
+     * @param file file written by destinationFile
+     * @return loader returning the loaded shuttle
+     */
+    public static Callable<Object> loadFile(File file) {
+        String path = file.getAbsolutePath();
+        return () -> {
+            SpaceShuttle shuttle = new SpaceShuttle(1000.0);
+            shuttle.loadDestinationFromFile(path);
+            return shuttle;
+        };
+    }
+
+    /**
+     * A full mission from Earth with the mission log switched off; every
+     * call flies the same mission.
+     *
+     * @param mode        STANDARD, EFFICIENT, EXPLORATION or OPTIMAL
+     * @param size        number of destinations
+     * @param eventDriven whether cruising jumps between events
+     * @return launcher returning the shuttle after its mission
+     */
+    public static Callable<Object> launch(String mode, int size,
+                                          boolean eventDriven) {
+        List<Destination> destinations = catalog(size, 50.0 * size);
+        NavigationMode navigationMode = NavigationMode.valueOf(mode);
+        return () -> {
+            SpaceShuttle shuttle = new SpaceShuttle(1000.0);
+            shuttle.setNavigationMode(navigationMode);
+            shuttle.setListener(NoOpMissionListener.INSTANCE);
+            shuttle.setEventDrivenCruise(eventDriven);
+            shuttle.setRandom(new MissionRandom(SEED));
+            for (Destination d : destinations) {
+                shuttle.addDestination(d.getName(), d.getDistanceFromEarth(),
+                                       d.getScientificValue(),
+                                       d.getConsumptionRate());
+            }
+            shuttle.launch();
+            return shuttle;
+        };
+    }
+
+    /**
+     * Reserves the fuel for one thrust at a time, refuelling when the
+     * tank runs dry.
+     *
+     * @param concurrent whether to use a ConcurrentFuelTank
+     * @return draw returning whether the reservation succeeded
+     */
+    public static BooleanSupplier fuelDraw(boolean concurrent) {
+        FuelTank tank = concurrent ? new ConcurrentFuelTank(1000.0)
+                                   : new FuelTank(1000.0);
+        return () -> {
+            if (tank.tryUseFuel(0.1)) {
+                return true;
+            }
+            tank.refuel();
+            return false;
+        };
+    }
+
+    /**
+     * A survey feeding destinations into a mission's navigation, which
+     * merges them and flies to the closest one per leg.
+     *
+     * @param capacity feed queue capacity
+     * @return {ingest, leg}: ingest offers one destination, false if the
+     *         queue stayed full for a millisecond; leg merges the feed and
+     *         flies one leg, false if nothing was left to visit
+     */
+    public static BooleanSupplier[] streamingMission(int capacity) {
+        DestinationFeed feed = new DestinationFeed(capacity);
+        NavigationSystem nav = new NavigationSystem();
+        double[] surveyed = {0.0};
+        double[] progress = {0.0};
+        BooleanSupplier ingest = () -> {
+            try {
+                surveyed[0] += 1.0;
+                return feed.offer(new Destination("S", surveyed[0], 1.0, 10.0),
+                                  1, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
+        BooleanSupplier leg = () -> {
+            feed.drainTo(nav);
+            Destination next = nav.getNextDestination(progress[0]);
+            if (next == null) {
+                return false;
+            }
+            progress[0] = next.getDistanceFromEarth();
+            nav.removeReachedDestinations(progress[0]);
+            return true;
+        };
+        return new BooleanSupplier[] {ingest, leg};
+    }
+
+    /** Reproducible random destinations up to the given distance. */
+    private static List<Destination> catalog(int size, double maxDistance) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Destination> destinations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            destinations.add(new Destination(
+                "D" + i,
+                Math.floor(random.nextDouble(1.0, maxDistance)),
+                Math.floor(random.nextDouble(0.0, 10.0) * 10) / 10,
+                Math.floor(random.nextDouble(5.0, 20.0))));
+        }
+        return destinations;
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streaming ingestion: one thread feeds destinations into a
+ * DestinationFeed while another flies legs, merging the feed between
+ * them. Reports the time per ingested destination and per leg.
+ *
+ * @author Nihat Masimli
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedBenchmark {
+
+    @Param({"64", "4096"})
+    public int capacity;
+
+    private BooleanSupplier ingest;
+    private BooleanSupplier leg;
+
+    @Setup
+    public void setUp() throws Exception {
+        BooleanSupplier[] mission = Fixtures.create("streamingMission", capacity);
+        ingest = mission[0];
+        leg = mission[1];
+    }
+
+    @Benchmark
+    @Group("stream")
+    @GroupThreads(1)
+    public boolean ingest() {
+        return ingest.getAsBoolean();
+    }
+
+    @Benchmark
+    @Group("stream")
+    @GroupThreads(1)
+    public boolean leg() {
+        return leg.getAsBoolean();
+    }
+}
@@ -0,0 +1,43 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Reflective access to BenchmarkFixtures in the default package.
+ * Only used while setting up a trial, never inside a measured method.
+ *
+ * @author Nihat Masimli
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * Calls a static factory of BenchmarkFixtures.
+     *
+     * @param method factory name
+     * @param args   factory arguments; int, boolean and String are supported
+     * @return the factory's result
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T create(String method, Object... args) throws Exception {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            Class<?> type = args[i].getClass();
+            if (type == Integer.class) {
+                type = int.class;
+            } else if (type == Boolean.class) {
+                type = boolean.class;
+            }
+            types[i] = type;
+        }
+        Method factory = Class.forName("BenchmarkFixtures").getMethod(method, types);
+        try {
+            return (T) factory.invoke(null, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reserving thrust fuel: a shuttle's own tank, plain or concurrent,
+ * against one ConcurrentFuelTank drawn from by four threads.
+ *
+ * @author Nihat Masimli
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FuelTankBenchmark {
+
+    /** One tank per thread. */
+    @State(Scope.Thread)
+    public static class OwnTank {
+        @Param({"false", "true"})
+        public boolean concurrent;
+
+        BooleanSupplier draw;
+
+        @Setup
+        public void setUp() throws Exception {
+            draw = Fixtures.create("fuelDraw", concurrent);
+        }
+    }
+
+    /** One concurrent tank for all threads. */
+    @State(Scope.Benchmark)
+    public static class SharedTank {
+        BooleanSupplier draw;
+
+        @Setup
+        public void setUp() throws Exception {
+            draw = Fixtures.create("fuelDraw", true);
+        }
+    }
+
+    @Benchmark
+    public boolean uncontended(OwnTank tank) {
+        return tank.draw.getAsBoolean();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean contended(SharedTank tank) {
+        return tank.draw.getAsBoolean();
+    }
+}
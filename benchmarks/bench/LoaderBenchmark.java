@@ -0,0 +1,47 @@
+package bench;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of SpaceShuttle.loadDestinationFromFile on 4-column files.
+ *
+ * @author Nihat Masimli
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int lines;
+
+    private Callable<Object> load;
+
+    @Setup
+    public void setUp() throws Exception {
+        File file = Fixtures.create("destinationFile", lines);
+        load = Fixtures.create("loadFile", file);
+    }
+
+    @Benchmark
+    public Object loadDestinationFromFile() throws Exception {
+        return load.call();
+    }
+}
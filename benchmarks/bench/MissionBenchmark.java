@@ -0,0 +1,51 @@
+package bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end SpaceShuttle.launch with the mission log disabled.
+ *
+ * @author Nihat Masimli
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionBenchmark {
+
+    @Param({"STANDARD", "EFFICIENT", "EXPLORATION", "OPTIMAL"})
+    public String mode;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean eventDriven;
+
+    private Callable<Object> launch;
+
+    @Setup
+    public void setUp() throws Exception {
+        launch = Fixtures.create("launch", mode, size, eventDriven);
+    }
+
+    @Benchmark
+    public Object launch() throws Exception {
+        return launch.call();
+    }
+}
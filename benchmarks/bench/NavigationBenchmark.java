@@ -0,0 +1,64 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of choosing the next destination: the linear strategy scan
+ * against NavigationSystem's indexed lookup and its column store scan,
+ * per navigation mode and catalog size.
+ *
+ * @author Nihat Masimli
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NavigationBenchmark {
+
+    @Param({"STANDARD", "EFFICIENT", "EXPLORATION"})
+    public String mode;
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private DoubleFunction<Object> scan;
+    private DoubleFunction<Object> indexed;
+    private DoubleFunction<Object> columns;
+
+    @Setup
+    public void setUp() throws Exception {
+        scan = Fixtures.create("strategyScan", mode, size);
+        indexed = Fixtures.create("indexedNext", mode, size);
+        columns = Fixtures.create("columnNext", mode, size);
+    }
+
+    @Benchmark
+    public Object strategySelectNext() {
+        return scan.apply(0.0);
+    }
+
+    @Benchmark
+    public Object indexedGetNextDestination() {
+        return indexed.apply(0.0);
+    }
+
+    @Benchmark
+    public Object columnGetNextDestination() {
+        return columns.apply(0.0);
+    }
+}